@@ -5,6 +5,9 @@ public class CloudStackConstants {
     public static final String ERROR_CODE_KEY_JSON = "errorcode";
     public static final String ERROR_TEXT_KEY_JSON = "errortext";
     public static final String JOB_ID_KEY_JSON = "jobid";
+    public static final String COUNT_KEY_JSON = "count";
+    public static final String PAGE_KEY_JSON = "page";
+    public static final String PAGE_SIZE_KEY_JSON = "pagesize";
     public static final String X_DESCRIPTION_KEY = "X-Description";
     
     public static class Compute {
@@ -2,24 +2,34 @@ package cloud.fogbow.common.constants;
 
 public class Messages {
     public static class Exception {
+        public static final String ASYNC_JOB_S_STILL_PROCESSING_AFTER_D_MILLIS = "Async job %s still processing after %d milliseconds.";
         public static final String ATTEMPTING_TO_ADD_A_NULL_ITEM = "Attempting to add a null item.";
         public static final String ATTEMPTING_TO_REMOVE_A_NULL_ITEM = "Attempting to remove a null item.";
         public static final String AUTHENTICATION_ERROR = "Authentication error.";
         public static final String AUTHORIZATION_ERROR = "Authorization error.";
         public static final String CONFIGURATION_ERROR = "Error in the configuration files.";
         public static final String DATABASE_INTEGRITY_VIOLATED = "The database may be incompatible or corrupted.";
+        public static final String ENVELOPE_ALREADY_FINISHED = "The last segment of this envelope was already processed.";
+        public static final String ENVELOPE_SEGMENT_LIMIT_EXCEEDED = "The envelope exceeds the maximum number of segments.";
         public static final String ERROR_WHILE_CONVERTING_INSTANCE_ID_S = "Error while converting instance id %s to integer.";
         public static final String ERROR_WHILE_CREATING_AZURE_CLIENT = "Error while creating a new Azure client.";
         public static final String ERROR_WHILE_CREATING_CLIENT = "Error while creating client.";
         public static final String ERROR_WHILE_GETTING_USERS_S = "Error while getting information about users: %s.";
         public static final String FATAL_ERROR = "Fatal error.";
+        public static final String GSON_INSTANCE_ALREADY_CREATED = "The Gson instance was already created.";
         public static final String INSTANCE_NOT_FOUND = "Instance not found.";
+        public static final String INVALID_AUTHORIZATION_PLUGIN_TIMEOUT_S = "Invalid authorization plugin timeout: %s.";
+        public static final String INVALID_AUTHORIZATION_POLICY_PATTERN_S = "Invalid authorization policy pattern: %s.";
         public static final String INVALID_CHAR_C_FOR_RANDOM_KEY_S_AT_INDEX_D = "Invalid char \"%c\" for random key: \"%s\" at index %d.";
+        public static final String INVALID_ENVELOPE_HEADER = "Invalid envelope header.";
+        public static final String INVALID_ENVELOPE_SEGMENT_SIZE = "Invalid envelope segment size.";
         public static final String INVALID_PARAMETER = "Invalid parameter.";
         public static final String INVALID_PRIVATE_KEY = "Cannot read private key from configuration file.";
         public static final String INVALID_PUBLIC_KEY = "Cannot read private key from configuration file.";
         public static final String INVALID_PUBLIC_KEY_FETCHED = "Invalid public key fetched from external server.";
+        public static final String INVALID_SERIALIZED_SYSTEM_USER = "Invalid serialized system user.";
         public static final String INVALID_SERVICE_URL_S = "Invalid service URL: %s.";
+        public static final String INVALID_SYSTEM_USER_TYPE_ID_D = "Invalid system user type id: %d.";
         public static final String MAXIMUM_SIZE_EXCEEDED = "The serialized object is larger than allowed.";
         public static final String NEITHER_BODY_OR_HEADERS_CAN_BE_NULL = "Neither body or headers can be null.";
         public static final String NO_AVAILABLE_RESOURCES = "No available resources.";
@@ -29,27 +39,45 @@ public class Messages {
         public static final String OPERATION_RETURNED_ERROR_S = "Operation returned error: %s.";
         public static final String PROPERTY_FILE_S_NOT_FOUND = "Property file %s not found.";
         public static final String REMOTE_COMMUNICATION = "Error while sending message to remote RAS.";
+        public static final String SYSTEM_USER_TYPE_S_ALREADY_REGISTERED_WITH_ID_D = "Either the system user type %s or the type id %d is already registered.";
         public static final String UNABLE_TO_FIND_CLASS_S = "Unable to find class %s.";
         public static final String UNABLE_TO_FIND_SYSTEM_USER_CLASS = "Unable to find system user class.";
         public static final String UNABLE_TO_GET_TOKEN_FROM_JSON = "Unable to get token from json.";
         public static final String UNABLE_TO_READ_CONFIGURATION_FILE_S = "Unable to read configuration file %s.";
         public static final String UNAVAILABLE_PROVIDER = "Provider is not available.";
         public static final String UNEXPECTED = "Unexpected error.";
+        public static final String UNKNOWN_SIGNATURE_SCHEME_S = "Unknown signature scheme: %s.";
+        public static final String UNSUPPORTED_SYSTEM_USER_FORMAT_VERSION_D = "Unsupported system user format version: %d.";
         public static final String WRONG_SYNTAX_FOR_ENDPOINT_S = "Wrong syntax for endpoint %s.";
     }
 
     public static class Log {
         public static final String AUTHENTICATION_ERROR = Exception.AUTHENTICATION_ERROR;
+        public static final String AUTHORIZATION_PLUGINS_BUSY = "Authorization plugins are too busy to evaluate the operation; it is denied.";
+        public static final String AUTHORIZATION_PLUGIN_S_TIMED_OUT = "Authorization plugin %s timed out; the operation is denied.";
+        public static final String AUTHORIZATION_POLICY_S_RELOADED = "Authorization policy %s reloaded.";
+        public static final String AUTHORIZATION_SERVER_S_UNAVAILABLE_FOR_D_MILLIS = "Authorization server %s keeps failing; operations not cached are denied for %d ms.";
+        public static final String CREATING_AWS_IAM_CLIENT = "Creating a new AWS IAM client.";
         public static final String CREATING_AZURE_CLIENT = "Creating a new Azure client.";
         public static final String ERROR_MESSAGE_IS_S = "Error message is: %s.";
         public static final String ERROR_WHILE_CONVERTING_INSTANCE_ID_S = Exception.ERROR_WHILE_CONVERTING_INSTANCE_ID_S;
         public static final String ERROR_WHILE_CREATING_CLIENT = Exception.ERROR_WHILE_CREATING_CLIENT;
         public static final String ERROR_WHILE_CREATING_REQUEST_BODY = "Error while creating request body.";
         public static final String ERROR_WHILE_GETTING_USERS_S = Exception.ERROR_WHILE_GETTING_USERS_S;
+        public static final String KEY_FILE_S_RELOADED = "Key file %s reloaded.";
+        public static final String TOO_MANY_OPERATIONS_WAITING_FOR_AUTHORIZATION_SERVER_S = "Too many operations are waiting for authorization server %s; the operation is denied.";
         public static final String UNABLE_TO_CLOSE_FILE_S = "Unable to close file %s.";
         public static final String UNABLE_TO_GENERATE_SIGNATURE = "Unable to generate signature.";
         public static final String UNABLE_TO_GET_TOKEN_FROM_JSON = Exception.UNABLE_TO_GET_TOKEN_FROM_JSON;
+        public static final String UNABLE_TO_PARSE_TOKEN_EXPIRATION_TIME_S = "Unable to parse token expiration time %s.";
+        public static final String UNABLE_TO_POLL_ASYNC_JOB_S = "Unable to poll async job %s.";
+        public static final String UNABLE_TO_RELOAD_AUTHORIZATION_POLICY_S = "Unable to reload authorization policy %s; keeping the current policy.";
+        public static final String UNABLE_TO_RELOAD_KEY_FILE_S = "Unable to reload key file %s; keeping the current key.";
+        public static final String UNABLE_TO_SAVE_BATCH_OF_D_OBJECTS = "Unable to save a batch of %d objects; saving them one by one.";
+        public static final String UNABLE_TO_WATCH_AUTHORIZATION_POLICY_S = "Unable to watch authorization policy %s for changes.";
+        public static final String UNABLE_TO_WATCH_KEY_FILE_S = "Unable to watch key file %s for changes.";
         public static final String UNEXPECTED = Exception.UNEXPECTED;
+        public static final String UNEXPECTED_BATCH_AUTHORIZATION_RESPONSE_S = "Unexpected batch authorization response: %s; every operation is denied.";
         public static final String USER_POOL_LENGTH_S = "User pool length: %s.";
     }
 
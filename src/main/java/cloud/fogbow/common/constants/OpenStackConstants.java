@@ -142,6 +142,14 @@ public class OpenStackConstants {
         public static final String PROJECT_NAME_KEY_JSON = "projectname";
         public static final String PASSWORD_KEY_JSON = "password";
         public static final String IDENTITY_KEY_JSON = "identity";
+        public static final String EXPIRES_AT_KEY_JSON = "expires_at";
+        public static final String CATALOG_KEY_JSON = "catalog";
+        public static final String TYPE_KEY_JSON = "type";
+        public static final String ENDPOINTS_KEY_JSON = "endpoints";
+        public static final String INTERFACE_KEY_JSON = "interface";
+        public static final String REGION_KEY_JSON = "region";
+        public static final String URL_KEY_JSON = "url";
+        public static final String PUBLIC_INTERFACE = "public";
     }
 
     public static class Quota {
@@ -2,19 +2,322 @@ package cloud.fogbow.common.datastore;
 
 import cloud.fogbow.common.constants.Messages;
 import cloud.fogbow.common.exceptions.InternalServerErrorException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.log4j.Logger;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.transaction.TransactionSystemException;
 
+import javax.persistence.EmbeddedId;
+import javax.persistence.Id;
 import javax.persistence.RollbackException;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Saves storable objects, truncating the fields that exceed their size constraints instead of failing. String
+ * columns longer than their {@code @Size} or {@code @Length} maximum are truncated in place before saving; if a save
+ * still fails on a size constraint, a truncated copy of the object is saved.
+ * <p>
+ * Once {@link #enableWriteBehind(int, long) write-behind} is enabled, {@link #safeSaveLater(Object, JpaRepository)}
+ * queues objects instead of saving them at once: a background thread saves them in batches, each with a single
+ * {@link JpaRepository#saveAll(Iterable)} and so a single transaction, as soon as a batch is full or the oldest
+ * queued object has waited for the maximum latency. Queued objects with the same entity id are coalesced, so only
+ * the latest state of an object is saved. A synchronous {@link #safeSave(Object, JpaRepository) save} of an object
+ * drops its queued state, and waits for the batch saving it, if any, so that an older state never overwrites it.
+ * The returned future completes once the object is saved, which is when
+ * durability callbacks run, or fails with the exception {@link #safeSave(Object, JpaRepository)} would have thrown.
+ * If a batch fails, its objects are saved one by one, each one truncated and retried as by safeSave.
+ */
 public class FogbowDatabaseService<T> {
+    private static final Logger LOGGER = Logger.getLogger(FogbowDatabaseService.class);
+
     public static final String SIZE_CONSTRAINT_MESSAGE = "{javax.validation.constraints.Size.message}";
 
+    private static final String WRITE_BEHIND_THREAD_NAME_FORMAT = "database-write-behind-%d";
+
+    // the id field of each entity type, if any, so that queued objects can be coalesced
+    private static final Map<Class<?>, Optional<Field>> idFields = new ConcurrentHashMap<>();
+
+    private final Object writeBehindLock = new Object();
+    // in the order objects were first queued
+    private final Map<PendingKey, PendingSave<T>> pendingSaves = new LinkedHashMap<>();
+    // the objects of the batch being saved
+    private final Set<PendingKey> inFlightKeys = new HashSet<>();
+    private ScheduledExecutorService writeBehindExecutor;
+    // so that durability callbacks can flush without waiting for themselves
+    private volatile Thread writeBehindThread;
+    private int maxBatchSize;
+    private long maxLatencyMillis;
+    private boolean flushScheduled;
+    private boolean immediateFlushScheduled;
+
     public <S extends T> void safeSave(S o, JpaRepository<T, ?> repository) throws InternalServerErrorException {
+        // a queued or in-flight, older state of the object must not overwrite this one
+        PendingSave<T> pendingSave = supersedePendingSave(o, repository);
+        try {
+            save(o, repository);
+        } catch (InternalServerErrorException e) {
+            if (pendingSave != null) {
+                pendingSave.future.completeExceptionally(e);
+            }
+            throw e;
+        }
+        if (pendingSave != null) {
+            pendingSave.future.complete(null);
+        }
+    }
+
+    /**
+     * Saves the object as {@link #safeSave(Object, JpaRepository)} does, but queued, if write-behind is enabled.
+     *
+     * @return a future completed once the object is saved, or failed with the reason it could not be saved.
+     */
+    public <S extends T> CompletableFuture<Void> safeSaveLater(S o, JpaRepository<T, ?> repository) {
+        synchronized (this.writeBehindLock) {
+            if (this.writeBehindExecutor != null) {
+                PendingKey key = new PendingKey(repository, o);
+                PendingSave<T> pendingSave = this.pendingSaves.get(key);
+                if (pendingSave != null) {
+                    pendingSave.object = o;
+                } else {
+                    pendingSave = new PendingSave<>(key, o, repository);
+                    this.pendingSaves.put(key, pendingSave);
+                }
+                scheduleFlush();
+                // a dependent future, so that callers cannot complete the one shared by coalesced saves
+                return pendingSave.future.thenApply(result -> result);
+            }
+        }
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            safeSave(o, repository);
+            future.complete(null);
+        } catch (InternalServerErrorException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Starts queueing the objects passed to {@link #safeSaveLater(Object, JpaRepository)}.
+     *
+     * @param maxBatchSize     the maximum number of objects saved in a single transaction.
+     * @param maxLatencyMillis how long an object may stay queued before it is saved.
+     */
+    public void enableWriteBehind(int maxBatchSize, long maxLatencyMillis) {
+        synchronized (this.writeBehindLock) {
+            this.maxBatchSize = Math.max(1, maxBatchSize);
+            this.maxLatencyMillis = Math.max(0, maxLatencyMillis);
+            if (this.writeBehindExecutor == null) {
+                ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                        .setNameFormat(WRITE_BEHIND_THREAD_NAME_FORMAT)
+                        .setDaemon(true)
+                        .build();
+                ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                    Thread thread = threadFactory.newThread(runnable);
+                    this.writeBehindThread = thread;
+                    return thread;
+                });
+                // the final flush saves everything, so delayed flushes need not run after it
+                executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+                this.writeBehindExecutor = executor;
+            }
+        }
+    }
+
+    /**
+     * Saves every queued object, and stops queueing.
+     */
+    public void disableWriteBehind() throws InterruptedException {
+        ScheduledExecutorService executor;
+        synchronized (this.writeBehindLock) {
+            executor = this.writeBehindExecutor;
+            this.writeBehindExecutor = null;
+        }
+        if (executor != null) {
+            executor.execute(this::flushAll);
+            executor.shutdown();
+            // from a durability callback, the final flush can only run once the callback returns
+            if (!isWriteBehindThread()) {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Saves every object queued so far, waiting until they are saved or have failed.
+     */
+    public void flush() throws InterruptedException {
+        ScheduledExecutorService executor;
+        synchronized (this.writeBehindLock) {
+            executor = this.writeBehindExecutor;
+        }
+        if (executor != null && isWriteBehindThread()) {
+            flushAll();
+        } else if (executor != null) {
+            try {
+                executor.submit(this::flushAll).get();
+            } catch (ExecutionException e) {
+                LOGGER.error(String.format(Messages.Log.ERROR_MESSAGE_IS_S, e.getMessage()), e);
+            }
+        }
+    }
+
+    private boolean isWriteBehindThread() {
+        return Thread.currentThread() == this.writeBehindThread;
+    }
+
+    private void scheduleFlush() {
+        if (this.pendingSaves.size() >= this.maxBatchSize) {
+            if (!this.immediateFlushScheduled) {
+                this.writeBehindExecutor.execute(this::flushBatch);
+                this.immediateFlushScheduled = true;
+                this.flushScheduled = true;
+            }
+        } else if (!this.flushScheduled) {
+            this.writeBehindExecutor.schedule(this::flushBatch, this.maxLatencyMillis, TimeUnit.MILLISECONDS);
+            this.flushScheduled = true;
+        }
+    }
+
+    private void flushAll() {
+        while (flushBatch()) {
+            // until nothing is left
+        }
+    }
+
+    /**
+     * @return whether anything was saved.
+     */
+    private boolean flushBatch() {
+        List<PendingSave<T>> batch = new ArrayList<>();
+        synchronized (this.writeBehindLock) {
+            Iterator<PendingSave<T>> iterator = this.pendingSaves.values().iterator();
+            while (iterator.hasNext() && batch.size() < this.maxBatchSize) {
+                PendingSave<T> pendingSave = iterator.next();
+                batch.add(pendingSave);
+                this.inFlightKeys.add(pendingSave.key);
+                iterator.remove();
+            }
+            this.flushScheduled = false;
+            this.immediateFlushScheduled = false;
+            if (!this.pendingSaves.isEmpty() && this.writeBehindExecutor != null) {
+                scheduleFlush();
+            }
+        }
+
+        // a batch usually holds objects of a single repository, but nothing requires it to
+        Map<JpaRepository<T, ?>, List<PendingSave<T>>> batchesByRepository = new LinkedHashMap<>();
+        for (PendingSave<T> pendingSave : batch) {
+            batchesByRepository.computeIfAbsent(pendingSave.repository, repository -> new ArrayList<>())
+                    .add(pendingSave);
+        }
+        try {
+            for (Map.Entry<JpaRepository<T, ?>, List<PendingSave<T>>> entry : batchesByRepository.entrySet()) {
+                saveBatch(entry.getValue(), entry.getKey());
+            }
+        } finally {
+            if (!batch.isEmpty()) {
+                synchronized (this.writeBehindLock) {
+                    for (PendingSave<T> pendingSave : batch) {
+                        this.inFlightKeys.remove(pendingSave.key);
+                    }
+                    this.writeBehindLock.notifyAll();
+                }
+            }
+        }
+        // durability callbacks run on this thread, and may save these objects again; so they run only once the batch
+        // is no longer in flight
+        for (PendingSave<T> pendingSave : batch) {
+            pendingSave.complete();
+        }
+        return !batch.isEmpty();
+    }
+
+    private void saveBatch(List<PendingSave<T>> batch, JpaRepository<T, ?> repository) {
+        List<T> objects = new ArrayList<>();
+        for (Iterator<PendingSave<T>> iterator = batch.iterator(); iterator.hasNext(); ) {
+            PendingSave<T> pendingSave = iterator.next();
+            try {
+                StorableObjectTruncateHelper.truncateInPlace(pendingSave.object);
+                objects.add(pendingSave.object);
+            } catch (InternalServerErrorException e) {
+                pendingSave.failure = e;
+                iterator.remove();
+            }
+        }
+        if (objects.isEmpty()) {
+            return;
+        }
+
+        try {
+            repository.saveAll(objects);
+        } catch (RuntimeException e) {
+            // the whole batch was rolled back; saving its objects one by one truncates the oversized ones, and
+            // fails only the objects that cannot be saved at all
+            LOGGER.warn(String.format(Messages.Log.UNABLE_TO_SAVE_BATCH_OF_D_OBJECTS, objects.size()), e);
+            safeFlush(repository);
+            for (PendingSave<T> pendingSave : batch) {
+                try {
+                    save(pendingSave.object, repository);
+                } catch (InternalServerErrorException | RuntimeException e1) {
+                    pendingSave.failure = e1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the queued state of the object, if any, and waits until no batch being saved holds an older state of it.
+     * As batches take bounded time, the wait is not interrupted, lest the older state overwrite the newer one.
+     *
+     * @return the dropped queued state, or null.
+     */
+    private PendingSave<T> supersedePendingSave(T o, JpaRepository<T, ?> repository) {
+        boolean interrupted = false;
+        synchronized (this.writeBehindLock) {
+            if (this.pendingSaves.isEmpty() && this.inFlightKeys.isEmpty()) {
+                return null;
+            }
+
+            PendingKey key = new PendingKey(repository, o);
+            PendingSave<T> pendingSave = this.pendingSaves.remove(key);
+            while (this.inFlightKeys.contains(key)) {
+                try {
+                    this.writeBehindLock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return pendingSave;
+        }
+    }
+
+    private <S extends T> void save(S o, JpaRepository<T, ?> repository) throws InternalServerErrorException {
+        // oversized fields are known beforehand, so they need not fail a save to be truncated
+        StorableObjectTruncateHelper.truncateInPlace(o);
         try {
             repository.save(o);
         } catch (RuntimeException e) {
@@ -83,4 +386,100 @@ public class FogbowDatabaseService<T> {
         }
         return false;
     }
+
+    private static Optional<Field> getIdField(Class<?> type) {
+        return idFields.computeIfAbsent(type, key -> {
+            for (Class<?> currentType = key; currentType != null && !currentType.equals(Object.class);
+                 currentType = currentType.getSuperclass()) {
+                for (Field field : currentType.getDeclaredFields()) {
+                    if (field.isAnnotationPresent(Id.class) || field.isAnnotationPresent(EmbeddedId.class)) {
+                        field.setAccessible(true);
+                        return Optional.of(field);
+                    }
+                }
+            }
+            return Optional.empty();
+        });
+    }
+
+    /*
+     * Identifies a queued object by its repository and entity id; objects without an id are identified by
+     * themselves, so they are never coalesced with other objects.
+     */
+    private static class PendingKey {
+        private final JpaRepository<?, ?> repository;
+        private final Class<?> type;
+        private final Object id;
+
+        PendingKey(JpaRepository<?, ?> repository, Object o) {
+            this.repository = repository;
+            this.type = o.getClass();
+            Object id = null;
+            Optional<Field> idField = getIdField(this.type);
+            if (idField.isPresent()) {
+                try {
+                    id = idField.get().get(o);
+                } catch (IllegalAccessException e) {
+                    // not coalesced
+                }
+            }
+            this.id = id == null ? new IdentityKey(o) : id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            PendingKey that = (PendingKey) o;
+            return this.repository == that.repository && this.type == that.type && this.id.equals(that.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(this.repository), this.type, this.id);
+        }
+    }
+
+    private static class IdentityKey {
+        private final Object object;
+
+        IdentityKey(Object object) {
+            this.object = object;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey && ((IdentityKey) o).object == this.object;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.object);
+        }
+    }
+
+    private static class PendingSave<T> {
+        private final PendingKey key;
+        private final JpaRepository<T, ?> repository;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        // replaced by the latest state of the object while it is queued
+        private T object;
+        // why the batch could not save the object, if it could not
+        private Exception failure;
+
+        PendingSave(PendingKey key, T object, JpaRepository<T, ?> repository) {
+            this.key = key;
+            this.object = object;
+            this.repository = repository;
+        }
+
+        void complete() {
+            if (this.failure == null) {
+                this.future.complete(null);
+            } else {
+                this.future.completeExceptionally(this.failure);
+            }
+        }
+    }
 }
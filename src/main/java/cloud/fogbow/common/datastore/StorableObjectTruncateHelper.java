@@ -11,9 +11,14 @@ import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class StorableObjectTruncateHelper<T> {
 
+    // the String columns of each type whose size is constrained, looked up once per type
+    private static final Map<Class<?>, SizeConstrainedField[]> sizeConstrainedFields = new ConcurrentHashMap<>();
+
     private final Class<?> type;
 
     /**
@@ -58,6 +63,56 @@ public class StorableObjectTruncateHelper<T> {
         }
     }
 
+    /**
+     * Truncates, in place, the String columns of the object that are longer than their {@link Size} or
+     * {@link Length} maximum, as {@link #truncate(Object)} would, so that saving it does not violate them.
+     *
+     * @return whether any field was truncated.
+     */
+    public static boolean truncateInPlace(Object object) throws InternalServerErrorException {
+        boolean truncated = false;
+        try {
+            for (SizeConstrainedField constrainedField : getSizeConstrainedFields(object.getClass())) {
+                String value = (String) constrainedField.field.get(object);
+                if (value != null && value.length() > constrainedField.maxLength) {
+                    constrainedField.field.set(object, value.substring(0, constrainedField.maxLength));
+                    truncated = true;
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new InternalServerErrorException(e.getMessage());
+        }
+        return truncated;
+    }
+
+    private static SizeConstrainedField[] getSizeConstrainedFields(Class<?> type) {
+        return sizeConstrainedFields.computeIfAbsent(type, key -> {
+            List<SizeConstrainedField> constrainedFields = new ArrayList<>();
+            for (Class<?> currentType = key; currentType != null && !currentType.equals(Object.class);
+                 currentType = currentType.getSuperclass()) {
+                for (Field field : currentType.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || Modifier.isFinal(modifiers)
+                            || !field.isAnnotationPresent(Column.class) || !field.getType().equals(String.class)) {
+                        continue;
+                    }
+
+                    int maxLength = Integer.MAX_VALUE;
+                    if (field.isAnnotationPresent(Size.class)) {
+                        maxLength = field.getAnnotation(Size.class).max();
+                    } else if (field.isAnnotationPresent(Length.class)) {
+                        maxLength = field.getAnnotation(Length.class).max();
+                    }
+                    if (maxLength != Integer.MAX_VALUE) {
+                        field.setAccessible(true);
+                        constrainedFields.add(new SizeConstrainedField(field, maxLength));
+                    }
+                }
+            }
+            return constrainedFields.toArray(new SizeConstrainedField[0]);
+        });
+    }
+
     public List<Field> getAllFields(Class<?> type) {
         List<Field> allFields = new ArrayList<>();
         for (Class<?> currentType = type; currentType != null && !currentType.equals(Object.class);
@@ -84,4 +139,14 @@ public class StorableObjectTruncateHelper<T> {
 
         field.set(target, truncatedValue);
     }
+
+    private static class SizeConstrainedField {
+        private final Field field;
+        private final int maxLength;
+
+        SizeConstrainedField(Field field, int maxLength) {
+            this.field = field;
+            this.maxLength = maxLength;
+        }
+    }
 }
@@ -2,6 +2,8 @@ package cloud.fogbow.common.models;
 
 public class CloudUser extends User {
     private String token;
+    // Set by identity providers that know when the token stops being valid; not part of the serialized user
+    private transient Long expirationTime;
 
     public CloudUser(String userId, String userName, String token) {
         super(userId, userName);
@@ -19,4 +21,15 @@ public class CloudUser extends User {
     public void setToken(String token) {
         this.token = token;
     }
+
+    /**
+     * @return the time, in milliseconds since the epoch, at which the token expires, or null if unknown.
+     */
+    public Long getExpirationTime() {
+        return this.expirationTime;
+    }
+
+    public void setExpirationTime(Long expirationTime) {
+        this.expirationTime = expirationTime;
+    }
 }
@@ -2,4 +2,25 @@ package cloud.fogbow.common.models;
 
 public class FogbowOperation {
 
+    /**
+     * Identifies the operation when caching authorization decisions, e.g. by
+     * {@link cloud.fogbow.common.plugins.authorization.CachingAuthorizationPlugin}: operations of the same class
+     * with equal keys must always get the same decision for the same user. Operations are not cached by default.
+     *
+     * @return the key of the operation, or null if its decisions must not be cached.
+     */
+    public String getCacheKey() {
+        return null;
+    }
+
+    /**
+     * Names the operation for policies that authorize operations by name, e.g.
+     * {@link cloud.fogbow.common.plugins.authorization.RoleBasedAuthorizationPlugin}. Operations are not named by
+     * default.
+     *
+     * @return the name of the operation, or null if it has none.
+     */
+    public String getOperationName() {
+        return null;
+    }
 }
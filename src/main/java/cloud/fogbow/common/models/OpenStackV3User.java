@@ -1,7 +1,12 @@
 package cloud.fogbow.common.models;
 
+import java.util.Collections;
+import java.util.Map;
+
 public class OpenStackV3User extends CloudUser {
     private String projectId;
+    // public endpoint of each service of the token's catalog, by service type; not part of the serialized user
+    private transient Map<String, String> serviceEndpoints = Collections.emptyMap();
 
     public OpenStackV3User(String userId, String userName, String tokenValue, String projectId) {
         super(userId, userName, tokenValue);
@@ -15,4 +20,16 @@ public class OpenStackV3User extends CloudUser {
     public void setProjectId(String projectId) {
         this.projectId = projectId;
     }
+
+    /**
+     * @return the public URL of the given type of service (e.g. "compute") in the token's service catalog, or null
+     * if the catalog does not have it.
+     */
+    public String getServiceEndpoint(String serviceType) {
+        return this.serviceEndpoints == null ? null : this.serviceEndpoints.get(serviceType);
+    }
+
+    public void setServiceEndpoints(Map<String, String> serviceEndpoints) {
+        this.serviceEndpoints = serviceEndpoints;
+    }
 }
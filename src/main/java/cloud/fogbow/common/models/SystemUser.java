@@ -4,6 +4,7 @@ import cloud.fogbow.common.constants.Messages;
 import cloud.fogbow.common.exceptions.InternalServerErrorException;
 import cloud.fogbow.common.util.GsonHolder;
 import cloud.fogbow.common.util.SerializedEntityHolder;
+import cloud.fogbow.common.util.SystemUserCodec;
 
 import java.util.Objects;
 import java.util.Set;
@@ -47,9 +48,18 @@ public class SystemUser extends User {
         return Objects.hash(identityProviderId, getId(), getName());
     }
 
+    /**
+     * Serializes as JSON, unless the {@link SystemUserCodec} binary format is enabled and the class is registered
+     * in it; {@link #deserialize(String)} accepts both formats.
+     */
     public static String serialize(SystemUser systemUser) throws InternalServerErrorException {
-        SerializedEntityHolder<SystemUser> serializedSystemUserHolder = new SerializedEntityHolder<SystemUser>(systemUser);
-        String serializedSystemUser = serializedSystemUserHolder.toString();
+        String serializedSystemUser;
+        if (SystemUserCodec.isBinaryFormatEnabled() && SystemUserCodec.isRegistered(systemUser.getClass())) {
+            serializedSystemUser = SystemUserCodec.encode(systemUser);
+        } else {
+            SerializedEntityHolder<SystemUser> serializedSystemUserHolder = new SerializedEntityHolder<SystemUser>(systemUser);
+            serializedSystemUser = serializedSystemUserHolder.toString();
+        }
 
         if(serializedSystemUser.length() > SystemUser.SERIALIZED_SYSTEM_USER_MAX_SIZE) {
             throw new InternalServerErrorException(Messages.Exception.MAXIMUM_SIZE_EXCEEDED);
@@ -59,6 +69,10 @@ public class SystemUser extends User {
     }
 
     public static SystemUser deserialize(String serializedSystemUser) throws InternalServerErrorException {
+        if (SystemUserCodec.isEncoded(serializedSystemUser)) {
+            return SystemUserCodec.decode(serializedSystemUser);
+        }
+
         try {
             SerializedEntityHolder<SystemUser> serializedSystemUserHolder = GsonHolder.getInstance().fromJson(serializedSystemUser, SerializedEntityHolder.class);
             SystemUser systemUser = serializedSystemUserHolder.getSerializedEntity();
@@ -4,6 +4,8 @@ import cloud.fogbow.common.exceptions.UnauthorizedRequestException;
 import cloud.fogbow.common.models.FogbowOperation;
 import cloud.fogbow.common.models.SystemUser;
 
+import java.util.List;
+
 public interface AuthorizationPlugin<T extends FogbowOperation> {
     /**
      * Verifies if the user represented by the systemUser object is authorized to perform the operation on the
@@ -15,4 +17,23 @@ public interface AuthorizationPlugin<T extends FogbowOperation> {
      * @return a boolean stating whether the user is authorized or not.
      */
     public boolean isAuthorized(SystemUser systemUser, T operation) throws UnauthorizedRequestException;
+
+    /**
+     * Verifies, at once, which of the given operations the user represented by the systemUser object is authorized
+     * to perform. By default, each operation is verified in turn; plugins that can do better, e.g. by sending a
+     * single request to a remote service, should override it.
+     *
+     * @param systemUser the SystemUser object describing the user to be authorized
+     * @param operations the Operation objects describing the operations the user is requesting to perform
+     * @return for each operation, in the same order, whether the user is authorized to perform it or not.
+     */
+    public default boolean[] areAuthorized(SystemUser systemUser, List<T> operations)
+            throws UnauthorizedRequestException {
+
+        boolean[] decisions = new boolean[operations.size()];
+        for (int i = 0; i < decisions.length; i++) {
+            decisions[i] = isAuthorized(systemUser, operations.get(i));
+        }
+        return decisions;
+    }
 }
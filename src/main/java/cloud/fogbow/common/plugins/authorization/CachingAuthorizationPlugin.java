@@ -0,0 +1,178 @@
+package cloud.fogbow.common.plugins.authorization;
+
+import cloud.fogbow.common.exceptions.UnauthorizedRequestException;
+import cloud.fogbow.common.models.FogbowOperation;
+import cloud.fogbow.common.models.SystemUser;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decorates any {@link AuthorizationPlugin}, including a {@link ComposedAuthorizationPlugin}, caching its decisions
+ * for the same user, with the same roles, performing the same operation, as identified by
+ * {@link FogbowOperation#getCacheKey()}. Operations without a cache key are always passed on to the decorated
+ * plugin, and so are the ones whose evaluation fails.
+ * <p>
+ * Decisions are kept for the configured time to live, and can be discarded earlier with
+ * {@link #invalidate(SystemUser)}, e.g. when the user's permissions change.
+ */
+public class CachingAuthorizationPlugin<T extends FogbowOperation> implements AuthorizationPlugin<T> {
+
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    public static final long DEFAULT_MAXIMUM_SIZE = 10000;
+
+    private final AuthorizationPlugin<T> plugin;
+    private final Cache<DecisionKey, Boolean> decisions;
+
+    public CachingAuthorizationPlugin(AuthorizationPlugin<T> plugin) {
+        this(plugin, DEFAULT_TIME_TO_LIVE_MILLIS, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public CachingAuthorizationPlugin(AuthorizationPlugin<T> plugin, long timeToLiveMillis, long maximumSize) {
+        this(plugin, timeToLiveMillis, maximumSize, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    CachingAuthorizationPlugin(AuthorizationPlugin<T> plugin, long timeToLiveMillis, long maximumSize, Ticker ticker) {
+        this.plugin = plugin;
+        this.decisions = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLiveMillis, TimeUnit.MILLISECONDS)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public boolean isAuthorized(SystemUser systemUser, T operation) throws UnauthorizedRequestException {
+        String operationKey = operation.getCacheKey();
+        if (operationKey == null) {
+            return this.plugin.isAuthorized(systemUser, operation);
+        }
+
+        try {
+            DecisionKey key = new DecisionKey(systemUser, operation.getClass(), operationKey);
+            return this.decisions.get(key, () -> this.plugin.isAuthorized(systemUser, operation));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfInstanceOf(e.getCause(), UnauthorizedRequestException.class);
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new UnauthorizedRequestException(e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Decisions found in the cache are taken from it, and all the others are asked to the decorated plugin in a
+     * single batch.
+     */
+    @Override
+    public boolean[] areAuthorized(SystemUser systemUser, List<T> operations) throws UnauthorizedRequestException {
+        boolean[] decisions = new boolean[operations.size()];
+        List<T> missedOperations = new ArrayList<>();
+        List<Integer> missedIndexes = new ArrayList<>();
+        List<DecisionKey> missedKeys = new ArrayList<>();
+        for (int i = 0; i < decisions.length; i++) {
+            T operation = operations.get(i);
+            String operationKey = operation.getCacheKey();
+            DecisionKey key = operationKey == null ? null :
+                    new DecisionKey(systemUser, operation.getClass(), operationKey);
+            Boolean decision = key == null ? null : this.decisions.getIfPresent(key);
+            if (decision != null) {
+                decisions[i] = decision;
+            } else {
+                missedOperations.add(operation);
+                missedIndexes.add(i);
+                missedKeys.add(key);
+            }
+        }
+
+        if (!missedOperations.isEmpty()) {
+            boolean[] missedDecisions = this.plugin.areAuthorized(systemUser, missedOperations);
+            for (int i = 0; i < missedDecisions.length; i++) {
+                decisions[missedIndexes.get(i)] = missedDecisions[i];
+                if (missedKeys.get(i) != null) {
+                    this.decisions.put(missedKeys.get(i), missedDecisions[i]);
+                }
+            }
+        }
+        return decisions;
+    }
+
+    /**
+     * Discards every cached decision for the given user, whatever roles it had.
+     */
+    public void invalidate(SystemUser systemUser) {
+        this.decisions.asMap().keySet().removeIf(key -> key.isOf(systemUser));
+    }
+
+    public void invalidateAll() {
+        this.decisions.invalidateAll();
+    }
+
+    /**
+     * @return the ratio of decisions found in the cache, or 1.0 if none was requested yet.
+     */
+    public double getHitRate() {
+        return this.decisions.stats().hitRate();
+    }
+
+    public CacheStats getStats() {
+        return this.decisions.stats();
+    }
+
+    private static class DecisionKey {
+        private final String userId;
+        private final String identityProviderId;
+        private final Set<String> roles;
+        private final Class<?> operationType;
+        private final String operationKey;
+        private final int hashCode;
+
+        DecisionKey(SystemUser systemUser, Class<?> operationType, String operationKey) {
+            this.userId = systemUser.getId();
+            this.identityProviderId = systemUser.getIdentityProviderId();
+            // copied, so that changing the user's roles afterwards does not change the key
+            Set<String> roles = systemUser.getUserRoles();
+            this.roles = roles == null ? Collections.emptySet() : new HashSet<>(roles);
+            this.operationType = operationType;
+            this.operationKey = operationKey;
+            this.hashCode = Objects.hash(this.userId, this.identityProviderId, this.roles, operationType, operationKey);
+        }
+
+        boolean isOf(SystemUser systemUser) {
+            return Objects.equals(this.userId, systemUser.getId())
+                    && Objects.equals(this.identityProviderId, systemUser.getIdentityProviderId());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            DecisionKey that = (DecisionKey) o;
+            return this.hashCode == that.hashCode &&
+                    Objects.equals(this.userId, that.userId) &&
+                    Objects.equals(this.identityProviderId, that.identityProviderId) &&
+                    Objects.equals(this.roles, that.roles) &&
+                    this.operationType == that.operationType &&
+                    Objects.equals(this.operationKey, that.operationKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+}
@@ -6,26 +6,112 @@ import cloud.fogbow.common.exceptions.FatalErrorException;
 import cloud.fogbow.common.models.FogbowOperation;
 import cloud.fogbow.common.models.SystemUser;
 import cloud.fogbow.common.util.ClassFactory;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.log4j.Logger;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Authorizes an operation only if every configured plugin authorizes it. By default, plugins are asked one after
+ * the other, in the order they are configured.
+ * <p>
+ * When created with a plugin timeout, plugins are asked all at once instead, so that authorizing takes as long as
+ * the slowest plugin rather than the sum of them all: the first deny cancels the plugins still running, and a
+ * plugin that does not answer within the timeout is taken as a deny. Plugins are run by a pool of at most
+ * {@link #MAXIMUM_EVALUATION_THREADS} threads, shared by every instance, with a queue of at most
+ * {@link #MAXIMUM_QUEUED_EVALUATIONS} evaluations; an operation that finds the queue full is denied.
+ * <p>
+ * When asking plugins one after the other, {@link #setAdaptiveOrdering(boolean) adaptive ordering} may be enabled:
+ * the time each plugin takes and how often it denies are then measured, and plugins are asked in decreasing order
+ * of deny rate per unit of time, so that denied operations stop being evaluated as early as possible. As
+ * authorizing requires every plugin to agree, this does not change which operations are authorized, although
+ * an operation that a plugin denies and another one fails to evaluate may fail differently.
+ * <p>
+ * Batches of operations are passed on as batches: when asking plugins one after the other, each plugin is only
+ * asked about the operations that every previous plugin authorized; when asking them in parallel, each plugin is
+ * asked about every operation, and a plugin that times out denies them all.
+ */
 public class ComposedAuthorizationPlugin<T extends FogbowOperation> implements AuthorizationPlugin<T> {
+    private static final Logger LOGGER = Logger.getLogger(ComposedAuthorizationPlugin.class);
+
+    private static final String EVALUATION_THREAD_NAME_FORMAT = "authorization-plugin-%d";
+    private static final long SEQUENTIAL_EVALUATION = 0;
+    private static final int REORDERING_INTERVAL = 100;
+    public static final int MAXIMUM_EVALUATION_THREADS = 64;
+    public static final int MAXIMUM_QUEUED_EVALUATIONS = 1024;
+    private static final long IDLE_EVALUATION_THREAD_SECONDS = 60;
+
+    private static final ThreadPoolExecutor evaluationExecutor = new ThreadPoolExecutor(MAXIMUM_EVALUATION_THREADS,
+            MAXIMUM_EVALUATION_THREADS, IDLE_EVALUATION_THREAD_SECONDS, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(MAXIMUM_QUEUED_EVALUATIONS),
+            new ThreadFactoryBuilder()
+                    .setNameFormat(EVALUATION_THREAD_NAME_FORMAT)
+                    .setDaemon(true)
+                    .build());
+
+    static {
+        evaluationExecutor.allowCoreThreadTimeOut(true);
+    }
+
     List<AuthorizationPlugin<T>> authorizationPlugins;
+    private final long pluginTimeoutMillis;
+    private volatile boolean adaptiveOrdering;
+    // plugins in the order they are asked when ordering adaptively; replaced, never changed, when reordered
+    private volatile List<PluginStatistics<T>> adaptiveOrder;
+    private final AtomicLong adaptiveEvaluations = new AtomicLong();
 
     public ComposedAuthorizationPlugin(String confPath) {
         List<String> pluginNames = getPluginNames(confPath);
         this.authorizationPlugins = getPlugins(pluginNames);
+        this.pluginTimeoutMillis = SEQUENTIAL_EVALUATION;
+    }
+
+    /**
+     * Creates a plugin that asks the configured plugins in parallel, each of them having up to the given number of
+     * milliseconds to answer.
+     */
+    public ComposedAuthorizationPlugin(String confPath, String pluginTimeoutMillis) {
+        List<String> pluginNames = getPluginNames(confPath);
+        this.authorizationPlugins = getPlugins(pluginNames);
+        this.pluginTimeoutMillis = parsePluginTimeout(pluginTimeoutMillis);
+    }
+
+    @VisibleForTesting
+    ComposedAuthorizationPlugin(List<AuthorizationPlugin<T>> authorizationPlugins, long pluginTimeoutMillis) {
+        this.authorizationPlugins = authorizationPlugins;
+        this.pluginTimeoutMillis = pluginTimeoutMillis;
     }
 
     @Override
-    public boolean isAuthorized(SystemUser systemUser, FogbowOperation operation)
-            throws UnauthorizedRequestException {
+    public boolean isAuthorized(SystemUser systemUser, T operation) throws UnauthorizedRequestException {
+        if (this.pluginTimeoutMillis != SEQUENTIAL_EVALUATION) {
+            return isAuthorizedInParallel(systemUser, operation);
+        }
+
+        if (this.adaptiveOrdering) {
+            return isAuthorizedInAdaptiveOrder(systemUser, operation);
+        }
 
-        for (AuthorizationPlugin plugin : this.authorizationPlugins) {
+        for (AuthorizationPlugin<T> plugin : this.authorizationPlugins) {
             if (!plugin.isAuthorized(systemUser, operation)) {
                 return false;
             }
@@ -33,6 +119,280 @@ public class ComposedAuthorizationPlugin<T extends FogbowOperation> implements A
         return true;
     }
 
+    @Override
+    public boolean[] areAuthorized(SystemUser systemUser, List<T> operations) throws UnauthorizedRequestException {
+        if (this.pluginTimeoutMillis != SEQUENTIAL_EVALUATION) {
+            return areAuthorizedInParallel(systemUser, operations);
+        }
+
+        List<PluginStatistics<T>> order = this.adaptiveOrdering ? this.adaptiveOrder : null;
+        boolean[] decisions = new boolean[operations.size()];
+        Arrays.fill(decisions, true);
+        // the operations still authorized, and their positions in the batch
+        List<T> pending = operations;
+        int[] pendingIndexes = new int[operations.size()];
+        for (int i = 0; i < pendingIndexes.length; i++) {
+            pendingIndexes[i] = i;
+        }
+
+        try {
+            for (int i = 0; i < this.authorizationPlugins.size() && !pending.isEmpty(); i++) {
+                boolean[] pluginDecisions = order == null ?
+                        this.authorizationPlugins.get(i).areAuthorized(systemUser, pending) :
+                        order.get(i).areAuthorized(systemUser, pending);
+
+                List<T> authorized = new ArrayList<>();
+                int[] authorizedIndexes = new int[pending.size()];
+                for (int j = 0; j < pluginDecisions.length; j++) {
+                    if (pluginDecisions[j]) {
+                        authorizedIndexes[authorized.size()] = pendingIndexes[j];
+                        authorized.add(pending.get(j));
+                    } else {
+                        decisions[pendingIndexes[j]] = false;
+                    }
+                }
+                pending = authorized;
+                pendingIndexes = authorizedIndexes;
+            }
+            return decisions;
+        } finally {
+            if (order != null) {
+                long evaluations = this.adaptiveEvaluations.getAndAdd(operations.size());
+                if (evaluations / REORDERING_INTERVAL != (evaluations + operations.size()) / REORDERING_INTERVAL) {
+                    reorder(order);
+                }
+            }
+        }
+    }
+
+    /**
+     * Enables or disables asking plugins in the order that tends to reach a deny at the lowest cost. It has no
+     * effect when plugins are asked in parallel.
+     */
+    public void setAdaptiveOrdering(boolean adaptiveOrdering) {
+        if (adaptiveOrdering && this.adaptiveOrder == null) {
+            List<PluginStatistics<T>> order = new ArrayList<>();
+            for (AuthorizationPlugin<T> plugin : this.authorizationPlugins) {
+                order.add(new PluginStatistics<>(plugin));
+            }
+            this.adaptiveOrder = order;
+        }
+        this.adaptiveOrdering = adaptiveOrdering;
+    }
+
+    @VisibleForTesting
+    List<AuthorizationPlugin<T>> getAdaptiveOrder() {
+        List<AuthorizationPlugin<T>> plugins = new ArrayList<>();
+        for (PluginStatistics<T> statistics : this.adaptiveOrder) {
+            plugins.add(statistics.plugin);
+        }
+        return plugins;
+    }
+
+    private boolean isAuthorizedInAdaptiveOrder(SystemUser systemUser, T operation)
+            throws UnauthorizedRequestException {
+
+        List<PluginStatistics<T>> order = this.adaptiveOrder;
+        try {
+            for (PluginStatistics<T> statistics : order) {
+                if (!statistics.isAuthorized(systemUser, operation)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            if (this.adaptiveEvaluations.incrementAndGet() % REORDERING_INTERVAL == 0) {
+                reorder(order);
+            }
+        }
+    }
+
+    private void reorder(List<PluginStatistics<T>> order) {
+        List<PluginStatistics<T>> newOrder = new ArrayList<>(order);
+        double[] scores = new double[newOrder.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = newOrder.get(i).getDenialsPerNanosecond();
+        }
+        // a stable insertion sort on snapshots of the scores, as the counters keep changing while sorting
+        for (int i = 1; i < scores.length; i++) {
+            PluginStatistics<T> statistics = newOrder.get(i);
+            double score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                newOrder.set(j + 1, newOrder.get(j));
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            newOrder.set(j + 1, statistics);
+            scores[j + 1] = score;
+        }
+        this.adaptiveOrder = newOrder;
+    }
+
+    private boolean isAuthorizedInParallel(SystemUser systemUser, T operation) throws UnauthorizedRequestException {
+        CompletionService<Boolean> completionService = new ExecutorCompletionService<>(evaluationExecutor);
+        Map<Future<Boolean>, AuthorizationPlugin<T>> pluginsByEvaluation = new HashMap<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.pluginTimeoutMillis);
+        try {
+            for (AuthorizationPlugin<T> plugin : this.authorizationPlugins) {
+                pluginsByEvaluation.put(completionService.submit(() -> plugin.isAuthorized(systemUser, operation)),
+                        plugin);
+            }
+
+            for (int i = 0; i < pluginsByEvaluation.size(); i++) {
+                Future<Boolean> evaluation = completionService.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (evaluation == null) {
+                    logTimedOutPlugins(pluginsByEvaluation);
+                    return false;
+                }
+                if (!evaluation.get()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (ExecutionException e) {
+            // the plugin's own error, as it would have been thrown when evaluating sequentially
+            Throwables.throwIfInstanceOf(e.getCause(), UnauthorizedRequestException.class);
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new UnauthorizedRequestException(e.getCause().getMessage());
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn(Messages.Log.AUTHORIZATION_PLUGINS_BUSY);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            // the plugins that have not answered yet are no longer needed
+            for (Future<Boolean> evaluation : pluginsByEvaluation.keySet()) {
+                evaluation.cancel(true);
+            }
+        }
+    }
+
+    private boolean[] areAuthorizedInParallel(SystemUser systemUser, List<T> operations)
+            throws UnauthorizedRequestException {
+
+        boolean[] decisions = new boolean[operations.size()];
+        Arrays.fill(decisions, true);
+        CompletionService<boolean[]> completionService = new ExecutorCompletionService<>(evaluationExecutor);
+        Map<Future<boolean[]>, AuthorizationPlugin<T>> pluginsByEvaluation = new HashMap<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.pluginTimeoutMillis);
+        try {
+            for (AuthorizationPlugin<T> plugin : this.authorizationPlugins) {
+                pluginsByEvaluation.put(completionService.submit(() -> plugin.areAuthorized(systemUser, operations)),
+                        plugin);
+            }
+
+            int authorizedCount = decisions.length;
+            for (int i = 0; i < pluginsByEvaluation.size() && authorizedCount > 0; i++) {
+                Future<boolean[]> evaluation = completionService.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (evaluation == null) {
+                    logTimedOutPlugins(pluginsByEvaluation);
+                    return new boolean[operations.size()];
+                }
+                boolean[] pluginDecisions = evaluation.get();
+                for (int j = 0; j < decisions.length; j++) {
+                    if (decisions[j] && !pluginDecisions[j]) {
+                        decisions[j] = false;
+                        authorizedCount--;
+                    }
+                }
+            }
+            return decisions;
+        } catch (ExecutionException e) {
+            Throwables.throwIfInstanceOf(e.getCause(), UnauthorizedRequestException.class);
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new UnauthorizedRequestException(e.getCause().getMessage());
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn(Messages.Log.AUTHORIZATION_PLUGINS_BUSY);
+            return new boolean[operations.size()];
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new boolean[operations.size()];
+        } finally {
+            for (Future<boolean[]> evaluation : pluginsByEvaluation.keySet()) {
+                evaluation.cancel(true);
+            }
+        }
+    }
+
+    private static class PluginStatistics<T extends FogbowOperation> {
+        private final AuthorizationPlugin<T> plugin;
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder denials = new LongAdder();
+        private final LongAdder elapsedNanos = new LongAdder();
+
+        PluginStatistics(AuthorizationPlugin<T> plugin) {
+            this.plugin = plugin;
+        }
+
+        boolean isAuthorized(SystemUser systemUser, T operation) throws UnauthorizedRequestException {
+            long start = System.nanoTime();
+            try {
+                boolean authorized = this.plugin.isAuthorized(systemUser, operation);
+                if (!authorized) {
+                    this.denials.increment();
+                }
+                return authorized;
+            } finally {
+                this.elapsedNanos.add(System.nanoTime() - start);
+                this.evaluations.increment();
+            }
+        }
+
+        boolean[] areAuthorized(SystemUser systemUser, List<T> operations) throws UnauthorizedRequestException {
+            long start = System.nanoTime();
+            try {
+                boolean[] decisions = this.plugin.areAuthorized(systemUser, operations);
+                for (boolean authorized : decisions) {
+                    if (!authorized) {
+                        this.denials.increment();
+                    }
+                }
+                return decisions;
+            } finally {
+                this.elapsedNanos.add(System.nanoTime() - start);
+                this.evaluations.add(operations.size());
+            }
+        }
+
+        /*
+         * Plugins never asked yet come first, so that they get measured. The deny rate is smoothed, so that a
+         * plugin asked a few times is neither taken as always nor as never denying.
+         */
+        double getDenialsPerNanosecond() {
+            long evaluations = this.evaluations.sum();
+            if (evaluations == 0) {
+                return Double.POSITIVE_INFINITY;
+            }
+            double denyRate = (this.denials.sum() + 1.0) / (evaluations + 2.0);
+            double averageNanos = Math.max(1.0, (double) this.elapsedNanos.sum() / evaluations);
+            return denyRate / averageNanos;
+        }
+    }
+
+    private void logTimedOutPlugins(Map<? extends Future<?>, AuthorizationPlugin<T>> pluginsByEvaluation) {
+        for (Map.Entry<? extends Future<?>, AuthorizationPlugin<T>> entry : pluginsByEvaluation.entrySet()) {
+            if (!entry.getKey().isDone()) {
+                LOGGER.warn(String.format(Messages.Log.AUTHORIZATION_PLUGIN_S_TIMED_OUT,
+                        entry.getValue().getClass().getName()));
+            }
+        }
+    }
+
+    private long parsePluginTimeout(String pluginTimeoutMillis) {
+        try {
+            long timeout = Long.parseLong(pluginTimeoutMillis.trim());
+            if (timeout > 0) {
+                return timeout;
+            }
+        } catch (NumberFormatException | NullPointerException e) {
+            // handled below
+        }
+        throw new FatalErrorException(String.format(Messages.Exception.INVALID_AUTHORIZATION_PLUGIN_TIMEOUT_S,
+                pluginTimeoutMillis));
+    }
+
     private List<String> getPluginNames(String confPath) {
         ArrayList<String> authorizationPluginNames = new ArrayList<>();
 
@@ -1,50 +1,295 @@
 package cloud.fogbow.common.plugins.authorization;
 
 import cloud.fogbow.common.constants.Messages;
-import cloud.fogbow.common.exceptions.UnauthorizedRequestException;
 import cloud.fogbow.common.models.RestfulFogbowOperation;
 import cloud.fogbow.common.models.SystemUser;
-import cloud.fogbow.common.plugins.cloudidp.cloudstack.v4_9.CloudStackIdentityProviderPlugin;
+import cloud.fogbow.common.util.GsonHolder;
+import cloud.fogbow.common.util.connectivity.HttpErrorConditionToFogbowExceptionMapper;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
 import org.apache.log4j.Logger;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Asks a remote authorization service whether operations are authorized: a single operation is authorized by a GET
+ * on its endpoint, which answers "true" or "false". A batch of operations is authorized one operation at a time,
+ * unless the service supports batches and their URL is {@link #setBatchUrl(String) set}: operations are then
+ * authorized by a single POST to that URL, whose body is the JSON array of the operations' endpoints, e.g.
+ * <tt>["http://host/a", "http://host/b"]</tt>, and which must answer the JSON array of the decisions, in the same
+ * order, e.g. <tt>[true, false]</tt>.
+ * <p>
+ * Requests share a pool of keep-alive connections and are bounded by connect and read timeouts, so a slow service
+ * delays a decision by a bounded time. Decisions are cached by endpoint for a short time. Any failure denies the
+ * operation, and after {@link #FAILURES_TO_OPEN_CIRCUIT} consecutive failures the service is no longer asked for
+ * {@link #OPEN_CIRCUIT_MILLIS}: operations not in the cache are denied at once, until a single trial request
+ * succeeds.
+ * <p>
+ * Asynchronous decisions are made by {@link #ASYNC_THREADS} threads, and at most {@link #MAXIMUM_QUEUED_ASYNC_REQUESTS}
+ * operations wait for one of them; an operation that finds the queue full is denied at once. So an asynchronous
+ * decision waits for at most a bounded number of requests, each bounded by the timeouts, before its own.
+ */
 public abstract class DistributedAuthorizationPluginClient implements AuthorizationPlugin<RestfulFogbowOperation> {
     private static final Logger LOGGER = Logger.getLogger(DistributedAuthorizationPluginClient.class);
 
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 2000;
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 5000;
+    public static final long DECISION_TIME_TO_LIVE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    public static final long MAXIMUM_CACHED_DECISIONS = 10000;
+    public static final int FAILURES_TO_OPEN_CIRCUIT = 5;
+    public static final long OPEN_CIRCUIT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final int MAXIMUM_CONNECTIONS = 100;
+    private static final long IDLE_CONNECTION_SECONDS = 60;
+    public static final int ASYNC_THREADS = 16;
+    public static final int MAXIMUM_QUEUED_ASYNC_REQUESTS = 64;
+    private static final String ASYNC_THREAD_NAME_FORMAT = "distributed-authorization-%d";
+
+    private static final CloseableHttpClient httpClient;
+    private static final ExecutorService asyncExecutor = new ThreadPoolExecutor(ASYNC_THREADS, ASYNC_THREADS,
+            0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(MAXIMUM_QUEUED_ASYNC_REQUESTS),
+            new ThreadFactoryBuilder()
+                    .setNameFormat(ASYNC_THREAD_NAME_FORMAT)
+                    .setDaemon(true)
+                    .build());
+
+    static {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(MAXIMUM_CONNECTIONS);
+        connectionManager.setDefaultMaxPerRoute(MAXIMUM_CONNECTIONS);
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .evictIdleConnections(IDLE_CONNECTION_SECONDS, TimeUnit.SECONDS)
+                .build();
+    }
+
     public String serverUrl;
+    private volatile String batchUrl;
+    private volatile int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+    private volatile int readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
+    private final Cache<String, Boolean> decisions;
+    private final CircuitBreaker circuitBreaker;
 
     public DistributedAuthorizationPluginClient() {
+        this(Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    DistributedAuthorizationPluginClient(Ticker ticker) {
+        this.decisions = CacheBuilder.newBuilder()
+                .maximumSize(MAXIMUM_CACHED_DECISIONS)
+                .expireAfterWrite(DECISION_TIME_TO_LIVE_MILLIS, TimeUnit.MILLISECONDS)
+                .ticker(ticker)
+                .build();
+        this.circuitBreaker = new CircuitBreaker(ticker);
     }
 
     @Override
     public boolean isAuthorized(SystemUser systemUserToken, RestfulFogbowOperation operation) {
         String endpoint = operation.getEndpoint();
-        StringBuffer content = null;
+        Boolean decision = this.decisions.getIfPresent(endpoint);
+        if (decision != null) {
+            return decision;
+        }
+        if (!this.circuitBreaker.allowRequest()) {
+            return false;
+        }
+
+        try {
+            boolean authorized = Boolean.parseBoolean(execute(new HttpGet(endpoint)).trim());
+            this.circuitBreaker.recordSuccess();
+            this.decisions.put(endpoint, authorized);
+            return authorized;
+        } catch (Exception e) {
+            recordFailure(e);
+            return false;
+        }
+    }
+
+    /**
+     * Same as {@link #isAuthorized(SystemUser, RestfulFogbowOperation)}, without blocking the caller. The returned
+     * future is always completed with a decision: at once, with false, if too many operations are already waiting
+     * for a thread.
+     */
+    public CompletableFuture<Boolean> isAuthorizedAsync(SystemUser systemUserToken, RestfulFogbowOperation operation) {
+        Boolean decision = this.decisions.getIfPresent(operation.getEndpoint());
+        if (decision != null) {
+            return CompletableFuture.completedFuture(decision);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> isAuthorized(systemUserToken, operation), asyncExecutor);
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn(String.format(Messages.Log.TOO_MANY_OPERATIONS_WAITING_FOR_AUTHORIZATION_SERVER_S,
+                    this.serverUrl));
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    @Override
+    public boolean[] areAuthorized(SystemUser systemUser, List<RestfulFogbowOperation> operations) {
+        String batchUrl = this.batchUrl;
+        if (batchUrl == null) {
+            boolean[] decisions = new boolean[operations.size()];
+            for (int i = 0; i < decisions.length; i++) {
+                decisions[i] = isAuthorized(systemUser, operations.get(i));
+            }
+            return decisions;
+        }
+
+        // every operation missing from the cache is denied unless the service decides on all of them
+        boolean[] decisions = new boolean[operations.size()];
+        List<Integer> missedIndexes = new ArrayList<>();
+        List<String> missedEndpoints = new ArrayList<>();
+        for (int i = 0; i < decisions.length; i++) {
+            String endpoint = operations.get(i).getEndpoint();
+            Boolean decision = this.decisions.getIfPresent(endpoint);
+            if (decision != null) {
+                decisions[i] = decision;
+            } else {
+                missedIndexes.add(i);
+                missedEndpoints.add(endpoint);
+            }
+        }
+        if (missedEndpoints.isEmpty() || !this.circuitBreaker.allowRequest()) {
+            return decisions;
+        }
 
         try {
-            URL url = new URL(endpoint);
-            HttpURLConnection con = (HttpURLConnection) url.openConnection();
-            con.setRequestMethod("GET");
-
-            BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream()));
-            String inputLine;
-            content = new StringBuffer();
-            while ((inputLine = in.readLine()) != null) {
-                content.append(inputLine);
-            }
-            con.disconnect();
-            in.close();
+            HttpPost request = new HttpPost(batchUrl);
+            request.setEntity(new StringEntity(GsonHolder.getInstance().toJson(missedEndpoints),
+                    ContentType.APPLICATION_JSON));
+            String content = execute(request);
+            boolean[] response = GsonHolder.getInstance().fromJson(content, boolean[].class);
+            if (response == null || response.length != missedEndpoints.size()) {
+                recordFailure(new IllegalStateException(
+                        String.format(Messages.Log.UNEXPECTED_BATCH_AUTHORIZATION_RESPONSE_S, content)));
+                return decisions;
+            }
+
+            this.circuitBreaker.recordSuccess();
+            for (int i = 0; i < response.length; i++) {
+                decisions[missedIndexes.get(i)] = response[i];
+                this.decisions.put(missedEndpoints.get(i), response[i]);
+            }
         } catch (Exception e) {
-            LOGGER.error(String.format(Messages.Log.ERROR_MESSAGE_IS_S, e.getMessage()), e);
+            recordFailure(e);
         }
-        return Boolean.valueOf(content.toString());
+        return decisions;
     }
 
     public void setServerUrl(String serverUrl) {
         this.serverUrl = serverUrl;
     }
+
+    /**
+     * @param batchUrl the URL batches of operations are posted to, or null if the service does not support them.
+     */
+    public void setBatchUrl(String batchUrl) {
+        this.batchUrl = batchUrl;
+    }
+
+    public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    public void setReadTimeoutMillis(int readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    private String execute(HttpRequestBase request) throws Exception {
+        // waiting for a pooled connection is bounded by the connect timeout as well
+        request.setConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(this.connectTimeoutMillis)
+                .setConnectTimeout(this.connectTimeoutMillis)
+                .setSocketTimeout(this.readTimeoutMillis)
+                .build());
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            String content = response.getEntity() == null ? "" :
+                    EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            if (statusCode != HttpStatus.SC_OK) {
+                throw HttpErrorConditionToFogbowExceptionMapper.map(statusCode, content);
+            }
+            return content;
+        }
+    }
+
+    private void recordFailure(Exception e) {
+        LOGGER.error(String.format(Messages.Log.ERROR_MESSAGE_IS_S, e.getMessage()), e);
+        if (this.circuitBreaker.recordFailure()) {
+            LOGGER.warn(String.format(Messages.Log.AUTHORIZATION_SERVER_S_UNAVAILABLE_FOR_D_MILLIS,
+                    this.serverUrl, OPEN_CIRCUIT_MILLIS));
+        }
+    }
+
+    private static class CircuitBreaker {
+        private final Ticker ticker;
+        private int consecutiveFailures;
+        private boolean open;
+        private boolean trialRunning;
+        private long retryAtNanos;
+
+        CircuitBreaker(Ticker ticker) {
+            this.ticker = ticker;
+        }
+
+        /*
+         * While open, requests are refused until the open time is over; then a single trial request is let through,
+         * whose outcome closes or opens the circuit again.
+         */
+        synchronized boolean allowRequest() {
+            if (!this.open) {
+                return true;
+            }
+            if (this.trialRunning || this.ticker.read() - this.retryAtNanos < 0) {
+                return false;
+            }
+            this.trialRunning = true;
+            return true;
+        }
+
+        synchronized void recordSuccess() {
+            this.consecutiveFailures = 0;
+            this.open = false;
+            this.trialRunning = false;
+        }
+
+        /**
+         * @return whether the circuit was closed, and this failure opened it.
+         */
+        synchronized boolean recordFailure() {
+            this.consecutiveFailures++;
+            this.trialRunning = false;
+            if (this.open || this.consecutiveFailures >= FAILURES_TO_OPEN_CIRCUIT) {
+                boolean opened = !this.open;
+                this.open = true;
+                this.retryAtNanos = this.ticker.read() + TimeUnit.MILLISECONDS.toNanos(OPEN_CIRCUIT_MILLIS);
+                return opened;
+            }
+            return false;
+        }
+    }
 }
@@ -0,0 +1,294 @@
+package cloud.fogbow.common.plugins.authorization;
+
+import cloud.fogbow.common.constants.Messages;
+import cloud.fogbow.common.exceptions.FatalErrorException;
+import cloud.fogbow.common.models.FogbowOperation;
+import cloud.fogbow.common.models.SystemUser;
+import cloud.fogbow.common.util.PropertiesUtil;
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authorizes operations in process, according to a policy file that maps each role to the operations it may
+ * perform, one role per line:
+ * <pre>
+ * admin=*
+ * operator=compute/*, volume/get
+ * </pre>
+ * Operations are identified by {@link #getOperationName(FogbowOperation)}, by default their
+ * {@link FogbowOperation#getOperationName() name}; operations without a name are denied. A pattern ending in '*' matches every operation name starting with
+ * what precedes it, and any other pattern matches only that very name. An operation is authorized if any of the
+ * user's roles matches it.
+ * <p>
+ * The policy is compiled into a trie of operation names, whose nodes hold the roles allowed as bitsets, so a decision
+ * walks the operation name once and makes no allocation beyond the user's role bitset. The policy file is watched,
+ * and a changed policy is compiled in the background and swapped in atomically; if the new file cannot be compiled
+ * (e.g. it is still being written), the previous policy is kept. The file is watched until the plugin is
+ * {@link #close() closed}.
+ */
+public class RoleBasedAuthorizationPlugin<T extends FogbowOperation> implements AuthorizationPlugin<T>, Closeable {
+    private static final Logger LOGGER = Logger.getLogger(RoleBasedAuthorizationPlugin.class);
+
+    @VisibleForTesting
+    static final String WATCHER_THREAD_NAME = "authorization-policy-watcher";
+    private static final long SETTLE_MILLIS = 100;
+    private static final String PATTERN_SEPARATOR = ",";
+    private static final char WILDCARD = '*';
+
+    private final Path policyFilePath;
+    private volatile Policy policy;
+    private WatchService watchService;
+
+    public RoleBasedAuthorizationPlugin(String policyFilePath) throws FatalErrorException {
+        this.policyFilePath = Paths.get(policyFilePath).toAbsolutePath().normalize();
+        this.policy = Policy.compile(PropertiesUtil.readProperties(this.policyFilePath.toString()));
+        watch();
+    }
+
+    @Override
+    public boolean isAuthorized(SystemUser systemUser, T operation) {
+        return this.policy.isAllowed(systemUser.getUserRoles(), getOperationName(operation));
+    }
+
+    /**
+     * @return the name of the operation the policy's patterns are matched against, or null if it cannot be named.
+     */
+    protected String getOperationName(T operation) {
+        return operation.getOperationName();
+    }
+
+    /**
+     * Stops watching the policy file; the loaded policy is kept.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.watchService != null) {
+            // the watcher thread ends as soon as the service is closed
+            this.watchService.close();
+        }
+    }
+
+    private void reload() {
+        try {
+            this.policy = Policy.compile(PropertiesUtil.readProperties(this.policyFilePath.toString()));
+            LOGGER.info(String.format(Messages.Log.AUTHORIZATION_POLICY_S_RELOADED, this.policyFilePath));
+        } catch (Exception e) {
+            // a file that is still being written may fail to compile in many ways; none of them may stop the watcher
+            LOGGER.warn(String.format(Messages.Log.UNABLE_TO_RELOAD_AUTHORIZATION_POLICY_S, this.policyFilePath), e);
+        }
+    }
+
+    /**
+     * Hot reloading is best effort: if the policy file cannot be watched, the loaded policy is simply kept.
+     */
+    private void watch() {
+        Path directory = this.policyFilePath.getParent();
+        if (directory == null) {
+            return;
+        }
+
+        try {
+            WatchService watchService = FileSystems.getDefault().newWatchService();
+            this.watchService = watchService;
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            Thread watcherThread = new Thread(() -> processWatchEvents(watchService), WATCHER_THREAD_NAME);
+            watcherThread.setDaemon(true);
+            watcherThread.start();
+        } catch (IOException e) {
+            LOGGER.warn(String.format(Messages.Log.UNABLE_TO_WATCH_AUTHORIZATION_POLICY_S, this.policyFilePath), e);
+            try {
+                close();
+            } catch (IOException e1) {
+                // nothing is watched anyway
+            }
+        }
+    }
+
+    private void processWatchEvents(WatchService watchService) {
+        while (true) {
+            try {
+                if (isPolicyChanged(watchService.take())) {
+                    // a file being rewritten changes more than once, and an empty file is a valid policy denying
+                    // everything; so it is reloaded only once it stops changing
+                    WatchKey watchKey;
+                    while ((watchKey = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                        isPolicyChanged(watchKey);
+                    }
+                    reload();
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+        }
+    }
+
+    private boolean isPolicyChanged(WatchKey watchKey) {
+        boolean changed = false;
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            changed |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || this.policyFilePath.getFileName().equals(event.context());
+        }
+        watchKey.reset();
+        return changed;
+    }
+
+    private static class Policy {
+        private final Map<String, Integer> roleIndexes;
+        private final int maskLength;
+        private final Node root;
+
+        private Policy(Map<String, Integer> roleIndexes, Node root) {
+            this.roleIndexes = roleIndexes;
+            this.maskLength = (roleIndexes.size() + Long.SIZE - 1) / Long.SIZE;
+            this.root = root;
+        }
+
+        static Policy compile(Properties policy) throws FatalErrorException {
+            Map<String, Integer> roleIndexes = new HashMap<>();
+            int maskLength = (policy.size() + Long.SIZE - 1) / Long.SIZE;
+            NodeBuilder root = new NodeBuilder();
+            for (String role : policy.stringPropertyNames()) {
+                int roleIndex = roleIndexes.size();
+                roleIndexes.put(role.trim(), roleIndex);
+                for (String pattern : policy.getProperty(role).split(PATTERN_SEPARATOR)) {
+                    pattern = pattern.trim();
+                    if (pattern.isEmpty()) {
+                        continue;
+                    }
+
+                    int wildcardIndex = pattern.indexOf(WILDCARD);
+                    if (wildcardIndex >= 0 && wildcardIndex != pattern.length() - 1) {
+                        throw new FatalErrorException(String.format(
+                                Messages.Exception.INVALID_AUTHORIZATION_POLICY_PATTERN_S, pattern));
+                    }
+                    boolean prefix = wildcardIndex >= 0;
+                    String name = prefix ? pattern.substring(0, wildcardIndex) : pattern;
+                    root.add(name, prefix, roleIndex, maskLength);
+                }
+            }
+            return new Policy(roleIndexes, root.build());
+        }
+
+        boolean isAllowed(Set<String> roles, String operationName) {
+            if (roles == null || operationName == null) {
+                return false;
+            }
+
+            long[] userRoles = null;
+            for (String role : roles) {
+                Integer roleIndex = this.roleIndexes.get(role);
+                if (roleIndex != null) {
+                    if (userRoles == null) {
+                        userRoles = new long[this.maskLength];
+                    }
+                    userRoles[roleIndex / Long.SIZE] |= 1L << roleIndex;
+                }
+            }
+            if (userRoles == null) {
+                return false;
+            }
+
+            Node node = this.root;
+            for (int i = 0; i < operationName.length(); i++) {
+                if (intersects(node.prefixRoles, userRoles)) {
+                    return true;
+                }
+                node = node.getChild(operationName.charAt(i));
+                if (node == null) {
+                    return false;
+                }
+            }
+            return intersects(node.prefixRoles, userRoles) || intersects(node.exactRoles, userRoles);
+        }
+
+        private static boolean intersects(long[] allowedRoles, long[] userRoles) {
+            if (allowedRoles == null) {
+                return false;
+            }
+            for (int i = 0; i < allowedRoles.length; i++) {
+                if ((allowedRoles[i] & userRoles[i]) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class Node {
+        // sorted, so that a child is found by binary search
+        private final char[] keys;
+        private final Node[] children;
+        // null when no role is allowed
+        private final long[] prefixRoles;
+        private final long[] exactRoles;
+
+        Node(char[] keys, Node[] children, long[] prefixRoles, long[] exactRoles) {
+            this.keys = keys;
+            this.children = children;
+            this.prefixRoles = prefixRoles;
+            this.exactRoles = exactRoles;
+        }
+
+        Node getChild(char key) {
+            int index = Arrays.binarySearch(this.keys, key);
+            return index < 0 ? null : this.children[index];
+        }
+    }
+
+    private static class NodeBuilder {
+        private final TreeMap<Character, NodeBuilder> children = new TreeMap<>();
+        private long[] prefixRoles;
+        private long[] exactRoles;
+
+        void add(String name, boolean prefix, int roleIndex, int maskLength) {
+            NodeBuilder node = this;
+            for (int i = 0; i < name.length(); i++) {
+                node = node.children.computeIfAbsent(name.charAt(i), key -> new NodeBuilder());
+            }
+            if (prefix) {
+                node.prefixRoles = setRole(node.prefixRoles, roleIndex, maskLength);
+            } else {
+                node.exactRoles = setRole(node.exactRoles, roleIndex, maskLength);
+            }
+        }
+
+        Node build() {
+            char[] keys = new char[this.children.size()];
+            Node[] children = new Node[this.children.size()];
+            int i = 0;
+            for (Map.Entry<Character, NodeBuilder> child : this.children.entrySet()) {
+                keys[i] = child.getKey();
+                children[i] = child.getValue().build();
+                i++;
+            }
+            return new Node(keys, children, this.prefixRoles, this.exactRoles);
+        }
+
+        private static long[] setRole(long[] roles, int roleIndex, int maskLength) {
+            if (roles == null) {
+                roles = new long[maskLength];
+            }
+            roles[roleIndex / Long.SIZE] |= 1L << roleIndex;
+            return roles;
+        }
+    }
+}
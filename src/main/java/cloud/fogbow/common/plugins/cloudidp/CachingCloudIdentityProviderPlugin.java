@@ -0,0 +1,266 @@
+package cloud.fogbow.common.plugins.cloudidp;
+
+import cloud.fogbow.common.constants.Messages;
+import cloud.fogbow.common.exceptions.UnauthenticatedUserException;
+import cloud.fogbow.common.models.CloudUser;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.log4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Decorates any {@link CloudIdentityProviderPlugin}, caching the users it authenticates, so that the same
+ * credentials are not sent to the cloud again while the previous authentication is still valid.
+ * <p>
+ * Entries are keyed by a salted SHA-256 hash of the credentials, so plaintext credentials are never kept in the
+ * cache. A cached user is kept for the configured time to live, but never beyond
+ * {@link CloudUser#getExpirationTime()} minus {@link #EXPIRATION_MARGIN_MILLIS}; a user already within that margin
+ * is returned without being cached. Concurrent requests with the
+ * same credentials share a single call to the decorated plugin, and failed authentications are also cached, for
+ * a shorter time, so that a burst of requests with wrong credentials does not reach the cloud.
+ * <p>
+ * When a refresh-ahead time is set, a cached user that is about to expire is still returned, while its
+ * credentials are authenticated again in the background; the new user replaces it once available, so callers
+ * presenting credentials in use do not wait for the cloud. A failed refresh is retried after the negative time
+ * to live, while the current user is kept until it expires.
+ * <p>
+ * The same CloudUser instance is returned to every caller presenting the same credentials, so it must not be
+ * modified by them.
+ */
+public class CachingCloudIdentityProviderPlugin<T extends CloudUser> implements CloudIdentityProviderPlugin<T> {
+    private static final Logger LOGGER = Logger.getLogger(CachingCloudIdentityProviderPlugin.class);
+
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    public static final long DEFAULT_NEGATIVE_TIME_TO_LIVE_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    public static final long DEFAULT_MAXIMUM_SIZE = 1000;
+    public static final long EXPIRATION_MARGIN_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final int SALT_SIZE = 16;
+    private static final String REFRESH_THREAD_NAME_FORMAT = "cloud-user-refresh-%d";
+
+    private static final Executor defaultRefreshExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat(REFRESH_THREAD_NAME_FORMAT)
+            .setDaemon(true)
+            .build());
+
+    private final CloudIdentityProviderPlugin<T> plugin;
+    private final long timeToLiveNanos;
+    private final long negativeTimeToLiveNanos;
+    private final long refreshAheadNanos;
+    private final Ticker ticker;
+    private final Executor refreshExecutor;
+    private final byte[] salt;
+    private final Cache<HashCode, CachedAuthentication<T>> cache;
+
+    public CachingCloudIdentityProviderPlugin(CloudIdentityProviderPlugin<T> plugin) {
+        this(plugin, DEFAULT_TIME_TO_LIVE_MILLIS, DEFAULT_NEGATIVE_TIME_TO_LIVE_MILLIS, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public CachingCloudIdentityProviderPlugin(CloudIdentityProviderPlugin<T> plugin, long timeToLiveMillis,
+                                              long negativeTimeToLiveMillis, long maximumSize) {
+        this(plugin, timeToLiveMillis, negativeTimeToLiveMillis, maximumSize, 0);
+    }
+
+    /**
+     * @param refreshAheadMillis how long before a cached user expires its credentials are authenticated again,
+     *                           in the background; 0 disables the refresh.
+     */
+    public CachingCloudIdentityProviderPlugin(CloudIdentityProviderPlugin<T> plugin, long timeToLiveMillis,
+                                              long negativeTimeToLiveMillis, long maximumSize, long refreshAheadMillis) {
+        this(plugin, timeToLiveMillis, negativeTimeToLiveMillis, maximumSize, refreshAheadMillis, Ticker.systemTicker(),
+                defaultRefreshExecutor);
+    }
+
+    @VisibleForTesting
+    CachingCloudIdentityProviderPlugin(CloudIdentityProviderPlugin<T> plugin, long timeToLiveMillis,
+                                       long negativeTimeToLiveMillis, long maximumSize, long refreshAheadMillis,
+                                       Ticker ticker, Executor refreshExecutor) {
+        this.plugin = plugin;
+        this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+        this.negativeTimeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(negativeTimeToLiveMillis);
+        this.refreshAheadNanos = TimeUnit.MILLISECONDS.toNanos(refreshAheadMillis);
+        this.ticker = ticker;
+        this.refreshExecutor = refreshExecutor;
+        this.salt = new byte[SALT_SIZE];
+        new SecureRandom().nextBytes(this.salt);
+        // entries also expire after the longest time to live, so that stale entries do not wait for eviction
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Math.max(timeToLiveMillis, negativeTimeToLiveMillis), TimeUnit.MILLISECONDS)
+                .ticker(ticker)
+                .build();
+    }
+
+    @Override
+    public T getCloudUser(Map<String, String> userCredentials) throws UnauthenticatedUserException {
+        HashCode key = hash(userCredentials);
+        CachedAuthentication<T> cachedAuthentication = getCachedAuthentication(key, userCredentials);
+        long now = this.ticker.read();
+        if (!cachedAuthentication.isCacheable()) {
+            // just authenticated, though not for long enough to be cached
+            return cachedAuthentication.getCloudUser();
+        }
+        if (cachedAuthentication.isExpired(now)) {
+            // only the caller that removes the expired entry triggers a new authentication; the others wait for it
+            this.cache.asMap().remove(key, cachedAuthentication);
+            cachedAuthentication = getCachedAuthentication(key, userCredentials);
+        } else if (cachedAuthentication.isRefreshDue(now) && cachedAuthentication.startRefresh()) {
+            // copied, as the caller may change its map while the refresh runs
+            refresh(key, cachedAuthentication, userCredentials == null ? null : new HashMap<>(userCredentials));
+        }
+        return cachedAuthentication.getCloudUser();
+    }
+
+    /**
+     * Discards the cached authentication of the given credentials, e.g. when its token was found to be revoked.
+     */
+    public void invalidate(Map<String, String> userCredentials) {
+        this.cache.invalidate(hash(userCredentials));
+    }
+
+    private CachedAuthentication<T> getCachedAuthentication(HashCode key, Map<String, String> userCredentials)
+            throws UnauthenticatedUserException {
+        try {
+            CachedAuthentication<T> cachedAuthentication = this.cache.get(key, () -> authenticate(userCredentials));
+            if (!cachedAuthentication.isCacheable()) {
+                // still shared with the callers that waited for it, but not with later ones
+                this.cache.asMap().remove(key, cachedAuthentication);
+            }
+            return cachedAuthentication;
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            // programming errors of the decorated plugin, e.g. on missing credentials, are not authentication errors
+            Throwables.throwIfUnchecked(e.getCause());
+            LOGGER.error(String.format(Messages.Log.ERROR_MESSAGE_IS_S, e.getMessage()), e);
+            throw new UnauthenticatedUserException(e.getCause().getMessage());
+        }
+    }
+
+    private void refresh(HashCode key, CachedAuthentication<T> cachedAuthentication, Map<String, String> userCredentials) {
+        this.refreshExecutor.execute(() -> {
+            CachedAuthentication<T> refreshedAuthentication = null;
+            try {
+                refreshedAuthentication = authenticate(userCredentials);
+            } catch (RuntimeException e) {
+                LOGGER.warn(String.format(Messages.Log.ERROR_MESSAGE_IS_S, e.getMessage()), e);
+            }
+            if (refreshedAuthentication != null && refreshedAuthentication.isAuthenticated()
+                    && refreshedAuthentication.isCacheable()) {
+                this.cache.asMap().replace(key, cachedAuthentication, refreshedAuthentication);
+            } else {
+                cachedAuthentication.retryRefreshAt(this.ticker.read() + this.negativeTimeToLiveNanos);
+            }
+        });
+    }
+
+    private CachedAuthentication<T> authenticate(Map<String, String> userCredentials) {
+        long now = this.ticker.read();
+        try {
+            T cloudUser = this.plugin.getCloudUser(userCredentials);
+            long timeToLiveNanos = getTimeToLiveNanos(cloudUser);
+            long expirationNanos = now + timeToLiveNanos;
+            long refreshNanos = this.refreshAheadNanos > 0 ? expirationNanos - this.refreshAheadNanos : Long.MAX_VALUE;
+            return new CachedAuthentication<>(cloudUser, null, expirationNanos, refreshNanos, timeToLiveNanos > 0);
+        } catch (UnauthenticatedUserException e) {
+            return new CachedAuthentication<>(null, e, now + this.negativeTimeToLiveNanos, Long.MAX_VALUE,
+                    this.negativeTimeToLiveNanos > 0);
+        }
+    }
+
+    private long getTimeToLiveNanos(T cloudUser) {
+        Long expirationTime = cloudUser.getExpirationTime();
+        if (expirationTime == null) {
+            return this.timeToLiveNanos;
+        }
+        long remainingMillis = expirationTime - EXPIRATION_MARGIN_MILLIS - System.currentTimeMillis();
+        return Math.min(this.timeToLiveNanos, TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis)));
+    }
+
+    private HashCode hash(Map<String, String> userCredentials) {
+        Hasher hasher = Hashing.sha256().newHasher().putBytes(this.salt);
+        if (userCredentials != null) {
+            // sorted, and length-prefixed, so that equal maps always hash the same and entries cannot be confused
+            for (Map.Entry<String, String> credential : new TreeMap<>(userCredentials).entrySet()) {
+                putString(hasher, credential.getKey());
+                putString(hasher, credential.getValue());
+            }
+        }
+        return hasher.hash();
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static class CachedAuthentication<T> {
+        private final T cloudUser;
+        private final UnauthenticatedUserException failure;
+        private final long expirationNanos;
+        private final boolean cacheable;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        // Long.MAX_VALUE when the entry is never refreshed
+        private volatile long refreshNanos;
+
+        CachedAuthentication(T cloudUser, UnauthenticatedUserException failure, long expirationNanos, long refreshNanos,
+                             boolean cacheable) {
+            this.cloudUser = cloudUser;
+            this.failure = failure;
+            this.expirationNanos = expirationNanos;
+            this.refreshNanos = refreshNanos;
+            this.cacheable = cacheable;
+        }
+
+        boolean isCacheable() {
+            return this.cacheable;
+        }
+
+        boolean isExpired(long nowNanos) {
+            return nowNanos - this.expirationNanos >= 0;
+        }
+
+        boolean isAuthenticated() {
+            return this.failure == null;
+        }
+
+        boolean isRefreshDue(long nowNanos) {
+            return this.refreshNanos != Long.MAX_VALUE && nowNanos - this.refreshNanos >= 0;
+        }
+
+        boolean startRefresh() {
+            return this.refreshing.compareAndSet(false, true);
+        }
+
+        void retryRefreshAt(long refreshNanos) {
+            this.refreshNanos = refreshNanos;
+            this.refreshing.set(false);
+        }
+
+        T getCloudUser() throws UnauthenticatedUserException {
+            if (this.failure != null) {
+                throw new UnauthenticatedUserException(this.failure.getMessage());
+            }
+            return this.cloudUser;
+        }
+    }
+}
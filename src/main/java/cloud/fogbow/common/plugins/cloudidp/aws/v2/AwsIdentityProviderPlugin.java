@@ -5,12 +5,11 @@ import cloud.fogbow.common.constants.Messages;
 import cloud.fogbow.common.exceptions.UnauthenticatedUserException;
 import cloud.fogbow.common.models.AwsV2User;
 import cloud.fogbow.common.plugins.cloudidp.CloudIdentityProviderPlugin;
+import cloud.fogbow.common.util.connectivity.cloud.aws.AwsIamClientCacheManager;
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.log4j.Logger;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
-import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.iam.IamClient;
+
 import java.util.Map;
 
 public class AwsIdentityProviderPlugin implements CloudIdentityProviderPlugin<AwsV2User> {
@@ -36,16 +35,11 @@ public class AwsIdentityProviderPlugin implements CloudIdentityProviderPlugin<Aw
     @VisibleForTesting
     String authenticate(String accessKey, String secretAccessKey) throws UnauthenticatedUserException {
         try {
-            AwsBasicCredentials awsCreds = AwsBasicCredentials.create(accessKey, secretAccessKey);
-            StaticCredentialsProvider awsProvider = StaticCredentialsProvider.create(awsCreds);
-            IamClient client = IamClient.builder()
-            		.credentialsProvider(awsProvider)
-            		.region(Region.AWS_GLOBAL)
-            		.build();
-            
+            IamClient client = AwsIamClientCacheManager.getIamClient(accessKey, secretAccessKey);
             return client.getUser().user().userId();
         } catch (Exception e) {
             LOGGER.error(Messages.Log.AUTHENTICATION_ERROR, e);
+            AwsIamClientCacheManager.invalidate(accessKey, secretAccessKey);
             throw new UnauthenticatedUserException(e.getMessage());
         }
     }
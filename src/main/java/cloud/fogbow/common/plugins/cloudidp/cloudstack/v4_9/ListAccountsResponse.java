@@ -1,8 +1,14 @@
 package cloud.fogbow.common.plugins.cloudidp.cloudstack.v4_9;
 
 import cloud.fogbow.common.util.GsonHolder;
+import cloud.fogbow.common.util.JsonStreamingUtil;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import static cloud.fogbow.common.constants.CloudStackConstants.Identity.*;
@@ -109,4 +115,165 @@ public class ListAccountsResponse {
     public static ListAccountsResponse fromJson(String json) {
         return GsonHolder.getInstance().fromJson(json, ListAccountsResponse.class);
     }
+
+    /**
+     * Streaming adapter registered in {@link GsonHolder}, so that parsing does not rely on reflection.
+     */
+    public static class JsonAdapter extends TypeAdapter<ListAccountsResponse> {
+        @Override
+        public void write(JsonWriter out, ListAccountsResponse response) throws IOException {
+            out.beginObject();
+            if (response.accountsResponse != null) {
+                out.name(LIST_ACCOUNTS_KEY_JSON).beginObject();
+                if (response.accountsResponse.accounts != null) {
+                    out.name(ACCOUNT_KEY_JSON).beginArray();
+                    for (Account account : response.accountsResponse.accounts) {
+                        writeAccount(out, account);
+                    }
+                    out.endArray();
+                }
+                out.endObject();
+            }
+            out.endObject();
+        }
+
+        private void writeAccount(JsonWriter out, Account account) throws IOException {
+            if (account == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            if (account.users != null) {
+                out.name(USER_KEY_JSON).beginArray();
+                for (User user : account.users) {
+                    writeUser(out, user);
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+
+        private void writeUser(JsonWriter out, User user) throws IOException {
+            if (user == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject()
+                    .name(USER_ID_KEY_JSON).value(user.id)
+                    .name(USERNAME_KEY_JSON).value(user.username)
+                    .name(DOMAIN_KEY_JSON).value(user.domain)
+                    .name(FIRST_NAME_KEY_JSON).value(user.firstName)
+                    .name(LAST_NAME_KEY_JSON).value(user.lastName)
+                    .name(API_KEY_JSON).value(user.apiKey)
+                    .name(SECRET_KEY_JSON).value(user.secretKey)
+                    .endObject();
+        }
+
+        @Override
+        public ListAccountsResponse read(JsonReader in) throws IOException {
+            ListAccountsResponse response = new ListAccountsResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals(LIST_ACCOUNTS_KEY_JSON)) {
+                    response.accountsResponse = readAccountsResponse(in, response);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return response;
+        }
+
+        private AccountsResponse readAccountsResponse(JsonReader in, ListAccountsResponse response) throws IOException {
+            if (JsonStreamingUtil.nextNullIfPresent(in)) return null;
+
+            AccountsResponse accountsResponse = response.new AccountsResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals(ACCOUNT_KEY_JSON)) {
+                    accountsResponse.accounts = readAccounts(in, response);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return accountsResponse;
+        }
+
+        private List<Account> readAccounts(JsonReader in, ListAccountsResponse response) throws IOException {
+            if (JsonStreamingUtil.nextNullIfPresent(in)) return null;
+
+            List<Account> accounts = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                accounts.add(readAccount(in, response));
+            }
+            in.endArray();
+            return accounts;
+        }
+
+        private Account readAccount(JsonReader in, ListAccountsResponse response) throws IOException {
+            if (JsonStreamingUtil.nextNullIfPresent(in)) return null;
+
+            Account account = response.new Account();
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals(USER_KEY_JSON)) {
+                    account.users = readUsers(in, response);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return account;
+        }
+
+        private List<User> readUsers(JsonReader in, ListAccountsResponse response) throws IOException {
+            if (JsonStreamingUtil.nextNullIfPresent(in)) return null;
+
+            List<User> users = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                users.add(readUser(in, response));
+            }
+            in.endArray();
+            return users;
+        }
+
+        private User readUser(JsonReader in, ListAccountsResponse response) throws IOException {
+            if (JsonStreamingUtil.nextNullIfPresent(in)) return null;
+
+            User user = response.new User();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case USER_ID_KEY_JSON:
+                        user.id = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    case USERNAME_KEY_JSON:
+                        user.username = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    case DOMAIN_KEY_JSON:
+                        user.domain = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    case FIRST_NAME_KEY_JSON:
+                        user.firstName = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    case LAST_NAME_KEY_JSON:
+                        user.lastName = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    case API_KEY_JSON:
+                        user.apiKey = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    case SECRET_KEY_JSON:
+                        user.secretKey = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return user;
+        }
+    }
 }
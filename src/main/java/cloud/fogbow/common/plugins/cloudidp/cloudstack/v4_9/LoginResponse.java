@@ -1,7 +1,13 @@
 package cloud.fogbow.common.plugins.cloudidp.cloudstack.v4_9;
 
 import cloud.fogbow.common.util.GsonHolder;
+import cloud.fogbow.common.util.JsonStreamingUtil;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 import static cloud.fogbow.common.constants.CloudStackConstants.Identity.*;
 
@@ -52,4 +58,57 @@ public class LoginResponse {
             return timeout;
         }
     }
+
+    /**
+     * Streaming adapter registered in {@link GsonHolder}, so that parsing does not rely on reflection.
+     */
+    public static class JsonAdapter extends TypeAdapter<LoginResponse> {
+        @Override
+        public void write(JsonWriter out, LoginResponse loginResponse) throws IOException {
+            out.beginObject();
+            if (loginResponse.response != null) {
+                out.name(LOGIN_KEY_JSON).beginObject()
+                        .name(SESSION_KEY_JSON).value(loginResponse.response.sessionKey)
+                        .name(TIMEOUT_KEY_JSON).value(loginResponse.response.timeout)
+                        .endObject();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public LoginResponse read(JsonReader in) throws IOException {
+            LoginResponse loginResponse = new LoginResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals(LOGIN_KEY_JSON)) {
+                    loginResponse.response = readLogin(in, loginResponse);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return loginResponse;
+        }
+
+        private Login readLogin(JsonReader in, LoginResponse loginResponse) throws IOException {
+            if (JsonStreamingUtil.nextNullIfPresent(in)) return null;
+
+            Login login = loginResponse.new Login();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case SESSION_KEY_JSON:
+                        login.sessionKey = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    case TIMEOUT_KEY_JSON:
+                        login.timeout = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return login;
+        }
+    }
 }
@@ -7,13 +7,13 @@ import com.google.common.annotations.VisibleForTesting;
 import org.apache.log4j.Logger;
 import org.opennebula.client.Client;
 import org.opennebula.client.OneResponse;
-import org.opennebula.client.user.UserPool;
 
 import cloud.fogbow.common.constants.Messages;
 import cloud.fogbow.common.constants.OpenNebulaConstants;
 import cloud.fogbow.common.exceptions.InternalServerErrorException;
 import cloud.fogbow.common.models.OpenNebulaUser;
 import cloud.fogbow.common.plugins.cloudidp.CloudIdentityProviderPlugin;
+import cloud.fogbow.common.util.connectivity.cloud.opennebula.OpenNebulaClientCacheManager;
 import cloud.fogbow.common.util.connectivity.cloud.opennebula.OpenNebulaClientUtil;
 
 public class OpenNebulaIdentityProviderPlugin implements CloudIdentityProviderPlugin<OpenNebulaUser> {
@@ -70,24 +70,23 @@ public class OpenNebulaIdentityProviderPlugin implements CloudIdentityProviderPl
 
     /*
      * Using the Opennebula Java Library it is necessary to do some operation in the cloud to check if the
-     * user is authenticated. We opted to use UserPool.
-     * TODO: check to request directly in the XML-RPC API
+     * user is authenticated. We opted to fetch the information of the user itself, whose cost does not
+     * depend on how many users the cloud has.
      */
     @VisibleForTesting
     boolean isAuthenticated(String openNebulaTokenValue) {
-    	Client client;
-        UserPool userPool;
+        OneResponse info;
         try {
-        	client = OpenNebulaClientUtil.createClient(this.endpoint, openNebulaTokenValue);
-        	userPool = OpenNebulaClientUtil.getUserPool(client);
+            Client client = OpenNebulaClientUtil.createClient(this.endpoint, openNebulaTokenValue);
+            info = OpenNebulaClientUtil.getSelfUserInfo(client);
         } catch (InternalServerErrorException e) {
             LOGGER.error(Messages.Log.UNEXPECTED, e);
             return false;
         }
 
-        OneResponse info = userPool.info();
         if (info.isError()) {
             LOGGER.error(String.format(Messages.Exception.OPERATION_RETURNED_ERROR_S, info.getMessage()));
+            OpenNebulaClientCacheManager.invalidate(this.endpoint, openNebulaTokenValue);
             return false;
         }
         return true;
@@ -1,7 +1,15 @@
 package cloud.fogbow.common.plugins.cloudidp.openstack.v3;
 
 import cloud.fogbow.common.util.GsonHolder;
+import cloud.fogbow.common.util.JsonStreamingUtil;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static cloud.fogbow.common.constants.OpenStackConstants.Identity.*;
 
@@ -18,7 +26,17 @@ import static cloud.fogbow.common.constants.OpenStackConstants.Identity.*;
  * "project":{
  * "id": "3324431f606d4a74a060cf78c16fcb2111",
  * "name": "project_name"
- * }
+ * },
+ * "expires_at": "2015-11-09T01:42:57.527363Z",
+ * "catalog": [{
+ * "type": "compute",
+ * "name": "nova",
+ * "endpoints": [{
+ * "interface": "public",
+ * "region": "RegionOne",
+ * "url": "http://localhost:8774/v2.1"
+ * }]
+ * }]
  * }
  * }
  * <p>
@@ -36,15 +54,33 @@ public class CreateAuthenticationResponse {
         return this.token.user;
     }
 
+    /**
+     * @return the ISO 8601 time at which the token expires, e.g. <tt>2015-11-09T01:42:57.527363Z</tt>.
+     */
+    public String getExpiresAt() {
+        return this.token.expiresAt;
+    }
+
     public Project getProject() {
         return this.token.project;
     }
 
+    /**
+     * @return the services of the service catalog, or null if the token came without it.
+     */
+    public List<Service> getCatalog() {
+        return this.token.catalog;
+    }
+
     private class Token {
         @SerializedName(USER_KEY_JSON)
         private User user;
+        @SerializedName(EXPIRES_AT_KEY_JSON)
+        private String expiresAt;
         @SerializedName(PROJECT_KEY_JSON)
         private Project project;
+        @SerializedName(CATALOG_KEY_JSON)
+        private List<Service> catalog;
     }
 
     public class User {
@@ -76,4 +112,274 @@ public class CreateAuthenticationResponse {
             return name;
         }
     }
+
+    public class Service {
+        @SerializedName(TYPE_KEY_JSON)
+        private String type;
+        @SerializedName(NAME_KEY_JSON)
+        private String name;
+        @SerializedName(ENDPOINTS_KEY_JSON)
+        private List<Endpoint> endpoints;
+
+        public String getType() {
+            return type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<Endpoint> getEndpoints() {
+            return endpoints;
+        }
+    }
+
+    public class Endpoint {
+        @SerializedName(INTERFACE_KEY_JSON)
+        private String endpointInterface;
+        @SerializedName(REGION_KEY_JSON)
+        private String region;
+        @SerializedName(URL_KEY_JSON)
+        private String url;
+
+        public String getInterface() {
+            return endpointInterface;
+        }
+
+        public String getRegion() {
+            return region;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+    }
+
+    /**
+     * Streaming adapter registered in {@link GsonHolder}, so that parsing does not rely on reflection.
+     */
+    public static class JsonAdapter extends TypeAdapter<CreateAuthenticationResponse> {
+        @Override
+        public void write(JsonWriter out, CreateAuthenticationResponse response) throws IOException {
+            out.beginObject();
+            if (response.token != null) {
+                out.name(TOKEN_KEY_JSON).beginObject();
+                if (response.token.user != null) {
+                    out.name(USER_KEY_JSON);
+                    writeUser(out, response.token.user);
+                }
+                out.name(EXPIRES_AT_KEY_JSON).value(response.token.expiresAt);
+                if (response.token.project != null) {
+                    out.name(PROJECT_KEY_JSON);
+                    writeProject(out, response.token.project);
+                }
+                if (response.token.catalog != null) {
+                    out.name(CATALOG_KEY_JSON);
+                    writeCatalog(out, response.token.catalog);
+                }
+                out.endObject();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public CreateAuthenticationResponse read(JsonReader in) throws IOException {
+            CreateAuthenticationResponse response = new CreateAuthenticationResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals(TOKEN_KEY_JSON)) {
+                    response.token = readToken(in, response);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return response;
+        }
+
+        private Token readToken(JsonReader in, CreateAuthenticationResponse response) throws IOException {
+            if (JsonStreamingUtil.nextNullIfPresent(in)) return null;
+
+            Token token = response.new Token();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case USER_KEY_JSON:
+                        token.user = readUser(in, response);
+                        break;
+                    case EXPIRES_AT_KEY_JSON:
+                        token.expiresAt = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    case PROJECT_KEY_JSON:
+                        token.project = readProject(in, response);
+                        break;
+                    case CATALOG_KEY_JSON:
+                        token.catalog = readCatalog(in, response);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return token;
+        }
+
+        private User readUser(JsonReader in, CreateAuthenticationResponse response) throws IOException {
+            if (JsonStreamingUtil.nextNullIfPresent(in)) return null;
+
+            User user = response.new User();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case ID_KEY_JSON:
+                        user.id = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    case NAME_KEY_JSON:
+                        user.name = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return user;
+        }
+
+        private Project readProject(JsonReader in, CreateAuthenticationResponse response) throws IOException {
+            if (JsonStreamingUtil.nextNullIfPresent(in)) return null;
+
+            Project project = response.new Project();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case ID_KEY_JSON:
+                        project.id = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    case NAME_KEY_JSON:
+                        project.name = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return project;
+        }
+
+        private List<Service> readCatalog(JsonReader in, CreateAuthenticationResponse response) throws IOException {
+            if (JsonStreamingUtil.nextNullIfPresent(in)) return null;
+
+            List<Service> catalog = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                catalog.add(readService(in, response));
+            }
+            in.endArray();
+            return catalog;
+        }
+
+        private Service readService(JsonReader in, CreateAuthenticationResponse response) throws IOException {
+            if (JsonStreamingUtil.nextNullIfPresent(in)) return null;
+
+            Service service = response.new Service();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case TYPE_KEY_JSON:
+                        service.type = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    case NAME_KEY_JSON:
+                        service.name = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    case ENDPOINTS_KEY_JSON:
+                        service.endpoints = readEndpoints(in, response);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return service;
+        }
+
+        private List<Endpoint> readEndpoints(JsonReader in, CreateAuthenticationResponse response) throws IOException {
+            if (JsonStreamingUtil.nextNullIfPresent(in)) return null;
+
+            List<Endpoint> endpoints = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                endpoints.add(readEndpoint(in, response));
+            }
+            in.endArray();
+            return endpoints;
+        }
+
+        private Endpoint readEndpoint(JsonReader in, CreateAuthenticationResponse response) throws IOException {
+            if (JsonStreamingUtil.nextNullIfPresent(in)) return null;
+
+            Endpoint endpoint = response.new Endpoint();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case INTERFACE_KEY_JSON:
+                        endpoint.endpointInterface = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    case REGION_KEY_JSON:
+                        endpoint.region = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    case URL_KEY_JSON:
+                        endpoint.url = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return endpoint;
+        }
+
+        private void writeUser(JsonWriter out, User user) throws IOException {
+            out.beginObject()
+                    .name(ID_KEY_JSON).value(user.id)
+                    .name(NAME_KEY_JSON).value(user.name)
+                    .endObject();
+        }
+
+        private void writeProject(JsonWriter out, Project project) throws IOException {
+            out.beginObject()
+                    .name(ID_KEY_JSON).value(project.id)
+                    .name(NAME_KEY_JSON).value(project.name)
+                    .endObject();
+        }
+
+        private void writeCatalog(JsonWriter out, List<Service> catalog) throws IOException {
+            out.beginArray();
+            for (Service service : catalog) {
+                if (service == null) {
+                    out.nullValue();
+                    continue;
+                }
+                out.beginObject()
+                        .name(TYPE_KEY_JSON).value(service.type)
+                        .name(NAME_KEY_JSON).value(service.name);
+                if (service.endpoints != null) {
+                    out.name(ENDPOINTS_KEY_JSON).beginArray();
+                    for (Endpoint endpoint : service.endpoints) {
+                        if (endpoint == null) {
+                            out.nullValue();
+                            continue;
+                        }
+                        out.beginObject()
+                                .name(INTERFACE_KEY_JSON).value(endpoint.endpointInterface)
+                                .name(REGION_KEY_JSON).value(endpoint.region)
+                                .name(URL_KEY_JSON).value(endpoint.url)
+                                .endObject();
+                    }
+                    out.endArray();
+                }
+                out.endObject();
+            }
+            out.endArray();
+        }
+    }
 }
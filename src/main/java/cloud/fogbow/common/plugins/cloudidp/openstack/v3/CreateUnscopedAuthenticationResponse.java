@@ -1,7 +1,13 @@
 package cloud.fogbow.common.plugins.cloudidp.openstack.v3;
 
 import cloud.fogbow.common.util.GsonHolder;
+import cloud.fogbow.common.util.JsonStreamingUtil;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 import static cloud.fogbow.common.constants.OpenStackConstants.Identity.*;
 
@@ -32,9 +38,18 @@ public class CreateUnscopedAuthenticationResponse {
         return this.token.user;
     }
 
+    /**
+     * @return the ISO 8601 time at which the token expires, e.g. <tt>2015-11-09T01:42:57.527363Z</tt>.
+     */
+    public String getExpiresAt() {
+        return this.token.expiresAt;
+    }
+
     private class Token {
         @SerializedName(USER_KEY_JSON)
         private User user;
+        @SerializedName(EXPIRES_AT_KEY_JSON)
+        private String expiresAt;
     }
 
     public class User {
@@ -51,4 +66,88 @@ public class CreateUnscopedAuthenticationResponse {
             return name;
         }
     }
+
+    /**
+     * Streaming adapter registered in {@link GsonHolder}, so that parsing does not rely on reflection.
+     */
+    public static class JsonAdapter extends TypeAdapter<CreateUnscopedAuthenticationResponse> {
+        @Override
+        public void write(JsonWriter out, CreateUnscopedAuthenticationResponse response) throws IOException {
+            out.beginObject();
+            if (response.token != null) {
+                out.name(TOKEN_KEY_JSON).beginObject();
+                if (response.token.user != null) {
+                    out.name(USER_KEY_JSON);
+                    writeUser(out, response.token.user);
+                }
+                out.name(EXPIRES_AT_KEY_JSON).value(response.token.expiresAt);
+                out.endObject();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public CreateUnscopedAuthenticationResponse read(JsonReader in) throws IOException {
+            CreateUnscopedAuthenticationResponse response = new CreateUnscopedAuthenticationResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals(TOKEN_KEY_JSON)) {
+                    response.token = readToken(in, response);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return response;
+        }
+
+        private Token readToken(JsonReader in, CreateUnscopedAuthenticationResponse response) throws IOException {
+            if (JsonStreamingUtil.nextNullIfPresent(in)) return null;
+
+            Token token = response.new Token();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case USER_KEY_JSON:
+                        token.user = readUser(in, response);
+                        break;
+                    case EXPIRES_AT_KEY_JSON:
+                        token.expiresAt = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return token;
+        }
+
+        private User readUser(JsonReader in, CreateUnscopedAuthenticationResponse response) throws IOException {
+            if (JsonStreamingUtil.nextNullIfPresent(in)) return null;
+
+            User user = response.new User();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case ID_KEY_JSON:
+                        user.id = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    case NAME_KEY_JSON:
+                        user.name = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return user;
+        }
+
+        private void writeUser(JsonWriter out, User user) throws IOException {
+            out.beginObject()
+                    .name(ID_KEY_JSON).value(user.id)
+                    .name(NAME_KEY_JSON).value(user.name)
+                    .endObject();
+        }
+    }
 }
@@ -8,6 +8,7 @@ import cloud.fogbow.common.exceptions.FatalErrorException;
 import cloud.fogbow.common.exceptions.FogbowException;
 import cloud.fogbow.common.exceptions.UnauthenticatedUserException;
 import cloud.fogbow.common.models.OpenStackV3User;
+import cloud.fogbow.common.plugins.cloudidp.CachingCloudIdentityProviderPlugin;
 import cloud.fogbow.common.plugins.cloudidp.CloudIdentityProviderPlugin;
 import cloud.fogbow.common.util.GsonHolder;
 import cloud.fogbow.common.util.connectivity.HttpRequestClient;
@@ -15,13 +16,23 @@ import cloud.fogbow.common.util.connectivity.HttpResponse;
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.log4j.Logger;
 
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Authenticates users against Keystone v3, requesting a new token on every call. Services that can afford to keep
+ * using a token Keystone may have revoked meanwhile can opt in to caching tokens with {@link #withTokenCache}.
+ */
 public class OpenStackIdentityProviderPlugin implements CloudIdentityProviderPlugin<OpenStackV3User> {
     private static final Logger LOGGER = Logger.getLogger(OpenStackIdentityProviderPlugin.class);
 
+    public static final long TOKEN_CACHE_TIME_TO_LIVE_MILLIS = TimeUnit.HOURS.toMillis(1);
+    public static final long TOKEN_REFRESH_AHEAD_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
     private String v3TokensEndpoint;
 
     // Used only in tests
@@ -42,6 +53,20 @@ public class OpenStackIdentityProviderPlugin implements CloudIdentityProviderPlu
         return true;
     }
 
+    /**
+     * Decorates the given plugin with a cache of its tokens, keyed by a salted hash of the credentials used to get
+     * them. A token is kept until shortly before it expires, and for {@link #TOKEN_CACHE_TIME_TO_LIVE_MILLIS} at
+     * most; when requested within {@link #TOKEN_REFRESH_AHEAD_MILLIS} of its expiration, it is still returned while
+     * a new one is requested in the background. A token found to be revoked must be discarded with
+     * {@link CachingCloudIdentityProviderPlugin#invalidate(Map)}.
+     */
+    public static CachingCloudIdentityProviderPlugin<OpenStackV3User> withTokenCache(
+            OpenStackIdentityProviderPlugin plugin) {
+        return new CachingCloudIdentityProviderPlugin<>(plugin, TOKEN_CACHE_TIME_TO_LIVE_MILLIS,
+                CachingCloudIdentityProviderPlugin.DEFAULT_NEGATIVE_TIME_TO_LIVE_MILLIS,
+                CachingCloudIdentityProviderPlugin.DEFAULT_MAXIMUM_SIZE, TOKEN_REFRESH_AHEAD_MILLIS);
+    }
+
     @Override
     public OpenStackV3User getCloudUser(Map<String, String> credentials) throws UnauthenticatedUserException {
         boolean unscopedAuth = credentials.get(OpenStackConstants.Identity.PROJECT_NAME_KEY_JSON) == null;
@@ -72,7 +97,10 @@ public class OpenStackIdentityProviderPlugin implements CloudIdentityProviderPlu
             String userName = userTokenResponse.getName();
             CreateAuthenticationResponse.Project projectTokenResponse = createAuthenticationResponse.getProject();
             String projectId = projectTokenResponse.getId();
-            return new OpenStackV3User(userId, userName, tokenValue, projectId);
+            OpenStackV3User openStackV3User = new OpenStackV3User(userId, userName, tokenValue, projectId);
+            openStackV3User.setExpirationTime(parseExpirationTime(createAuthenticationResponse.getExpiresAt()));
+            openStackV3User.setServiceEndpoints(getServiceEndpoints(createAuthenticationResponse.getCatalog()));
+            return openStackV3User;
         } catch (Exception e) {
             LOGGER.error(Messages.Log.UNABLE_TO_GET_TOKEN_FROM_JSON, e);
             throw new UnauthenticatedUserException(Messages.Exception.UNABLE_TO_GET_TOKEN_FROM_JSON);
@@ -88,7 +116,9 @@ public class OpenStackIdentityProviderPlugin implements CloudIdentityProviderPlu
             CreateUnscopedAuthenticationResponse.User userTokenResponse = createUnscopedAuthenticationResponse.getUser();
             String userId = userTokenResponse.getId();
             String userName = userTokenResponse.getName();
-            return new OpenStackV3User(userId, userName, tokenValue, null);
+            OpenStackV3User openStackV3User = new OpenStackV3User(userId, userName, tokenValue, null);
+            openStackV3User.setExpirationTime(parseExpirationTime(createUnscopedAuthenticationResponse.getExpiresAt()));
+            return openStackV3User;
         } catch (Exception e) {
             LOGGER.error(Messages.Log.UNABLE_TO_GET_TOKEN_FROM_JSON, e);
             throw new UnauthenticatedUserException(Messages.Exception.UNABLE_TO_GET_TOKEN_FROM_JSON);
@@ -125,6 +155,41 @@ public class OpenStackIdentityProviderPlugin implements CloudIdentityProviderPlu
         return createAuthenticationRequest.toJson();
     }
 
+    @VisibleForTesting
+    Long parseExpirationTime(String expiresAt) {
+        if (expiresAt == null) {
+            return null;
+        }
+
+        try {
+            return OffsetDateTime.parse(expiresAt).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            LOGGER.warn(String.format(Messages.Log.UNABLE_TO_PARSE_TOKEN_EXPIRATION_TIME_S, expiresAt));
+            return null;
+        }
+    }
+
+    @VisibleForTesting
+    Map<String, String> getServiceEndpoints(List<CreateAuthenticationResponse.Service> catalog) {
+        Map<String, String> serviceEndpoints = new HashMap<>();
+        if (catalog == null) {
+            return serviceEndpoints;
+        }
+
+        for (CreateAuthenticationResponse.Service service : catalog) {
+            if (service == null || service.getEndpoints() == null) {
+                continue;
+            }
+            for (CreateAuthenticationResponse.Endpoint endpoint : service.getEndpoints()) {
+                // with many regions, the first public endpoint listed is taken
+                if (endpoint != null && OpenStackConstants.Identity.PUBLIC_INTERFACE.equals(endpoint.getInterface())) {
+                    serviceEndpoints.putIfAbsent(service.getType(), endpoint.getUrl());
+                }
+            }
+        }
+        return serviceEndpoints;
+    }
+
     private String getTokenValue(Map<String, List<String>> headers) {
         String tokenValue = null;
         if (headers.get(OpenStackConstants.X_SUBJECT_TOKEN) != null) {
@@ -1,5 +1,10 @@
 package cloud.fogbow.common.util;
 
+import cloud.fogbow.common.constants.Messages;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import org.apache.log4j.Logger;
 import org.bouncycastle.util.encoders.Base64;
 
@@ -9,10 +14,14 @@ import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.security.*;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
@@ -26,16 +35,25 @@ public class CryptoUtil {
     
     public static final String UTF_8 = "UTF-8";
 
+    private static final int PARSED_KEYS_CACHE_SIZE = 1024;
+
+    private static final Cache<HashCode, RSAPublicKey> PUBLIC_KEYS_CACHE =
+            CacheBuilder.newBuilder().maximumSize(PARSED_KEYS_CACHE_SIZE).build();
+    private static final Cache<HashCode, RSAPrivateKey> PRIVATE_KEYS_CACHE =
+            CacheBuilder.newBuilder().maximumSize(PARSED_KEYS_CACHE_SIZE).build();
+
+    private static volatile KeyPairPool sharedKeyPairPool;
+
     public static String getKey(String filename) throws IOException {
-        // Read key from file
-        String strKeyPEM = "";
-        BufferedReader br = new BufferedReader(new FileReader(filename));
-        String line;
-        while ((line = br.readLine()) != null) {
-            strKeyPEM += line;
+        // Read key from file, dropping the line breaks
+        byte[] keyPEM = Files.readAllBytes(Paths.get(filename));
+        int length = 0;
+        for (byte b : keyPEM) {
+            if (b != '\n' && b != '\r') {
+                keyPEM[length++] = b;
+            }
         }
-        br.close();
-        return strKeyPEM;
+        return new String(keyPEM, 0, length, StandardCharsets.UTF_8);
     }
     
     public static RSAPrivateKey getPrivateKey(String filename) throws IOException, GeneralSecurityException {
@@ -44,6 +62,16 @@ public class CryptoUtil {
     }
 
     public static RSAPrivateKey getPrivateKeyFromString(String key) throws GeneralSecurityException {
+        HashCode digest = pemDigest(key);
+        RSAPrivateKey privKey = PRIVATE_KEYS_CACHE.getIfPresent(digest);
+        if (privKey == null) {
+            privKey = parsePrivateKey(key);
+            PRIVATE_KEYS_CACHE.put(digest, privKey);
+        }
+        return privKey;
+    }
+
+    private static RSAPrivateKey parsePrivateKey(String key) throws GeneralSecurityException {
         String privateKeyPEM = key;
 
         // Remove the first and last lines
@@ -55,6 +83,7 @@ public class CryptoUtil {
 
         KeyFactory kf = KeyFactory.getInstance("RSA");
         RSAPrivateKey privKey = (RSAPrivateKey) kf.generatePrivate(new PKCS8EncodedKeySpec(encoded));
+        Arrays.fill(encoded, (byte) 0);
         return privKey;
     }
 
@@ -64,6 +93,16 @@ public class CryptoUtil {
     }
 
     public static RSAPublicKey getPublicKeyFromString(String key) throws GeneralSecurityException {
+        HashCode digest = pemDigest(key);
+        RSAPublicKey pubKey = PUBLIC_KEYS_CACHE.getIfPresent(digest);
+        if (pubKey == null) {
+            pubKey = parsePublicKey(key);
+            PUBLIC_KEYS_CACHE.put(digest, pubKey);
+        }
+        return pubKey;
+    }
+
+    private static RSAPublicKey parsePublicKey(String key) throws GeneralSecurityException {
         String publicKeyPEM = key;
 
         // Remove the first and last lines
@@ -78,20 +117,57 @@ public class CryptoUtil {
         return pubKey;
     }
 
+    /**
+     * Parsed keys are cached by the digest of their PEM, so that the PEM itself (which, for private keys,
+     * is secret) is not kept as a map key.
+     */
+    private static HashCode pemDigest(String key) {
+        return Hashing.sha256().hashString(key, StandardCharsets.UTF_8);
+    }
+
     public static String sign(PrivateKey privateKey, String message)
             throws NoSuchAlgorithmException, InvalidKeyException, SignatureException, UnsupportedEncodingException {
-        Signature sign = Signature.getInstance("SHA1withRSA");
+        Signature sign = SignatureScheme.RSA_SHA1.getSignature();
         sign.initSign(privateKey);
         sign.update(message.getBytes("UTF-8"));
         return new String(Base64.encode(sign.sign()), "UTF-8");
     }
 
+    /**
+     * Signs the message with the given scheme. The returned signature carries the scheme identifier, so
+     * {@link #verify(PublicKey, String, String)} can tell which algorithm to use.
+     */
+    public static String sign(PrivateKey privateKey, String message, SignatureScheme scheme)
+            throws NoSuchAlgorithmException, InvalidKeyException, SignatureException, UnsupportedEncodingException {
+        Signature sign = scheme.getSignature();
+        sign.initSign(privateKey);
+        sign.update(message.getBytes("UTF-8"));
+        return scheme.getId() + SignatureScheme.SCHEME_SEPARATOR + new String(Base64.encode(sign.sign()), "UTF-8");
+    }
+
+    /**
+     * Verifies either a legacy (SHA1withRSA, without scheme identifier) signature or one produced by
+     * {@link #sign(PrivateKey, String, SignatureScheme)}.
+     */
     public static boolean verify(PublicKey publicKey, String message, String signature)
             throws SignatureException, NoSuchAlgorithmException, UnsupportedEncodingException, InvalidKeyException {
-        Signature sign = Signature.getInstance("SHA1withRSA");
+        SignatureScheme scheme = SignatureScheme.RSA_SHA1;
+        String encodedSignature = signature;
+
+        int separatorIndex = signature.indexOf(SignatureScheme.SCHEME_SEPARATOR);
+        if (separatorIndex >= 0) {
+            String schemeId = signature.substring(0, separatorIndex);
+            scheme = SignatureScheme.fromId(schemeId);
+            if (scheme == null) {
+                throw new SignatureException(String.format(Messages.Exception.UNKNOWN_SIGNATURE_SCHEME_S, schemeId));
+            }
+            encodedSignature = signature.substring(separatorIndex + SignatureScheme.SCHEME_SEPARATOR.length());
+        }
+
+        Signature sign = scheme.getSignature();
         sign.initVerify(publicKey);
         sign.update(message.getBytes("UTF-8"));
-        return sign.verify(Base64.decode(signature.getBytes("UTF-8")));
+        return sign.verify(Base64.decode(encodedSignature.getBytes("UTF-8")));
     }
 
     public static String encrypt(String rawText, Key key)
@@ -138,9 +214,33 @@ public class CryptoUtil {
         return sb.toString();
     }
 
+    /**
+     * Takes a key pair from the shared {@link KeyPairPool}, if one is set, or generates a
+     * {@link KeyPairPool#DEFAULT_ALGORITHM} key pair of {@link KeyPairPool#DEFAULT_KEY_SIZE} bits otherwise.
+     */
     public static KeyPair generateKeyPair() throws NoSuchAlgorithmException {
-        KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
-        keyGen.initialize(1024);
+        KeyPairPool keyPairPool = sharedKeyPairPool;
+        if (keyPairPool != null) {
+            return keyPairPool.take();
+        }
+        return generateKeyPair(KeyPairPool.DEFAULT_ALGORITHM, KeyPairPool.DEFAULT_KEY_SIZE);
+    }
+
+    /**
+     * Sets the pool {@link #generateKeyPair()} takes key pairs from; null generates them on the caller's thread.
+     * Key pairs are then of the pool's algorithm and size.
+     */
+    public static void setKeyPairPool(KeyPairPool keyPairPool) {
+        sharedKeyPairPool = keyPairPool;
+    }
+
+    /**
+     * Generates a key pair on the caller's thread, never from the shared pool. Request paths that need fresh key
+     * pairs should take them from a {@link KeyPairPool} instead.
+     */
+    public static KeyPair generateKeyPair(String algorithm, int keySize) throws NoSuchAlgorithmException {
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance(algorithm);
+        keyGen.initialize(keySize);
         KeyPair keyPair = keyGen.genKeyPair();
         return keyPair;
     }
@@ -167,4 +267,82 @@ public class CryptoUtil {
         cipher.init(Cipher.DECRYPT_MODE, key);
         return new String(cipher.doFinal(Base64.decode(cipherText)), "UTF-8");
     }
+
+    /**
+     * Encrypts everything read from <tt>plainText</tt> into <tt>cipherText</tt> using envelope encryption
+     * (a random AES-GCM key wrapped with <tt>publicKey</tt>). Memory usage does not depend on the payload size.
+     * Neither stream is closed.
+     */
+    public static void encryptEnvelope(InputStream plainText, OutputStream cipherText, PublicKey publicKey)
+            throws IOException, GeneralSecurityException {
+        EnvelopeCipher.Encryptor encryptor = EnvelopeCipher.newEncryptor(publicKey);
+        ByteBuffer header = encryptor.getHeader();
+        byte[] headerBytes = new byte[header.remaining()];
+        header.get(headerBytes);
+        cipherText.write(headerBytes);
+
+        // one extra byte is read ahead to find out whether the current segment is the last one
+        byte[] input = new byte[EnvelopeCipher.PLAINTEXT_SEGMENT_SIZE + 1];
+        byte[] output = new byte[EnvelopeCipher.CIPHERTEXT_SEGMENT_SIZE];
+        int filled = readFully(plainText, input, 0);
+        while (filled == input.length) {
+            int written = encryptor.encryptSegment(ByteBuffer.wrap(input, 0, EnvelopeCipher.PLAINTEXT_SEGMENT_SIZE),
+                    ByteBuffer.wrap(output), false);
+            cipherText.write(output, 0, written);
+            input[0] = input[EnvelopeCipher.PLAINTEXT_SEGMENT_SIZE];
+            filled = readFully(plainText, input, 1);
+        }
+        int written = encryptor.encryptSegment(ByteBuffer.wrap(input, 0, filled), ByteBuffer.wrap(output), true);
+        cipherText.write(output, 0, written);
+        cipherText.flush();
+    }
+
+    /**
+     * Decrypts a message produced by {@link #encryptEnvelope(InputStream, OutputStream, PublicKey)}. Each segment
+     * is authenticated before being written to <tt>plainText</tt>; a tampered or truncated message causes a
+     * {@link javax.crypto.AEADBadTagException}. Neither stream is closed.
+     */
+    public static void decryptEnvelope(InputStream cipherText, OutputStream plainText, PrivateKey privateKey)
+            throws IOException, GeneralSecurityException {
+        byte[] headerPrefix = new byte[EnvelopeCipher.HEADER_PREFIX_SIZE];
+        if (readFully(cipherText, headerPrefix, 0) < headerPrefix.length) {
+            throw new GeneralSecurityException(Messages.Exception.INVALID_ENVELOPE_HEADER);
+        }
+        byte[] header = Arrays.copyOf(headerPrefix, EnvelopeCipher.getHeaderSize(headerPrefix));
+        if (readFully(cipherText, header, headerPrefix.length) < header.length) {
+            throw new GeneralSecurityException(Messages.Exception.INVALID_ENVELOPE_HEADER);
+        }
+        EnvelopeCipher.Decryptor decryptor = EnvelopeCipher.newDecryptor(privateKey, ByteBuffer.wrap(header));
+
+        byte[] input = new byte[EnvelopeCipher.CIPHERTEXT_SEGMENT_SIZE + 1];
+        byte[] output = new byte[EnvelopeCipher.PLAINTEXT_SEGMENT_SIZE];
+        int filled = readFully(cipherText, input, 0);
+        while (filled == input.length) {
+            int written = decryptor.decryptSegment(ByteBuffer.wrap(input, 0, EnvelopeCipher.CIPHERTEXT_SEGMENT_SIZE),
+                    ByteBuffer.wrap(output), false);
+            plainText.write(output, 0, written);
+            input[0] = input[EnvelopeCipher.CIPHERTEXT_SEGMENT_SIZE];
+            filled = readFully(cipherText, input, 1);
+        }
+        int written = decryptor.decryptSegment(ByteBuffer.wrap(input, 0, filled), ByteBuffer.wrap(output), true);
+        plainText.write(output, 0, written);
+        plainText.flush();
+    }
+
+    /**
+     * Reads from <tt>in</tt> until <tt>buffer</tt> is full or the stream ends.
+     *
+     * @return the number of bytes in <tt>buffer</tt>, counting the <tt>offset</tt> bytes already there.
+     */
+    private static int readFully(InputStream in, byte[] buffer, int offset) throws IOException {
+        int filled = offset;
+        while (filled < buffer.length) {
+            int read = in.read(buffer, filled, buffer.length - filled);
+            if (read < 0) {
+                break;
+            }
+            filled += read;
+        }
+        return filled;
+    }
 }
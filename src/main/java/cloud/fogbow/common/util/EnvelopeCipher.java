@@ -0,0 +1,216 @@
+package cloud.fogbow.common.util;
+
+import cloud.fogbow.common.constants.Messages;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+
+/**
+ * Envelope (hybrid) encryption: every message is encrypted with a fresh random AES key, which is itself
+ * wrapped with the recipient's RSA public key and sent in the message header.
+ * <p>
+ * The payload is split in segments of {@link #PLAINTEXT_SEGMENT_SIZE} bytes, each one sealed with AES-GCM
+ * under its own nonce (random per-message prefix + segment counter + last-segment flag). This way both
+ * encryption and decryption work in constant memory, and reordering, dropping or truncating segments is
+ * detected when the message is decrypted.
+ * <p>
+ * Message layout:
+ * <pre>
+ * | version (1) | wrapped key length (2) | wrapped key | nonce prefix (7) | segment 0 | ... | last segment |
+ * </pre>
+ * where each segment is the AES-GCM ciphertext of up to {@link #PLAINTEXT_SEGMENT_SIZE} bytes followed by its
+ * {@link #TAG_SIZE} bytes authentication tag. Only the last segment may be shorter than a full segment.
+ */
+public class EnvelopeCipher {
+    public static final byte VERSION = 1;
+    public static final int PLAINTEXT_SEGMENT_SIZE = 64 * 1024;
+    public static final int TAG_SIZE = 16;
+    public static final int CIPHERTEXT_SEGMENT_SIZE = PLAINTEXT_SEGMENT_SIZE + TAG_SIZE;
+    // version + wrapped key length
+    static final int HEADER_PREFIX_SIZE = 1 + 2;
+
+    private static final String AES_ALGORITHM = "AES";
+    private static final String AES_GCM_TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final String KEY_WRAP_TRANSFORMATION = "RSA/ECB/OAEPWithSHA-256AndMGF1Padding";
+    private static final int AES_KEY_SIZE = 256;
+    private static final int NONCE_SIZE = 12;
+    private static final int NONCE_PREFIX_SIZE = 7;
+    private static final int MAX_WRAPPED_KEY_SIZE = 0xFFFF;
+    private static final long MAX_SEGMENTS = 0xFFFFFFFFL;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Cipher cipher;
+    private final SecretKey key;
+    private final byte[] noncePrefix;
+    private final int mode;
+    private long segmentCounter;
+    private boolean finished;
+
+    private EnvelopeCipher(int mode, SecretKey key, byte[] noncePrefix) throws GeneralSecurityException {
+        this.cipher = Cipher.getInstance(AES_GCM_TRANSFORMATION);
+        this.mode = mode;
+        this.key = key;
+        this.noncePrefix = noncePrefix;
+    }
+
+    /**
+     * Creates a cipher that encrypts a new message for the owner of <tt>publicKey</tt>. The header returned
+     * by {@link Encryptor#getHeader()} must be sent before the encrypted segments.
+     */
+    public static Encryptor newEncryptor(PublicKey publicKey) throws GeneralSecurityException {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance(AES_ALGORITHM);
+        keyGenerator.init(AES_KEY_SIZE, RANDOM);
+        SecretKey key = keyGenerator.generateKey();
+
+        byte[] noncePrefix = new byte[NONCE_PREFIX_SIZE];
+        RANDOM.nextBytes(noncePrefix);
+
+        Cipher keyWrapper = Cipher.getInstance(KEY_WRAP_TRANSFORMATION);
+        keyWrapper.init(Cipher.WRAP_MODE, publicKey, RANDOM);
+        byte[] wrappedKey = keyWrapper.wrap(key);
+        if (wrappedKey.length > MAX_WRAPPED_KEY_SIZE) {
+            throw new GeneralSecurityException(Messages.Exception.INVALID_ENVELOPE_HEADER);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_PREFIX_SIZE + wrappedKey.length + NONCE_PREFIX_SIZE);
+        header.put(VERSION);
+        header.putShort((short) wrappedKey.length);
+        header.put(wrappedKey);
+        header.put(noncePrefix);
+        header.flip();
+
+        return new Encryptor(new EnvelopeCipher(Cipher.ENCRYPT_MODE, key, noncePrefix), header);
+    }
+
+    /**
+     * Creates a cipher that decrypts the message whose header starts at the current position of
+     * <tt>header</tt>. On return, the position of <tt>header</tt> is right after the message header.
+     */
+    public static Decryptor newDecryptor(PrivateKey privateKey, ByteBuffer header) throws GeneralSecurityException {
+        if (header.remaining() < HEADER_PREFIX_SIZE || header.get() != VERSION) {
+            throw new GeneralSecurityException(Messages.Exception.INVALID_ENVELOPE_HEADER);
+        }
+
+        int wrappedKeySize = header.getShort() & 0xFFFF;
+        if (header.remaining() < wrappedKeySize + NONCE_PREFIX_SIZE) {
+            throw new GeneralSecurityException(Messages.Exception.INVALID_ENVELOPE_HEADER);
+        }
+
+        byte[] wrappedKey = new byte[wrappedKeySize];
+        header.get(wrappedKey);
+        byte[] noncePrefix = new byte[NONCE_PREFIX_SIZE];
+        header.get(noncePrefix);
+
+        Cipher keyWrapper = Cipher.getInstance(KEY_WRAP_TRANSFORMATION);
+        keyWrapper.init(Cipher.UNWRAP_MODE, privateKey);
+        Key key = keyWrapper.unwrap(wrappedKey, AES_ALGORITHM, Cipher.SECRET_KEY);
+
+        return new Decryptor(new EnvelopeCipher(Cipher.DECRYPT_MODE, (SecretKey) key, noncePrefix));
+    }
+
+    /**
+     * @param headerPrefix the first {@link #HEADER_PREFIX_SIZE} bytes of a message
+     * @return the full size of the header of that message
+     */
+    static int getHeaderSize(byte[] headerPrefix) {
+        int wrappedKeySize = ((headerPrefix[1] & 0xFF) << 8) | (headerPrefix[2] & 0xFF);
+        return HEADER_PREFIX_SIZE + wrappedKeySize + NONCE_PREFIX_SIZE;
+    }
+
+    private int processSegment(ByteBuffer input, ByteBuffer output, boolean lastSegment)
+            throws GeneralSecurityException {
+        if (this.finished) {
+            throw new GeneralSecurityException(Messages.Exception.ENVELOPE_ALREADY_FINISHED);
+        }
+        if (this.segmentCounter >= MAX_SEGMENTS) {
+            throw new GeneralSecurityException(Messages.Exception.ENVELOPE_SEGMENT_LIMIT_EXCEEDED);
+        }
+
+        this.cipher.init(this.mode, this.key, new GCMParameterSpec(TAG_SIZE * 8, nonceFor(this.segmentCounter, lastSegment)));
+        int written = this.cipher.doFinal(input, output);
+
+        this.segmentCounter++;
+        this.finished = lastSegment;
+        return written;
+    }
+
+    private byte[] nonceFor(long segment, boolean lastSegment) {
+        ByteBuffer nonce = ByteBuffer.allocate(NONCE_SIZE);
+        nonce.put(this.noncePrefix);
+        nonce.putInt((int) segment);
+        nonce.put(lastSegment ? (byte) 1 : (byte) 0);
+        return nonce.array();
+    }
+
+    public static class Encryptor {
+        private final EnvelopeCipher envelopeCipher;
+        private final ByteBuffer header;
+
+        private Encryptor(EnvelopeCipher envelopeCipher, ByteBuffer header) {
+            this.envelopeCipher = envelopeCipher;
+            this.header = header;
+        }
+
+        /**
+         * @return a read-only view of the message header, which carries the wrapped AES key.
+         */
+        public ByteBuffer getHeader() {
+            return this.header.asReadOnlyBuffer();
+        }
+
+        /**
+         * Encrypts one segment. Every segment but the last one must have exactly
+         * {@link EnvelopeCipher#PLAINTEXT_SEGMENT_SIZE} bytes; <tt>output</tt> must have room for
+         * <tt>plainText.remaining() + TAG_SIZE</tt> bytes.
+         *
+         * @return the number of bytes written to <tt>output</tt>
+         */
+        public int encryptSegment(ByteBuffer plainText, ByteBuffer output, boolean lastSegment)
+                throws GeneralSecurityException {
+            if (!lastSegment && plainText.remaining() != PLAINTEXT_SEGMENT_SIZE) {
+                throw new GeneralSecurityException(Messages.Exception.INVALID_ENVELOPE_SEGMENT_SIZE);
+            }
+            return this.envelopeCipher.processSegment(plainText, output, lastSegment);
+        }
+    }
+
+    public static class Decryptor {
+        private final EnvelopeCipher envelopeCipher;
+
+        private Decryptor(EnvelopeCipher envelopeCipher) {
+            this.envelopeCipher = envelopeCipher;
+        }
+
+        /**
+         * Decrypts and authenticates one segment. Every segment but the last one must have exactly
+         * {@link EnvelopeCipher#CIPHERTEXT_SEGMENT_SIZE} bytes.
+         *
+         * @return the number of bytes written to <tt>output</tt>
+         * @throws javax.crypto.AEADBadTagException if the segment was tampered with, is out of order, or was
+         * flagged with the wrong <tt>lastSegment</tt> value (e.g. the message was truncated).
+         */
+        public int decryptSegment(ByteBuffer cipherText, ByteBuffer output, boolean lastSegment)
+                throws GeneralSecurityException {
+            if (lastSegment ? cipherText.remaining() < TAG_SIZE : cipherText.remaining() != CIPHERTEXT_SEGMENT_SIZE) {
+                throw new GeneralSecurityException(Messages.Exception.INVALID_ENVELOPE_SEGMENT_SIZE);
+            }
+            return this.envelopeCipher.processSegment(cipherText, output, lastSegment);
+        }
+
+        /**
+         * @return true once the last segment has been successfully decrypted.
+         */
+        public boolean isFinished() {
+            return this.envelopeCipher.finished;
+        }
+    }
+}
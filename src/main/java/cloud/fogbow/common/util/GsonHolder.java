@@ -1,17 +1,89 @@
 package cloud.fogbow.common.util;
 
+import cloud.fogbow.common.constants.Messages;
+import cloud.fogbow.common.plugins.cloudidp.cloudstack.v4_9.ListAccountsResponse;
+import cloud.fogbow.common.plugins.cloudidp.cloudstack.v4_9.LoginResponse;
+import cloud.fogbow.common.plugins.cloudidp.openstack.v3.CreateAuthenticationRequest;
+import cloud.fogbow.common.plugins.cloudidp.openstack.v3.CreateAuthenticationResponse;
+import cloud.fogbow.common.plugins.cloudidp.openstack.v3.CreateUnscopedAuthenticationResponse;
+import cloud.fogbow.common.util.connectivity.cloud.cloudstack.CloudStackQueryAsyncJobResponse;
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
 
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the Gson instance shared by the library. It is created on first use (or by {@link #warmUp()}) through
+ * the initialization-on-demand holder idiom, so {@link #getInstance()} takes no lock.
+ * <p>
+ * The library's response models are bound by streaming adapters registered here instead of by reflection.
+ * Services may register adapters for their own types with {@link #registerTypeAdapter(Type, Object)}, as long
+ * as they do it before the instance is created.
+ */
 public class GsonHolder {
-    private static Gson gson;
+    private static final Map<Type, Object> typeAdapters = new LinkedHashMap<>();
+    private static final List<Type> warmUpTypes = new ArrayList<>(Arrays.asList(
+            CreateAuthenticationRequest.class, HashMap.class, Map.class));
+    private static boolean created = false;
+
+    static {
+        typeAdapters.put(CloudStackQueryAsyncJobResponse.class, new CloudStackQueryAsyncJobResponse.JsonAdapter().nullSafe());
+        typeAdapters.put(CreateAuthenticationResponse.class, new CreateAuthenticationResponse.JsonAdapter().nullSafe());
+        typeAdapters.put(CreateUnscopedAuthenticationResponse.class, new CreateUnscopedAuthenticationResponse.JsonAdapter().nullSafe());
+        typeAdapters.put(ListAccountsResponse.class, new ListAccountsResponse.JsonAdapter().nullSafe());
+        typeAdapters.put(LoginResponse.class, new LoginResponse.JsonAdapter().nullSafe());
+    }
 
     private GsonHolder() {
     }
 
-    public static synchronized Gson getInstance() {
-        if (gson == null) {
-            gson = new Gson();
+    private static class InstanceHolder {
+        private static final Gson INSTANCE = createGson();
+    }
+
+    public static Gson getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Registers a type adapter (see {@link GsonBuilder#registerTypeAdapter(Type, Object)}), which is also warmed up.
+     *
+     * @throws IllegalStateException if the Gson instance was already created.
+     */
+    public static synchronized void registerTypeAdapter(Type type, Object typeAdapter) {
+        if (created) {
+            throw new IllegalStateException(Messages.Exception.GSON_INSTANCE_ALREADY_CREATED);
+        }
+        typeAdapters.put(type, typeAdapter);
+    }
+
+    /**
+     * Creates the Gson instance and resolves the adapters of the library's models, so that the first request
+     * does not pay for reflection. Meant to be called once, when the service starts.
+     */
+    public static void warmUp() {
+        Gson gson = getInstance();
+        for (Type type : typeAdapters.keySet()) {
+            gson.getAdapter(TypeToken.get(type));
+        }
+        for (Type type : warmUpTypes) {
+            gson.getAdapter(TypeToken.get(type));
+        }
+    }
+
+    private static synchronized Gson createGson() {
+        GsonBuilder gsonBuilder = new GsonBuilder();
+        for (Map.Entry<Type, Object> entry : typeAdapters.entrySet()) {
+            gsonBuilder.registerTypeAdapter(entry.getKey(), entry.getValue());
         }
-        return gson;
+        created = true;
+        return gsonBuilder.create();
     }
 }
@@ -0,0 +1,40 @@
+package cloud.fogbow.common.util;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Helpers for hand-written {@link com.google.gson.TypeAdapter}s, reading values as leniently as Gson's reflective
+ * adapters do (e.g. a number where a string is expected).
+ */
+public class JsonStreamingUtil {
+
+    /**
+     * @return true if the next value is null, in which case it is consumed.
+     */
+    public static boolean nextNullIfPresent(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    public static String nextStringOrNull(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case NULL:
+                in.nextNull();
+                return null;
+            case BOOLEAN:
+                return Boolean.toString(in.nextBoolean());
+            default:
+                return in.nextString();
+        }
+    }
+
+    public static int nextIntOrZero(JsonReader in) throws IOException {
+        return nextNullIfPresent(in) ? 0 : in.nextInt();
+    }
+}
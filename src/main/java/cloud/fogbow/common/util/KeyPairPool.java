@@ -0,0 +1,166 @@
+package cloud.fogbow.common.util;
+
+import cloud.fogbow.common.constants.Messages;
+import org.apache.log4j.Logger;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a bounded pool of ready-to-use key pairs, refilled by a background thread, so that callers do not
+ * pay the cost of generating a key pair (tens to hundreds of milliseconds for RSA) in their request path.
+ * When the pool is empty, {@link #take()} falls back to generating a key pair on the caller's thread.
+ * <p>
+ * The background thread only runs between {@link #start()} and {@link #shutdown()}. Once started, a pool may be
+ * shared by every caller of {@link CryptoUtil#generateKeyPair()} through {@link CryptoUtil#setKeyPairPool(KeyPairPool)}.
+ */
+public class KeyPairPool {
+    private static final Logger LOGGER = Logger.getLogger(KeyPairPool.class);
+
+    public static final String DEFAULT_ALGORITHM = "RSA";
+    public static final int DEFAULT_KEY_SIZE = 1024;
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private static final String REFILL_THREAD_NAME = "key-pair-pool-refill";
+
+    private final String algorithm;
+    private final int keySize;
+    private final BlockingQueue<KeyPair> pool;
+    private final Thread refillThread;
+    private final AtomicLong generatedKeyPairs = new AtomicLong();
+    private final AtomicLong generationTimeNanos = new AtomicLong();
+    private final AtomicLong poolHits = new AtomicLong();
+    private final AtomicLong poolMisses = new AtomicLong();
+    private volatile boolean running;
+
+    public KeyPairPool() throws NoSuchAlgorithmException {
+        this(DEFAULT_ALGORITHM, DEFAULT_KEY_SIZE, DEFAULT_CAPACITY);
+    }
+
+    public KeyPairPool(String algorithm, int keySize, int capacity) throws NoSuchAlgorithmException {
+        this.algorithm = algorithm;
+        this.keySize = keySize;
+        this.pool = new ArrayBlockingQueue<>(capacity);
+        // fail fast on an unsupported algorithm/size, instead of inside the refill thread
+        KeyPairGenerator keyPairGenerator = createKeyPairGenerator();
+
+        this.refillThread = new Thread(() -> refill(keyPairGenerator), REFILL_THREAD_NAME);
+        this.refillThread.setDaemon(true);
+    }
+
+    /**
+     * Starts filling the pool in the background. A pool can only be started once.
+     *
+     * @return this pool.
+     */
+    public synchronized KeyPairPool start() {
+        if (this.refillThread.getState() == Thread.State.NEW) {
+            this.running = true;
+            this.refillThread.start();
+        }
+        return this;
+    }
+
+    /**
+     * @return a key pair from the pool, or a freshly generated one if the pool is empty.
+     */
+    public KeyPair take() throws NoSuchAlgorithmException {
+        KeyPair keyPair = this.pool.poll();
+        if (keyPair != null) {
+            this.poolHits.incrementAndGet();
+            return keyPair;
+        }
+        this.poolMisses.incrementAndGet();
+        return CryptoUtil.generateKeyPair(this.algorithm, this.keySize);
+    }
+
+    /**
+     * Waits up to <tt>timeout</tt> for a pooled key pair before generating one on the caller's thread.
+     */
+    public KeyPair take(long timeout, TimeUnit unit) throws NoSuchAlgorithmException, InterruptedException {
+        KeyPair keyPair = this.pool.poll(timeout, unit);
+        if (keyPair != null) {
+            this.poolHits.incrementAndGet();
+            return keyPair;
+        }
+        this.poolMisses.incrementAndGet();
+        return CryptoUtil.generateKeyPair(this.algorithm, this.keySize);
+    }
+
+    public synchronized void shutdown() {
+        this.running = false;
+        this.refillThread.interrupt();
+        this.pool.clear();
+    }
+
+    public String getAlgorithm() {
+        return this.algorithm;
+    }
+
+    public int getKeySize() {
+        return this.keySize;
+    }
+
+    /**
+     * @return the number of key pairs ready to be taken.
+     */
+    public int getDepth() {
+        return this.pool.size();
+    }
+
+    public int getCapacity() {
+        return this.pool.size() + this.pool.remainingCapacity();
+    }
+
+    /**
+     * @return the number of key pairs generated by the background thread per second of generation time.
+     */
+    public double getRefillRate() {
+        long nanos = this.generationTimeNanos.get();
+        return nanos == 0 ? 0 : this.generatedKeyPairs.get() / (nanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public long getGeneratedKeyPairs() {
+        return this.generatedKeyPairs.get();
+    }
+
+    public long getPoolHits() {
+        return this.poolHits.get();
+    }
+
+    /**
+     * @return how many times a caller found the pool empty and had to generate its own key pair.
+     */
+    public long getPoolMisses() {
+        return this.poolMisses.get();
+    }
+
+    private void refill(KeyPairGenerator keyPairGenerator) {
+        while (this.running) {
+            try {
+                long start = System.nanoTime();
+                KeyPair keyPair = keyPairGenerator.generateKeyPair();
+                this.generationTimeNanos.addAndGet(System.nanoTime() - start);
+                this.generatedKeyPairs.incrementAndGet();
+                // blocks while the pool is full
+                this.pool.put(keyPair);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.error(String.format(Messages.Log.ERROR_MESSAGE_IS_S, e.getMessage()), e);
+            }
+        }
+    }
+
+    private KeyPairGenerator createKeyPairGenerator() throws NoSuchAlgorithmException {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(this.algorithm);
+        keyPairGenerator.initialize(this.keySize);
+        return keyPairGenerator;
+    }
+}
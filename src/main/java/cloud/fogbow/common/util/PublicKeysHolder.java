@@ -7,9 +7,15 @@ import cloud.fogbow.common.exceptions.UnavailableProviderException;
 import cloud.fogbow.common.exceptions.InternalServerErrorException;
 import cloud.fogbow.common.util.connectivity.HttpRequestClient;
 import cloud.fogbow.common.util.connectivity.HttpResponse;
-import com.google.gson.Gson;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpResponseException;
+import org.apache.log4j.Logger;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
@@ -18,9 +24,63 @@ import java.security.GeneralSecurityException;
 import java.security.interfaces.RSAPublicKey;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Fetches the public keys of other services. Keys are cached per service address, port and suffix: after
+ * {@link #REFRESH_INTERVAL_IN_MINUTES} the next lookup triggers a background refresh while the cached key keeps
+ * being served, and if the refresh fails the stale key is kept. Concurrent lookups of a key that is not cached
+ * yet share a single fetch.
+ */
 public class PublicKeysHolder {
-    public static  RSAPublicKey getPublicKey(String serviceAddress, String servicePort, String suffix) throws FogbowException {
+    private static final Logger LOGGER = Logger.getLogger(PublicKeysHolder.class);
+
+    private static final String PUBLIC_KEY_JSON_KEY = "publicKey";
+    private static final String REFRESH_THREAD_NAME_FORMAT = "public-keys-refresh-%d";
+    private static final long REFRESH_INTERVAL_IN_MINUTES = 5;
+    private static final long MAXIMUM_CACHED_KEYS = 256;
+
+    private static final LoadingCache<ServiceEndpoint, RSAPublicKey> loadingCache;
+
+    static {
+        loadingCache = CacheBuilder.newBuilder()
+                .maximumSize(MAXIMUM_CACHED_KEYS)
+                .refreshAfterWrite(REFRESH_INTERVAL_IN_MINUTES, TimeUnit.MINUTES)
+                .build(CacheLoader.asyncReloading(new CacheLoader<ServiceEndpoint, RSAPublicKey>() {
+                    @Override
+                    public RSAPublicKey load(ServiceEndpoint serviceEndpoint) throws Exception {
+                        return fetchPublicKey(serviceEndpoint.address, serviceEndpoint.port, serviceEndpoint.suffix);
+                    }
+                }, Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                        .setNameFormat(REFRESH_THREAD_NAME_FORMAT)
+                        .setDaemon(true)
+                        .build())));
+    }
+
+    public static RSAPublicKey getPublicKey(String serviceAddress, String servicePort, String suffix) throws FogbowException {
+        try {
+            return loadingCache.get(new ServiceEndpoint(serviceAddress, servicePort, suffix));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof FogbowException) {
+                throw (FogbowException) e.getCause();
+            }
+            LOGGER.error(String.format(Messages.Log.ERROR_MESSAGE_IS_S, e.getMessage()), e);
+            throw new InternalServerErrorException(e.getMessage());
+        }
+    }
+
+    /**
+     * Discards the cached key of a service, e.g. when it is known to have been rotated.
+     */
+    public static void invalidate(String serviceAddress, String servicePort, String suffix) {
+        loadingCache.invalidate(new ServiceEndpoint(serviceAddress, servicePort, suffix));
+    }
+
+    @VisibleForTesting
+    static RSAPublicKey fetchPublicKey(String serviceAddress, String servicePort, String suffix) throws FogbowException {
         RSAPublicKey publicKey = null;
 
         URI uri = null;
@@ -38,9 +98,8 @@ public class PublicKeysHolder {
             throw new UnavailableProviderException(e.getMessage());
         } else {
             try {
-                Gson gson = new Gson();
-                Map<String, String> jsonResponse = gson.fromJson(response.getContent(), HashMap.class);
-                String publicKeyString = jsonResponse.get("publicKey");
+                Map<String, String> jsonResponse = GsonHolder.getInstance().fromJson(response.getContent(), HashMap.class);
+                String publicKeyString = jsonResponse.get(PUBLIC_KEY_JSON_KEY);
                 publicKey = CryptoUtil.getPublicKeyFromString(publicKeyString);
             } catch (GeneralSecurityException e) {
                 throw new InternalServerErrorException(Messages.Exception.INVALID_PUBLIC_KEY_FETCHED);
@@ -48,4 +107,32 @@ public class PublicKeysHolder {
             return publicKey;
         }
     }
+
+    private static class ServiceEndpoint {
+        private final String address;
+        private final String port;
+        private final String suffix;
+
+        ServiceEndpoint(String address, String port, String suffix) {
+            this.address = address;
+            this.port = port;
+            this.suffix = suffix;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            ServiceEndpoint that = (ServiceEndpoint) o;
+            return Objects.equals(this.address, that.address) &&
+                    Objects.equals(this.port, that.port) &&
+                    Objects.equals(this.suffix, that.suffix);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.address, this.port, this.suffix);
+        }
+    }
 }
@@ -1,7 +1,29 @@
 package cloud.fogbow.common.util;
 
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps a serialized entity together with its class name, so it can be deserialized without knowing its type
+ * in advance. Resolved classes and their Gson {@link TypeAdapter}s are cached by class name, so deserializing a
+ * known type neither calls the class loader nor looks the adapter up reflectively.
+ * <p>
+ * When {@link #setRestrictedToRegisteredTypes(boolean) restricted}, only the types explicitly
+ * {@link #register(Class) registered} are deserialized. Otherwise, other class names are resolved through the class
+ * loader once and cached afterwards, without being registered.
+ */
 public class SerializedEntityHolder<T> {
 
+    private static final Map<String, TypeAdapter<?>> typeAdapters = new ConcurrentHashMap<>();
+    // the only types deserialized when restricted
+    private static final Set<String> registeredTypes = ConcurrentHashMap.newKeySet();
+    private static volatile boolean restrictedToRegisteredTypes = false;
+
     private String className;
     private String payload;
 
@@ -10,8 +32,50 @@ public class SerializedEntityHolder<T> {
         this.payload = GsonHolder.getInstance().toJson(instanceToSerialize);
     }
 
+    // the entity is of the class it was serialized from, which the holder's caller declares as T
+    @SuppressWarnings("unchecked")
     public T getSerializedEntity() throws ClassNotFoundException {
-        return (T) GsonHolder.getInstance().fromJson(this.payload, Class.forName(this.className));
+        TypeAdapter<?> typeAdapter = getTypeAdapter(this.className);
+        if (this.payload == null) {
+            return null;
+        }
+
+        try {
+            return (T) typeAdapter.fromJson(this.payload);
+        } catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * Adds a type to the set of types that may be deserialized, building its adapter up front.
+     */
+    public static <E> TypeAdapter<E> register(Class<E> type) {
+        TypeAdapter<E> typeAdapter = GsonHolder.getInstance().getAdapter(type);
+        typeAdapters.putIfAbsent(type.getName(), typeAdapter);
+        registeredTypes.add(type.getName());
+        return typeAdapter;
+    }
+
+    /**
+     * When restricted, only registered types are deserialized, and the class loader is
+     * never asked to resolve a class name read from a serialized entity.
+     */
+    public static void setRestrictedToRegisteredTypes(boolean restricted) {
+        restrictedToRegisteredTypes = restricted;
+    }
+
+    private static TypeAdapter<?> getTypeAdapter(String className) throws ClassNotFoundException {
+        if (className == null || (restrictedToRegisteredTypes && !registeredTypes.contains(className))) {
+            throw new ClassNotFoundException(className);
+        }
+
+        TypeAdapter<?> typeAdapter = typeAdapters.get(className);
+        if (typeAdapter == null) {
+            typeAdapter = GsonHolder.getInstance().getAdapter(Class.forName(className));
+            typeAdapters.put(className, typeAdapter);
+        }
+        return typeAdapter;
     }
 
     @Override
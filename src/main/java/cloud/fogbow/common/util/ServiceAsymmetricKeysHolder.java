@@ -5,55 +5,180 @@ import cloud.fogbow.common.exceptions.InternalServerErrorException;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.security.GeneralSecurityException;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.util.HashSet;
+import java.util.Set;
 
+/**
+ * Holds the service's own key pair. The keys are kept in an immutable {@link KeysSnapshot} published through a
+ * volatile field, so reading them is a single memory read. Once loaded, the key files are watched, and a rotated
+ * key is loaded in the background and swapped in atomically, without restarting the service; if the new file
+ * cannot be parsed (e.g. it is still being written), the previous key is kept.
+ */
 public class ServiceAsymmetricKeysHolder {
 	private static final Logger LOGGER = Logger.getLogger(ServiceAsymmetricKeysHolder.class);
 
-	private RSAPublicKey servicePublicKey;
-	private RSAPrivateKey servicePrivateKey;
-	private String publicKeyFilePath;
-	private String privateKeyFilePath;
-	private static ServiceAsymmetricKeysHolder instance;
-	
-    public static synchronized ServiceAsymmetricKeysHolder getInstance() {
-        if (instance == null) {
-            instance = new ServiceAsymmetricKeysHolder();
-        }
-        return instance;
+	private static final String WATCHER_THREAD_NAME = "service-keys-watcher";
+
+	private volatile KeysSnapshot keys = KeysSnapshot.EMPTY;
+	private volatile Path publicKeyFilePath;
+	private volatile Path privateKeyFilePath;
+	private WatchService watchService;
+	private final Set<Path> watchedDirectories = new HashSet<>();
+
+    private static class InstanceHolder {
+        private static final ServiceAsymmetricKeysHolder INSTANCE = new ServiceAsymmetricKeysHolder();
     }
 
-    public void setPublicKeyFilePath(String publicKeyFilePath) {
-        this.publicKeyFilePath = publicKeyFilePath;
+    public static ServiceAsymmetricKeysHolder getInstance() {
+        return InstanceHolder.INSTANCE;
     }
 
-    public void setPrivateKeyFilePath(String privateKeyFilePath) {
-        this.privateKeyFilePath = privateKeyFilePath;
+    public synchronized void setPublicKeyFilePath(String publicKeyFilePath) {
+        this.publicKeyFilePath = toPath(publicKeyFilePath);
+        this.keys = this.keys.withPublicKey(null);
+    }
+
+    public synchronized void setPrivateKeyFilePath(String privateKeyFilePath) {
+        this.privateKeyFilePath = toPath(privateKeyFilePath);
+        this.keys = this.keys.withPrivateKey(null);
     }
 
     public RSAPublicKey getPublicKey() throws InternalServerErrorException {
-	    if (this.servicePublicKey == null) {
-	        if (this.publicKeyFilePath == null) throw new InternalServerErrorException(Messages.Exception.NO_PUBLIC_KEY_DEFINED);
-            try {
-                this.servicePublicKey = CryptoUtil.getPublicKey(this.publicKeyFilePath);
-            } catch (IOException | GeneralSecurityException e) {
-                throw new InternalServerErrorException(Messages.Exception.INVALID_PUBLIC_KEY);
+        RSAPublicKey publicKey = this.keys.publicKey;
+        return publicKey != null ? publicKey : loadPublicKey();
+    }
+
+    public RSAPrivateKey getPrivateKey() throws InternalServerErrorException {
+        RSAPrivateKey privateKey = this.keys.privateKey;
+        return privateKey != null ? privateKey : loadPrivateKey();
+    }
+
+    private synchronized RSAPublicKey loadPublicKey() throws InternalServerErrorException {
+        // another thread may have loaded it while this one was waiting for the lock
+        if (this.keys.publicKey != null) return this.keys.publicKey;
+        if (this.publicKeyFilePath == null) throw new InternalServerErrorException(Messages.Exception.NO_PUBLIC_KEY_DEFINED);
+
+        try {
+            RSAPublicKey publicKey = CryptoUtil.getPublicKey(this.publicKeyFilePath.toString());
+            this.keys = this.keys.withPublicKey(publicKey);
+            watch(this.publicKeyFilePath);
+            return publicKey;
+        } catch (IOException | GeneralSecurityException e) {
+            throw new InternalServerErrorException(Messages.Exception.INVALID_PUBLIC_KEY);
+        }
+    }
+
+    private synchronized RSAPrivateKey loadPrivateKey() throws InternalServerErrorException {
+        // another thread may have loaded it while this one was waiting for the lock
+        if (this.keys.privateKey != null) return this.keys.privateKey;
+        if (this.privateKeyFilePath == null) throw new InternalServerErrorException(Messages.Exception.NO_PRIVATE_KEY_DEFINED);
+
+        try {
+            RSAPrivateKey privateKey = CryptoUtil.getPrivateKey(this.privateKeyFilePath.toString());
+            this.keys = this.keys.withPrivateKey(privateKey);
+            watch(this.privateKeyFilePath);
+            return privateKey;
+        } catch (IOException | GeneralSecurityException e) {
+            throw new InternalServerErrorException(Messages.Exception.INVALID_PRIVATE_KEY);
+        }
+    }
+
+    private synchronized void reload(Path changedFile) {
+        if (changedFile == null) return;
+
+        try {
+            if (changedFile.equals(this.publicKeyFilePath) && this.keys.publicKey != null) {
+                this.keys = this.keys.withPublicKey(CryptoUtil.getPublicKey(changedFile.toString()));
+                LOGGER.info(String.format(Messages.Log.KEY_FILE_S_RELOADED, changedFile));
+            }
+            if (changedFile.equals(this.privateKeyFilePath) && this.keys.privateKey != null) {
+                this.keys = this.keys.withPrivateKey(CryptoUtil.getPrivateKey(changedFile.toString()));
+                LOGGER.info(String.format(Messages.Log.KEY_FILE_S_RELOADED, changedFile));
             }
+        } catch (Exception e) {
+            // a file that is still being written may fail to parse in many ways; none of them may stop the watcher
+            LOGGER.warn(String.format(Messages.Log.UNABLE_TO_RELOAD_KEY_FILE_S, changedFile), e);
         }
-	    return this.servicePublicKey;
     }
 
-    public RSAPrivateKey getPrivateKey() throws InternalServerErrorException {
-        if (this.servicePrivateKey == null) {
-            if (this.privateKeyFilePath == null) throw new InternalServerErrorException(Messages.Exception.NO_PRIVATE_KEY_DEFINED);
+    /**
+     * Hot reloading is best effort: if the key file cannot be watched, the loaded key is simply kept.
+     */
+    private void watch(Path keyFilePath) {
+        Path directory = keyFilePath.getParent();
+        if (directory == null || this.watchedDirectories.contains(directory)) {
+            return;
+        }
+
+        try {
+            if (this.watchService == null) {
+                this.watchService = FileSystems.getDefault().newWatchService();
+                Thread watcherThread = new Thread(this::processWatchEvents, WATCHER_THREAD_NAME);
+                watcherThread.setDaemon(true);
+                watcherThread.start();
+            }
+            directory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            this.watchedDirectories.add(directory);
+        } catch (IOException e) {
+            LOGGER.warn(String.format(Messages.Log.UNABLE_TO_WATCH_KEY_FILE_S, keyFilePath), e);
+        }
+    }
+
+    private void processWatchEvents() {
+        while (true) {
+            WatchKey watchKey;
             try {
-                this.servicePrivateKey = CryptoUtil.getPrivateKey(this.privateKeyFilePath);
-            } catch (IOException | GeneralSecurityException e) {
-                throw new InternalServerErrorException(Messages.Exception.INVALID_PRIVATE_KEY);
+                watchKey = this.watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
             }
+
+            Path directory = (Path) watchKey.watchable();
+            for (WatchEvent<?> event : watchKey.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    reload(this.publicKeyFilePath);
+                    reload(this.privateKeyFilePath);
+                } else {
+                    reload(directory.resolve((Path) event.context()));
+                }
+            }
+            watchKey.reset();
+        }
+    }
+
+    private static Path toPath(String filePath) {
+        return filePath == null ? null : Paths.get(filePath).toAbsolutePath().normalize();
+    }
+
+    private static class KeysSnapshot {
+        private static final KeysSnapshot EMPTY = new KeysSnapshot(null, null);
+
+        private final RSAPublicKey publicKey;
+        private final RSAPrivateKey privateKey;
+
+        private KeysSnapshot(RSAPublicKey publicKey, RSAPrivateKey privateKey) {
+            this.publicKey = publicKey;
+            this.privateKey = privateKey;
+        }
+
+        private KeysSnapshot withPublicKey(RSAPublicKey publicKey) {
+            return new KeysSnapshot(publicKey, this.privateKey);
+        }
+
+        private KeysSnapshot withPrivateKey(RSAPrivateKey privateKey) {
+            return new KeysSnapshot(this.publicKey, privateKey);
         }
-        return this.servicePrivateKey;
     }
 }
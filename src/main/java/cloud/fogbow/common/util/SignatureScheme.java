@@ -0,0 +1,97 @@
+package cloud.fogbow.common.util;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+
+/**
+ * Signature algorithms supported by
+ * {@link CryptoUtil#sign(java.security.PrivateKey, String, SignatureScheme)}. The scheme identifier is prepended
+ * to the signature (e.g. <tt>ecdsa-p256:MEUCIQ...</tt>), so that a verifier can check signatures produced with
+ * different schemes, as long as it has the matching public key.
+ * <p>
+ * Signatures without a scheme identifier are the legacy {@link #RSA_SHA1} ones.
+ */
+public enum SignatureScheme {
+    RSA_SHA1("rsa-sha1", "SHA1withRSA", "RSA", 1024, null),
+    RSA_SHA256("rsa-sha256", "SHA256withRSA", "RSA", 2048, null),
+    ECDSA_P256("ecdsa-p256", "SHA256withECDSA", "EC", 256, "secp256r1"),
+    // Available when the JVM provides EdDSA (JDK 15 or later)
+    ED25519("ed25519", "Ed25519", "Ed25519", 255, null);
+
+    public static final String SCHEME_SEPARATOR = ":";
+
+    private final String id;
+    private final String signatureAlgorithm;
+    private final String keyAlgorithm;
+    private final int keySize;
+    private final String curveName;
+    private final ThreadLocal<Signature> signatures = new ThreadLocal<>();
+
+    SignatureScheme(String id, String signatureAlgorithm, String keyAlgorithm, int keySize, String curveName) {
+        this.id = id;
+        this.signatureAlgorithm = signatureAlgorithm;
+        this.keyAlgorithm = keyAlgorithm;
+        this.keySize = keySize;
+        this.curveName = curveName;
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public String getSignatureAlgorithm() {
+        return this.signatureAlgorithm;
+    }
+
+    public String getKeyAlgorithm() {
+        return this.keyAlgorithm;
+    }
+
+    /**
+     * @return whether the installed security providers implement this scheme.
+     */
+    public boolean isAvailable() {
+        try {
+            getSignature();
+            return true;
+        } catch (NoSuchAlgorithmException e) {
+            return false;
+        }
+    }
+
+    public KeyPair generateKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(this.keyAlgorithm);
+        if (this.curveName != null) {
+            keyPairGenerator.initialize(new ECGenParameterSpec(this.curveName));
+        } else if (!this.keyAlgorithm.equals(ED25519.keyAlgorithm)) {
+            keyPairGenerator.initialize(this.keySize);
+        }
+        return keyPairGenerator.generateKeyPair();
+    }
+
+    /**
+     * @return a Signature object for this scheme, reused by the calling thread. Signature objects are reset
+     * after each sign/verify, so they can be re-initialized with another key.
+     */
+    Signature getSignature() throws NoSuchAlgorithmException {
+        Signature signature = this.signatures.get();
+        if (signature == null) {
+            signature = Signature.getInstance(this.signatureAlgorithm);
+            this.signatures.set(signature);
+        }
+        return signature;
+    }
+
+    public static SignatureScheme fromId(String id) {
+        for (SignatureScheme scheme : values()) {
+            if (scheme.id.equals(id)) {
+                return scheme;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,260 @@
+package cloud.fogbow.common.util;
+
+import cloud.fogbow.common.constants.Messages;
+import cloud.fogbow.common.exceptions.InternalServerErrorException;
+import cloud.fogbow.common.models.SystemUser;
+import com.google.common.io.BaseEncoding;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact binary encoding of {@link SystemUser} tokens. A token is {@link #TOKEN_PREFIX} followed by the URL-safe,
+ * unpadded Base64 encoding of <tt>version | type id | fields</tt>, so it can be carried in HTTP headers as is, and
+ * is never mistaken for a JSON token. The type id identifies the concrete class through a table of registered
+ * {@link TypeCodec}s, instead of carrying its class name.
+ * <p>
+ * {@link SystemUser#serialize(SystemUser)} keeps producing JSON tokens unless the binary format is enabled with
+ * {@link #setBinaryFormatEnabled(boolean)}, while {@link SystemUser#deserialize(String)} always accepts both. During
+ * a rolling upgrade, it must only be enabled once every service that reads the tokens accepts the binary format.
+ * <p>
+ * {@link SystemUser} itself is registered with {@link #SYSTEM_USER_TYPE_ID}; services that extend it register
+ * their own subclasses, with ids of their choice, when they start. Only exact class matches are encoded, so an
+ * unregistered subclass never loses its extra fields: {@link SystemUser#serialize(SystemUser)} falls back to the
+ * JSON format for it.
+ */
+public class SystemUserCodec {
+    public static final byte FORMAT_VERSION = 1;
+    public static final int SYSTEM_USER_TYPE_ID = 0;
+    // Not in the Base64 alphabet, and never the first character of a JSON token
+    public static final String TOKEN_PREFIX = "~";
+
+    private static final BaseEncoding ENCODING = BaseEncoding.base64Url().omitPadding();
+    // Strings and sets are prefixed with their length plus one, so that zero stands for null
+    private static final int NULL_LENGTH = 0;
+
+    private static final Map<Integer, Registration<?>> registrationsById = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Registration<?>> registrationsByClass = new ConcurrentHashMap<>();
+    private static volatile boolean binaryFormatEnabled;
+
+    static {
+        register(SYSTEM_USER_TYPE_ID, SystemUser.class, new TypeCodec<SystemUser>() {
+            @Override
+            public void write(SystemUser systemUser, DataOutput out) throws IOException {
+                writeString(out, systemUser.getId());
+                writeString(out, systemUser.getName());
+                writeString(out, systemUser.getIdentityProviderId());
+                writeStringSet(out, systemUser.getUserRoles());
+            }
+
+            @Override
+            public SystemUser read(DataInput in) throws IOException {
+                SystemUser systemUser = new SystemUser(readString(in), readString(in), readString(in));
+                systemUser.setUserRoles(readStringSet(in));
+                return systemUser;
+            }
+        });
+    }
+
+    private SystemUserCodec() {
+    }
+
+    /**
+     * Writes and reads the fields of one concrete {@link SystemUser} class. {@link #writeString(DataOutput, String)}
+     * and its siblings may be used to encode the fields the same way the base codec does.
+     */
+    public interface TypeCodec<T extends SystemUser> {
+        void write(T systemUser, DataOutput out) throws IOException;
+
+        T read(DataInput in) throws IOException;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the type id or the class is already registered with something else.
+     */
+    public static synchronized <T extends SystemUser> void register(int typeId, Class<T> type, TypeCodec<T> codec) {
+        if (typeId < 0) {
+            throw new IllegalArgumentException(String.format(Messages.Exception.INVALID_SYSTEM_USER_TYPE_ID_D, typeId));
+        }
+        Registration<?> registeredWithId = registrationsById.get(typeId);
+        Registration<?> registeredWithClass = registrationsByClass.get(type);
+        if (registeredWithId != null || registeredWithClass != null) {
+            throw new IllegalArgumentException(String.format(
+                    Messages.Exception.SYSTEM_USER_TYPE_S_ALREADY_REGISTERED_WITH_ID_D, type.getName(), typeId));
+        }
+
+        Registration<T> registration = new Registration<>(typeId, type, codec);
+        registrationsById.put(typeId, registration);
+        registrationsByClass.put(type, registration);
+    }
+
+    public static boolean isRegistered(Class<? extends SystemUser> type) {
+        return registrationsByClass.containsKey(type);
+    }
+
+    public static void setBinaryFormatEnabled(boolean binaryFormatEnabled) {
+        SystemUserCodec.binaryFormatEnabled = binaryFormatEnabled;
+    }
+
+    public static boolean isBinaryFormatEnabled() {
+        return binaryFormatEnabled;
+    }
+
+    public static boolean isEncoded(String token) {
+        return token.startsWith(TOKEN_PREFIX);
+    }
+
+    public static String encode(SystemUser systemUser) throws InternalServerErrorException {
+        Registration<?> registration = registrationsByClass.get(systemUser.getClass());
+        if (registration == null) {
+            throw new InternalServerErrorException(Messages.Exception.UNABLE_TO_FIND_SYSTEM_USER_CLASS);
+        }
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(FORMAT_VERSION);
+            writeLength(out, registration.typeId);
+            registration.write(systemUser, out);
+            out.flush();
+            return TOKEN_PREFIX + ENCODING.encode(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new InternalServerErrorException(e.getMessage());
+        }
+    }
+
+    public static SystemUser decode(String token) throws InternalServerErrorException {
+        if (!isEncoded(token)) {
+            throw new InternalServerErrorException(Messages.Exception.INVALID_SERIALIZED_SYSTEM_USER);
+        }
+
+        byte[] bytes;
+        try {
+            bytes = ENCODING.decode(token.substring(TOKEN_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InternalServerErrorException(Messages.Exception.INVALID_SERIALIZED_SYSTEM_USER);
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        try {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new InternalServerErrorException(String.format(
+                        Messages.Exception.UNSUPPORTED_SYSTEM_USER_FORMAT_VERSION_D, version));
+            }
+            int typeId = readLength(in);
+            Registration<?> registration = registrationsById.get(typeId);
+            if (registration == null) {
+                throw new InternalServerErrorException(Messages.Exception.UNABLE_TO_FIND_SYSTEM_USER_CLASS);
+            }
+
+            SystemUser systemUser = registration.codec.read(in);
+            if (in.available() > 0) {
+                throw new InternalServerErrorException(Messages.Exception.INVALID_SERIALIZED_SYSTEM_USER);
+            }
+            return systemUser;
+        } catch (IOException e) {
+            throw new InternalServerErrorException(Messages.Exception.INVALID_SERIALIZED_SYSTEM_USER);
+        }
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeLength(out, NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeLength(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = readLength(in);
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[checkLength(in, length - 1)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeStringSet(DataOutput out, Set<String> values) throws IOException {
+        if (values == null) {
+            writeLength(out, NULL_LENGTH);
+            return;
+        }
+        writeLength(out, values.size() + 1);
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    public static Set<String> readStringSet(DataInput in) throws IOException {
+        int length = readLength(in);
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        int size = checkLength(in, length - 1);
+        Set<String> values = new HashSet<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    // Unsigned LEB128, so that short strings and small ids take a single byte
+    private static void writeLength(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readLength(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) break;
+                return value;
+            }
+        }
+        throw new IOException(Messages.Exception.INVALID_SERIALIZED_SYSTEM_USER);
+    }
+
+    // A length can never exceed what is left of the token, so a corrupted one must not trigger a huge allocation
+    private static int checkLength(DataInput in, int length) throws IOException {
+        if (in instanceof DataInputStream && length > ((DataInputStream) in).available()) {
+            throw new IOException(Messages.Exception.INVALID_SERIALIZED_SYSTEM_USER);
+        }
+        return length;
+    }
+
+    private static class Registration<T extends SystemUser> {
+        private final int typeId;
+        private final Class<T> type;
+        private final TypeCodec<T> codec;
+
+        Registration(int typeId, Class<T> type, TypeCodec<T> codec) {
+            this.typeId = typeId;
+            this.type = type;
+            this.codec = codec;
+        }
+
+        void write(SystemUser systemUser, DataOutput out) throws IOException {
+            this.codec.write(this.type.cast(systemUser), out);
+        }
+    }
+}
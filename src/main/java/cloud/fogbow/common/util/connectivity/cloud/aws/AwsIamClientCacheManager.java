@@ -0,0 +1,90 @@
+package cloud.fogbow.common.util.connectivity.cloud.aws;
+
+import cloud.fogbow.common.constants.Messages;
+import cloud.fogbow.common.exceptions.UnauthenticatedUserException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.log4j.Logger;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.iam.IamClient;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps one IamClient per pair of AWS credentials. All of them share a single SDK HTTP client, and so its
+ * connection pool, instead of each building (and never closing) its own. Clients evicted from the cache are
+ * closed; closing them does not close the shared HTTP client.
+ */
+public class AwsIamClientCacheManager {
+
+    private static final Logger LOGGER = Logger.getLogger(AwsIamClientCacheManager.class);
+
+    private static final long LIFE_TIME_IN_MINUTES = 30;
+    private static final long MAXIMUM_CACHED_CLIENTS = 256;
+    private static final int MAXIMUM_CONNECTIONS = 100;
+    private static final int SALT_SIZE = 16;
+
+    private static final SdkHttpClient httpClient;
+    private static final Cache<HashCode, IamClient> clientsCache;
+    // the secret access key is part of the cache key, so it is only kept hashed
+    private static final byte[] salt = new byte[SALT_SIZE];
+
+    static {
+        new SecureRandom().nextBytes(salt);
+        httpClient = ApacheHttpClient.builder()
+                .maxConnections(MAXIMUM_CONNECTIONS)
+                .build();
+        clientsCache = CacheBuilder.newBuilder()
+                .maximumSize(MAXIMUM_CACHED_CLIENTS)
+                .expireAfterAccess(LIFE_TIME_IN_MINUTES, TimeUnit.MINUTES)
+                .removalListener((RemovalListener<HashCode, IamClient>) notification -> notification.getValue().close())
+                .build();
+    }
+
+    public static IamClient getIamClient(String accessKey, String secretAccessKey) throws UnauthenticatedUserException {
+        try {
+            return clientsCache.get(hash(accessKey, secretAccessKey), () -> createIamClient(accessKey, secretAccessKey));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new UnauthenticatedUserException(e.getMessage());
+        }
+    }
+
+    /**
+     * Discards (and closes) the client of the given credentials, e.g. after they were rejected by AWS.
+     */
+    public static void invalidate(String accessKey, String secretAccessKey) {
+        clientsCache.invalidate(hash(accessKey, secretAccessKey));
+    }
+
+    @VisibleForTesting
+    static IamClient createIamClient(String accessKey, String secretAccessKey) {
+        LOGGER.debug(Messages.Log.CREATING_AWS_IAM_CLIENT);
+        AwsBasicCredentials awsCreds = AwsBasicCredentials.create(accessKey, secretAccessKey);
+        return IamClient.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(awsCreds))
+                .region(Region.AWS_GLOBAL)
+                .httpClient(httpClient)
+                .build();
+    }
+
+    private static HashCode hash(String accessKey, String secretAccessKey) {
+        return Hashing.sha256().newHasher()
+                .putBytes(salt)
+                .putInt(accessKey.length())
+                .putString(accessKey, StandardCharsets.UTF_8)
+                .putString(secretAccessKey, StandardCharsets.UTF_8)
+                .hash();
+    }
+}
@@ -0,0 +1,267 @@
+package cloud.fogbow.common.util.connectivity.cloud.cloudstack;
+
+import cloud.fogbow.common.constants.Messages;
+import cloud.fogbow.common.exceptions.FogbowException;
+import cloud.fogbow.common.exceptions.UnavailableProviderException;
+import cloud.fogbow.common.models.CloudStackUser;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Tracks CloudStack async jobs until they leave the {@link CloudStackQueryJobResult#PROCESSING} status, so that
+ * callers wait on a {@link CompletableFuture} instead of each polling queryAsyncJobResult on its own.
+ * <p>
+ * Each job is polled on its own schedule, starting at the initial poll interval and backing off, as the job ages,
+ * up to the maximum poll interval. Jobs of the same user are polled together, in a single task, whenever the
+ * earliest of them is due, so the polling load depends on the number of active jobs and users, and not on the
+ * number of threads waiting for them. A job tracked more than once is still polled only once.
+ * <p>
+ * The futures complete with the last response read, either {@link CloudStackQueryJobResult#SUCCESS} or
+ * {@link CloudStackQueryJobResult#FAILURE}; they complete exceptionally when the job could not be polled
+ * {@link #MAXIMUM_CONSECUTIVE_FAILURES} times in a row, or is still processing once it has been tracked for the
+ * maximum tracking time.
+ */
+public class CloudStackAsyncJobTracker {
+    private static final Logger LOGGER = Logger.getLogger(CloudStackAsyncJobTracker.class);
+
+    public static final long DEFAULT_INITIAL_POLL_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(1);
+    public static final long DEFAULT_MAXIMUM_POLL_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    public static final long DEFAULT_MAXIMUM_TRACKING_MILLIS = TimeUnit.HOURS.toMillis(1);
+    public static final int DEFAULT_POLLING_THREADS = 4;
+    public static final int MAXIMUM_CONSECUTIVE_FAILURES = 3;
+
+    private static final double BACKOFF_FACTOR = 1.5;
+    private static final String POLLING_THREAD_NAME_FORMAT = "cloudstack-async-job-poller-%d";
+
+    private final CloudStackHttpClient client;
+    private final String cloudStackUrl;
+    private final long initialPollIntervalMillis;
+    private final long maximumPollIntervalMillis;
+    private final long maximumTrackingMillis;
+    private final ScheduledThreadPoolExecutor scheduler;
+    // guarded by this
+    private final Map<String, UserJobs> jobsByUser = new HashMap<>();
+
+    public CloudStackAsyncJobTracker(CloudStackHttpClient client, String cloudStackUrl) {
+        this(client, cloudStackUrl, DEFAULT_INITIAL_POLL_INTERVAL_MILLIS, DEFAULT_MAXIMUM_POLL_INTERVAL_MILLIS,
+                DEFAULT_MAXIMUM_TRACKING_MILLIS, DEFAULT_POLLING_THREADS);
+    }
+
+    public CloudStackAsyncJobTracker(CloudStackHttpClient client, String cloudStackUrl, long initialPollIntervalMillis,
+                                     long maximumPollIntervalMillis, long maximumTrackingMillis, int pollingThreads) {
+        this.client = client;
+        this.cloudStackUrl = cloudStackUrl;
+        this.initialPollIntervalMillis = initialPollIntervalMillis;
+        this.maximumPollIntervalMillis = maximumPollIntervalMillis;
+        this.maximumTrackingMillis = maximumTrackingMillis;
+        this.scheduler = new ScheduledThreadPoolExecutor(pollingThreads, new ThreadFactoryBuilder()
+                .setNameFormat(POLLING_THREAD_NAME_FORMAT)
+                .setDaemon(true)
+                .build());
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Starts tracking the job, unless it is already tracked. Jobs are polled with the credentials of the user who
+     * most recently tracked a job of the same user id.
+     *
+     * @return a future completed once the job finishes; cancelling it does not stop the tracking.
+     */
+    public CompletableFuture<CloudStackQueryAsyncJobResponse> track(String jobId, CloudStackUser cloudStackUser) {
+        CompletableFuture<CloudStackQueryAsyncJobResponse> future;
+        synchronized (this) {
+            UserJobs userJobs = this.jobsByUser.computeIfAbsent(cloudStackUser.getId(), userId -> new UserJobs(userId));
+            userJobs.cloudStackUser = cloudStackUser;
+            TrackedJob job = userJobs.jobs.get(jobId);
+            if (job == null) {
+                long now = System.currentTimeMillis();
+                job = new TrackedJob(jobId, now + this.initialPollIntervalMillis, this.initialPollIntervalMillis,
+                        now + this.maximumTrackingMillis);
+                userJobs.jobs.put(jobId, job);
+                schedule(userJobs);
+            }
+            future = job.future;
+        }
+        // callers get their own dependent future, so that none of them can complete or cancel it for the others
+        return future.thenApply(Function.identity());
+    }
+
+    public synchronized int getTrackedJobsCount() {
+        int count = 0;
+        for (UserJobs userJobs : this.jobsByUser.values()) {
+            count += userJobs.jobs.size();
+        }
+        return count;
+    }
+
+    /**
+     * Stops polling; jobs still being tracked are cancelled.
+     */
+    public void shutdown() {
+        this.scheduler.shutdownNow();
+        List<TrackedJob> pendingJobs = new ArrayList<>();
+        synchronized (this) {
+            for (UserJobs userJobs : this.jobsByUser.values()) {
+                pendingJobs.addAll(userJobs.jobs.values());
+            }
+            this.jobsByUser.clear();
+        }
+        for (TrackedJob job : pendingJobs) {
+            job.future.cancel(false);
+        }
+    }
+
+    // must hold this
+    private void schedule(UserJobs userJobs) {
+        if (userJobs.polling || this.scheduler.isShutdown()) {
+            // the running poll reschedules the user's jobs when it finishes
+            return;
+        }
+        long nextPollTime = Long.MAX_VALUE;
+        for (TrackedJob job : userJobs.jobs.values()) {
+            nextPollTime = Math.min(nextPollTime, job.nextPollTime);
+        }
+        if (userJobs.scheduledPoll != null) {
+            if (userJobs.scheduledPollTime <= nextPollTime) {
+                return;
+            }
+            userJobs.scheduledPoll.cancel(false);
+        }
+        long delay = Math.max(0, nextPollTime - System.currentTimeMillis());
+        userJobs.scheduledPollTime = nextPollTime;
+        userJobs.scheduledPoll = this.scheduler.schedule(() -> poll(userJobs), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void poll(UserJobs userJobs) {
+        List<TrackedJob> dueJobs = new ArrayList<>();
+        CloudStackUser cloudStackUser;
+        synchronized (this) {
+            userJobs.scheduledPoll = null;
+            userJobs.polling = true;
+            long now = System.currentTimeMillis();
+            for (TrackedJob job : userJobs.jobs.values()) {
+                if (job.nextPollTime <= now) {
+                    dueJobs.add(job);
+                }
+            }
+            cloudStackUser = userJobs.cloudStackUser;
+        }
+
+        List<TrackedJob> finishedJobs = new ArrayList<>();
+        for (TrackedJob job : dueJobs) {
+            if (!Thread.currentThread().isInterrupted() && poll(job, cloudStackUser)) {
+                finishedJobs.add(job);
+            }
+        }
+
+        synchronized (this) {
+            userJobs.polling = false;
+            for (TrackedJob job : finishedJobs) {
+                userJobs.jobs.remove(job.jobId);
+            }
+            if (userJobs.jobs.isEmpty()) {
+                this.jobsByUser.remove(userJobs.userId, userJobs);
+            } else {
+                schedule(userJobs);
+            }
+        }
+
+        // completed outside the lock, as the futures run their callers' callbacks
+        for (TrackedJob job : finishedJobs) {
+            job.complete();
+        }
+    }
+
+    /*
+     * Returns whether the job finished, either because it left the PROCESSING status, because it could not be
+     * polled too many times in a row or because it was tracked for too long; otherwise, its next poll is backed off,
+     * but not beyond its tracking deadline.
+     */
+    private boolean poll(TrackedJob job, CloudStackUser cloudStackUser) {
+        try {
+            CloudStackQueryAsyncJobResponse response = queryAsyncJobResult(job.jobId, cloudStackUser);
+            if (response.getJobStatus() != CloudStackQueryJobResult.PROCESSING) {
+                job.response = response;
+                return true;
+            }
+            job.consecutiveFailures = 0;
+        } catch (FogbowException | RuntimeException e) {
+            LOGGER.warn(String.format(Messages.Log.UNABLE_TO_POLL_ASYNC_JOB_S, job.jobId), e);
+            if (++job.consecutiveFailures >= MAXIMUM_CONSECUTIVE_FAILURES) {
+                job.failure = e;
+                return true;
+            }
+        }
+        long now = System.currentTimeMillis();
+        if (now >= job.deadline) {
+            job.failure = new UnavailableProviderException(String.format(
+                    Messages.Exception.ASYNC_JOB_S_STILL_PROCESSING_AFTER_D_MILLIS, job.jobId, this.maximumTrackingMillis));
+            return true;
+        }
+        job.pollIntervalMillis = Math.min(this.maximumPollIntervalMillis, (long) (job.pollIntervalMillis * BACKOFF_FACTOR));
+        job.nextPollTime = Math.min(job.deadline, now + job.pollIntervalMillis);
+        return false;
+    }
+
+    private CloudStackQueryAsyncJobResponse queryAsyncJobResult(String jobId, CloudStackUser cloudStackUser)
+            throws FogbowException {
+        QueryAsyncJobResultRequest request = new QueryAsyncJobResultRequest.Builder()
+                .jobId(jobId)
+                .build(this.cloudStackUrl);
+
+        // the request is signed by the client
+        String jsonResponse = this.client.doGetRequest(request.getUriBuilder().toString(), cloudStackUser);
+        return CloudStackQueryAsyncJobResponse.fromJson(jsonResponse);
+    }
+
+    private static class UserJobs {
+        private final String userId;
+        private final Map<String, TrackedJob> jobs = new HashMap<>();
+        private CloudStackUser cloudStackUser;
+        private ScheduledFuture<?> scheduledPoll;
+        private long scheduledPollTime;
+        private boolean polling;
+
+        UserJobs(String userId) {
+            this.userId = userId;
+        }
+    }
+
+    private static class TrackedJob {
+        private final String jobId;
+        private final CompletableFuture<CloudStackQueryAsyncJobResponse> future = new CompletableFuture<>();
+        // when the job stops being tracked, if it is still processing
+        private final long deadline;
+        // written by the task polling the job, outside the lock, and read under it when scheduling polls
+        private volatile long nextPollTime;
+        private volatile long pollIntervalMillis;
+        private int consecutiveFailures;
+        private CloudStackQueryAsyncJobResponse response;
+        private Exception failure;
+
+        TrackedJob(String jobId, long nextPollTime, long pollIntervalMillis, long deadline) {
+            this.jobId = jobId;
+            this.nextPollTime = nextPollTime;
+            this.pollIntervalMillis = pollIntervalMillis;
+            this.deadline = deadline;
+        }
+
+        void complete() {
+            if (this.failure != null) {
+                this.future.completeExceptionally(this.failure);
+            } else {
+                this.future.complete(this.response);
+            }
+        }
+    }
+}
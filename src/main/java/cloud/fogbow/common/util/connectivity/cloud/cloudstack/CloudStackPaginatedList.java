@@ -0,0 +1,226 @@
+package cloud.fogbow.common.util.connectivity.cloud.cloudstack;
+
+import cloud.fogbow.common.exceptions.FogbowException;
+import cloud.fogbow.common.exceptions.InternalServerErrorException;
+import cloud.fogbow.common.models.CloudStackUser;
+import cloud.fogbow.common.util.GsonHolder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.apache.http.client.utils.URIBuilder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static cloud.fogbow.common.constants.CloudStackConstants.COUNT_KEY_JSON;
+import static cloud.fogbow.common.constants.CloudStackConstants.PAGE_KEY_JSON;
+import static cloud.fogbow.common.constants.CloudStackConstants.PAGE_SIZE_KEY_JSON;
+
+/**
+ * Lazily lists the results of a CloudStack list request, one page at a time. While a page is consumed, the next
+ * one is already being fetched in the background, and elements are read from the page with a streaming reader
+ * only as they are requested, so at most two pages, as returned by the cloud, are kept in memory.
+ * <p>
+ * For example, for listVirtualMachines the response key is "listvirtualmachinesresponse" and the elements key is
+ * "virtualmachine". Listing ends at the first page with fewer elements than the page size, or once the count
+ * reported by CloudStack has been listed.
+ * <p>
+ * Since iterators cannot throw checked exceptions, a page that cannot be fetched or parsed makes the iterator
+ * throw an {@link UncheckedExecutionException} whose cause is the {@link FogbowException}.
+ */
+public class CloudStackPaginatedList<T> implements Iterable<T> {
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    private static final String PREFETCH_THREAD_NAME_FORMAT = "cloudstack-page-prefetch-%d";
+    private static final int FIRST_PAGE = 1;
+
+    private static final Executor prefetchExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat(PREFETCH_THREAD_NAME_FORMAT)
+            .setDaemon(true)
+            .build());
+
+    private final CloudStackHttpClient client;
+    private final CloudStackUser cloudStackUser;
+    private final CloudStackRequest request;
+    private final String responseKey;
+    private final String elementsKey;
+    private final TypeAdapter<T> elementAdapter;
+    private final int pageSize;
+
+    public CloudStackPaginatedList(CloudStackHttpClient client, CloudStackUser cloudStackUser, CloudStackRequest request,
+                                   String responseKey, String elementsKey, Class<T> elementType) {
+        this(client, cloudStackUser, request, responseKey, elementsKey,
+                GsonHolder.getInstance().getAdapter(elementType), DEFAULT_PAGE_SIZE);
+    }
+
+    public CloudStackPaginatedList(CloudStackHttpClient client, CloudStackUser cloudStackUser, CloudStackRequest request,
+                                   String responseKey, String elementsKey, TypeAdapter<T> elementAdapter, int pageSize) {
+        this.client = client;
+        this.cloudStackUser = cloudStackUser;
+        this.request = request;
+        this.responseKey = responseKey;
+        this.elementsKey = elementsKey;
+        this.elementAdapter = elementAdapter;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @return an iterator that lists the results from the first page, fetching the first one right away.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new PageIterator();
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private CompletableFuture<String> fetchPage(int page) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                // each page gets its own copy of the url, so that the caller's request is left as it was
+                URIBuilder uriBuilder = new URIBuilder(this.request.getUriBuilder().build())
+                        .setParameter(PAGE_KEY_JSON, String.valueOf(page))
+                        .setParameter(PAGE_SIZE_KEY_JSON, String.valueOf(this.pageSize));
+                return this.client.doGetRequest(uriBuilder.toString(), this.cloudStackUser);
+            } catch (URISyntaxException e) {
+                throw new CompletionException(new InternalServerErrorException(e.getMessage()));
+            } catch (FogbowException e) {
+                throw new CompletionException(e);
+            }
+        }, prefetchExecutor);
+    }
+
+    private class PageIterator implements Iterator<T> {
+        private int nextPage = FIRST_PAGE;
+        private CompletableFuture<String> nextPageContent = fetchPage(FIRST_PAGE);
+        private JsonReader reader;
+        private int listedElements;
+        private int elementsInPage;
+        private int count = -1;
+        private boolean lastPage;
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (true) {
+                    if (this.reader != null) {
+                        if (this.reader.hasNext()) {
+                            return true;
+                        }
+                        closePage();
+                    }
+                    if (this.lastPage) {
+                        return false;
+                    }
+                    openPage();
+                }
+            } catch (IOException | IllegalStateException | JsonParseException e) {
+                this.lastPage = true;
+                this.reader = null;
+                throw new UncheckedExecutionException(new InternalServerErrorException(e.getMessage()));
+            }
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                T element = CloudStackPaginatedList.this.elementAdapter.read(this.reader);
+                this.elementsInPage++;
+                this.listedElements++;
+                return element;
+            } catch (IOException | IllegalStateException | JsonParseException e) {
+                this.lastPage = true;
+                this.reader = null;
+                throw new UncheckedExecutionException(new InternalServerErrorException(e.getMessage()));
+            }
+        }
+
+        private void openPage() throws IOException {
+            String content;
+            try {
+                content = this.nextPageContent.join();
+            } catch (CompletionException e) {
+                this.lastPage = true;
+                throw new UncheckedExecutionException(e.getCause());
+            } finally {
+                this.nextPageContent = null;
+            }
+            this.nextPage++;
+            this.elementsInPage = 0;
+            this.reader = new JsonReader(new StringReader(content));
+            if (!moveToElements()) {
+                // pages past the last one come without the elements
+                this.reader = null;
+                this.lastPage = true;
+            } else if (this.count < 0 || this.listedElements + CloudStackPaginatedList.this.pageSize < this.count) {
+                this.nextPageContent = fetchPage(this.nextPage);
+            } else {
+                // the count reported by the cloud is reached by the end of this page
+                this.lastPage = true;
+            }
+        }
+
+        private void closePage() throws IOException {
+            this.reader.close();
+            this.reader = null;
+            if (this.elementsInPage < CloudStackPaginatedList.this.pageSize) {
+                this.lastPage = true;
+            }
+            if (this.lastPage && this.nextPageContent != null) {
+                this.nextPageContent.cancel(false);
+                this.nextPageContent = null;
+            }
+        }
+
+        /*
+         * Reads the page up to the first element, skipping anything else. The count, when it comes before the
+         * elements, as CloudStack sends it, tells whether there is another page to fetch.
+         */
+        private boolean moveToElements() throws IOException {
+            this.reader.beginObject();
+            while (this.reader.hasNext()) {
+                if (!this.reader.nextName().equals(CloudStackPaginatedList.this.responseKey)
+                        || this.reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    this.reader.skipValue();
+                    continue;
+                }
+                this.reader.beginObject();
+                while (this.reader.hasNext()) {
+                    String name = this.reader.nextName();
+                    if (name.equals(COUNT_KEY_JSON) && this.reader.peek() == JsonToken.NUMBER) {
+                        this.count = this.reader.nextInt();
+                    } else if (name.equals(CloudStackPaginatedList.this.elementsKey)
+                            && this.reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        this.reader.beginArray();
+                        return true;
+                    } else {
+                        this.reader.skipValue();
+                    }
+                }
+                return false;
+            }
+            return false;
+        }
+    }
+}
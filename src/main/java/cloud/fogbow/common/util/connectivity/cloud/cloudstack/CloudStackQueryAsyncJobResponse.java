@@ -1,7 +1,13 @@
 package cloud.fogbow.common.util.connectivity.cloud.cloudstack;
 
 import cloud.fogbow.common.util.GsonHolder;
+import cloud.fogbow.common.util.JsonStreamingUtil;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 import static cloud.fogbow.common.constants.CloudStackConstants.PublicIp.*;
 
@@ -50,4 +56,57 @@ public class CloudStackQueryAsyncJobResponse {
         return response.jobInstanceId;
     }
 
+    /**
+     * Streaming adapter registered in {@link GsonHolder}, so that parsing does not rely on reflection.
+     */
+    public static class JsonAdapter extends TypeAdapter<CloudStackQueryAsyncJobResponse> {
+        @Override
+        public void write(JsonWriter out, CloudStackQueryAsyncJobResponse asyncJobResponse) throws IOException {
+            out.beginObject();
+            if (asyncJobResponse.response != null) {
+                out.name(QUERY_ASYNC_JOB_RESULT_KEY_JSON).beginObject()
+                        .name(JOB_STATUS_KEY_JSON).value(asyncJobResponse.response.jobStatus)
+                        .name(JOB_INSTANCE_ID_KEY_JSON).value(asyncJobResponse.response.jobInstanceId)
+                        .endObject();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public CloudStackQueryAsyncJobResponse read(JsonReader in) throws IOException {
+            CloudStackQueryAsyncJobResponse asyncJobResponse = new CloudStackQueryAsyncJobResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals(QUERY_ASYNC_JOB_RESULT_KEY_JSON)) {
+                    asyncJobResponse.response = readResponse(in, asyncJobResponse);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return asyncJobResponse;
+        }
+
+        private QueryAsyncJobResultResponse readResponse(JsonReader in, CloudStackQueryAsyncJobResponse asyncJobResponse)
+                throws IOException {
+            if (JsonStreamingUtil.nextNullIfPresent(in)) return null;
+
+            QueryAsyncJobResultResponse response = asyncJobResponse.new QueryAsyncJobResultResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case JOB_STATUS_KEY_JSON:
+                        response.jobStatus = JsonStreamingUtil.nextIntOrZero(in);
+                        break;
+                    case JOB_INSTANCE_ID_KEY_JSON:
+                        response.jobInstanceId = JsonStreamingUtil.nextStringOrNull(in);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+            return response;
+        }
+    }
 }
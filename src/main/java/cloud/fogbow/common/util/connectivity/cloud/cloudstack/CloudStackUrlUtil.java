@@ -3,19 +3,30 @@ package cloud.fogbow.common.util.connectivity.cloud.cloudstack;
 import cloud.fogbow.common.constants.CloudStackConstants;
 import cloud.fogbow.common.constants.Messages;
 import cloud.fogbow.common.exceptions.InternalServerErrorException;
-import cloud.fogbow.common.exceptions.InvalidParameterException;
 import cloud.fogbow.common.exceptions.UnauthorizedRequestException;
-import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.io.Charsets;
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.http.NameValuePair;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.message.BasicNameValuePair;
 import org.apache.log4j.Logger;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
-import java.security.Key;
-import java.util.Map.Entry;
-import java.util.TreeMap;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Signs CloudStack API requests. The signature is the base64 encoded HmacSHA1, keyed by the user's secret key, of
+ * the request parameters form encoded, lowercased and sorted by name. The canonical query is built directly from
+ * the parameters, and each thread keeps an initialized Mac for the secret keys it recently signed with, so that
+ * signing a request does not render and parse URLs nor set a key up again.
+ */
 public class CloudStackUrlUtil {
     private static final Logger LOGGER = Logger.getLogger(CloudStackUrlUtil.class);
 
@@ -24,6 +35,17 @@ public class CloudStackUrlUtil {
     private static final String RESPONSE_FORMAT = "response";
     private static final String SIGNATURE = "signature";
     private static final String API_KEY = "apikey";
+    private static final String HMAC_SHA1 = "HmacSHA1";
+    private static final int MAXIMUM_CACHED_MACS_PER_THREAD = 32;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private static final ThreadLocal<Map<String, Mac>> macs = ThreadLocal.withInitial(
+            () -> new LinkedHashMap<String, Mac>(MAXIMUM_CACHED_MACS_PER_THREAD, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Mac> eldest) {
+                    return size() > MAXIMUM_CACHED_MACS_PER_THREAD;
+                }
+            });
 
     public static void sign(URIBuilder requestEndpoint, String tokenValue) throws UnauthorizedRequestException {
         String[] tokenValueSplit = tokenValue.split(CloudStackConstants.KEY_VALUE_SEPARATOR);
@@ -31,49 +53,48 @@ public class CloudStackUrlUtil {
         String secretKey = tokenValueSplit[1];
 
         requestEndpoint.addParameter(API_KEY, apiKey);
+        String signature = generateSignature(requestEndpoint.getQueryParams(), secretKey);
+        requestEndpoint.addParameter(SIGNATURE, signature);
+    }
 
-        String query = null;
-        try {
-            query = requestEndpoint.toString().substring(
-                    requestEndpoint.toString().indexOf("?") + 1);
-        } catch (IndexOutOfBoundsException e) {
-            LOGGER.info(Messages.Log.UNABLE_TO_GENERATE_SIGNATURE, e);
-            throw new UnauthorizedRequestException();
-        }
+    /**
+     * Same as {@link #sign(URIBuilder, String)}, but for a URL that is already rendered: its query is parsed once,
+     * and the api key and signature are appended to it, leaving the rest of the URL untouched.
+     */
+    public static String sign(String url, String tokenValue) throws UnauthorizedRequestException {
+        String[] tokenValueSplit = tokenValue.split(CloudStackConstants.KEY_VALUE_SEPARATOR);
+        String apiKey = tokenValueSplit[0];
+        String secretKey = tokenValueSplit[1];
 
-        String[] querySplit = query.split("&");
-        TreeMap<String, String> queryParts = new TreeMap<String, String>();
-        for (String queryPart : querySplit) {
-            String[] queryPartSplit = queryPart.split("=");
-            queryParts.put(queryPartSplit[0].toLowerCase(),
-                    queryPartSplit[1].toLowerCase());
+        int queryEnd = url.indexOf('#');
+        if (queryEnd < 0) {
+            queryEnd = url.length();
         }
-
-        StringBuilder orderedQuery = new StringBuilder();
-        for (Entry<String, String> queryPartEntry : queryParts.entrySet()) {
-            if (orderedQuery.length() > 0) {
-                orderedQuery.append("&");
-            }
-            orderedQuery.append(queryPartEntry.getKey()).append("=")
-                    .append(queryPartEntry.getValue());
+        // the query starts after the first '?', unless that one is already part of the fragment
+        int queryStart = url.indexOf('?') + 1;
+        if (queryStart > queryEnd) {
+            queryStart = 0;
         }
 
-        try {
-            Mac mac = Mac.getInstance("HmacSHA1");
-            byte[] secretKeyBytes = secretKey.getBytes(Charsets.UTF_8);
-            Key key = new SecretKeySpec(secretKeyBytes, 0, secretKeyBytes.length, "HmacSHA1");
-            mac.init(key);
-            String signature = Base64.encodeBase64String(
-                    mac.doFinal(orderedQuery.toString().getBytes(Charsets.UTF_8)));
-
-            requestEndpoint.addParameter(SIGNATURE, signature);
-        } catch (Exception e) {
-            LOGGER.warn(Messages.Log.UNABLE_TO_GENERATE_SIGNATURE, e);
-            throw new UnauthorizedRequestException();
+        List<NameValuePair> parameters = queryStart == 0 ? new ArrayList<>() :
+                URLEncodedUtils.parse(url.substring(queryStart, queryEnd), StandardCharsets.UTF_8);
+        parameters.add(new BasicNameValuePair(API_KEY, apiKey));
+        String signature = generateSignature(parameters, secretKey);
+
+        StringBuilder signedUrl = new StringBuilder(url.length() + apiKey.length() + signature.length() + 32);
+        signedUrl.append(url, 0, queryEnd);
+        if (queryStart == 0) {
+            signedUrl.append('?');
+        } else if (queryStart < queryEnd) {
+            signedUrl.append('&');
         }
+        signedUrl.append(API_KEY).append('=');
+        appendFormEncoded(signedUrl, apiKey, false);
+        signedUrl.append('&').append(SIGNATURE).append('=');
+        appendFormEncoded(signedUrl, signature, false);
+        return signedUrl.append(url, queryEnd, url.length()).toString();
     }
 
-
     public static URIBuilder createURIBuilder(String endpoint, String command) throws InternalServerErrorException {
         try {
             URIBuilder uriBuilder = new URIBuilder(endpoint);
@@ -84,4 +105,123 @@ public class CloudStackUrlUtil {
             throw new InternalServerErrorException(String.format(Messages.Exception.WRONG_SYNTAX_FOR_ENDPOINT_S, endpoint));
         }
     }
+
+    @VisibleForTesting
+    static String generateSignature(List<NameValuePair> parameters, String secretKey) throws UnauthorizedRequestException {
+        try {
+            Mac mac = getMac(secretKey);
+            byte[] digest = mac.doFinal(buildCanonicalQuery(parameters).getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (Exception e) {
+            LOGGER.warn(Messages.Log.UNABLE_TO_GENERATE_SIGNATURE, e);
+            throw new UnauthorizedRequestException();
+        }
+    }
+
+    /*
+     * Parameters are form encoded exactly as URIBuilder renders them, lowercased, and sorted by name. When a name
+     * is repeated, only its last value is signed.
+     */
+    @VisibleForTesting
+    static String buildCanonicalQuery(List<NameValuePair> parameters) {
+        int size = parameters.size();
+        String[] names = new String[size];
+        String[] values = new String[size];
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            NameValuePair parameter = parameters.get(i);
+            builder.setLength(0);
+            names[i] = appendFormEncoded(builder, parameter.getName(), true).toString();
+            builder.setLength(0);
+            values[i] = appendFormEncoded(builder, parameter.getValue(), true).toString();
+        }
+
+        // a stable insertion sort, so that the last value of a repeated name stays the last one
+        for (int i = 1; i < size; i++) {
+            String name = names[i];
+            String value = values[i];
+            int j = i - 1;
+            while (j >= 0 && names[j].compareTo(name) > 0) {
+                names[j + 1] = names[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            names[j + 1] = name;
+            values[j + 1] = value;
+        }
+
+        builder.setLength(0);
+        for (int i = 0; i < size; i++) {
+            if (i + 1 < size && names[i + 1].equals(names[i])) {
+                continue;
+            }
+            if (builder.length() > 0) {
+                builder.append('&');
+            }
+            builder.append(names[i]).append('=').append(values[i]);
+        }
+        return builder.toString();
+    }
+
+    private static Mac getMac(String secretKey) throws GeneralSecurityException {
+        Map<String, Mac> threadMacs = macs.get();
+        Mac mac = threadMacs.get(secretKey);
+        if (mac == null) {
+            byte[] secretKeyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
+            mac = Mac.getInstance(HMAC_SHA1);
+            mac.init(new SecretKeySpec(secretKeyBytes, 0, secretKeyBytes.length, HMAC_SHA1));
+            threadMacs.put(secretKey, mac);
+        }
+        return mac;
+    }
+
+    /*
+     * The same www-form-urlencoded UTF-8 encoding URLEncodedUtils uses: letters, digits and "_-.*" are kept, spaces
+     * become '+' and every other byte is percent encoded. Malformed surrogates are encoded as '?', as the charset
+     * encoder replaces them.
+     */
+    private static StringBuilder appendFormEncoded(StringBuilder builder, String content, boolean lowerCase) {
+        if (content == null) {
+            return builder;
+        }
+        int length = content.length();
+        for (int i = 0; i < length; i++) {
+            char c = content.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_' || c == '-' || c == '.' || c == '*') {
+                builder.append(c);
+            } else if (c >= 'A' && c <= 'Z') {
+                builder.append(lowerCase ? (char) (c + ('a' - 'A')) : c);
+            } else if (c == ' ') {
+                builder.append('+');
+            } else if (c < 0x80) {
+                appendPercentEncoded(builder, c, lowerCase);
+            } else if (c < 0x800) {
+                appendPercentEncoded(builder, 0xC0 | (c >> 6), lowerCase);
+                appendPercentEncoded(builder, 0x80 | (c & 0x3F), lowerCase);
+            } else if (!Character.isSurrogate(c)) {
+                appendPercentEncoded(builder, 0xE0 | (c >> 12), lowerCase);
+                appendPercentEncoded(builder, 0x80 | ((c >> 6) & 0x3F), lowerCase);
+                appendPercentEncoded(builder, 0x80 | (c & 0x3F), lowerCase);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(content.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, content.charAt(++i));
+                appendPercentEncoded(builder, 0xF0 | (codePoint >> 18), lowerCase);
+                appendPercentEncoded(builder, 0x80 | ((codePoint >> 12) & 0x3F), lowerCase);
+                appendPercentEncoded(builder, 0x80 | ((codePoint >> 6) & 0x3F), lowerCase);
+                appendPercentEncoded(builder, 0x80 | (codePoint & 0x3F), lowerCase);
+            } else {
+                appendPercentEncoded(builder, '?', lowerCase);
+            }
+        }
+        return builder;
+    }
+
+    private static void appendPercentEncoded(StringBuilder builder, int octet, boolean lowerCase) {
+        char high = HEX_DIGITS[(octet >> 4) & 0xF];
+        char low = HEX_DIGITS[octet & 0xF];
+        if (lowerCase) {
+            high = Character.toLowerCase(high);
+            low = Character.toLowerCase(low);
+        }
+        builder.append('%').append(high).append(low);
+    }
 }
@@ -0,0 +1,64 @@
+package cloud.fogbow.common.util.connectivity.cloud.opennebula;
+
+import cloud.fogbow.common.exceptions.FogbowException;
+import cloud.fogbow.common.exceptions.InstanceNotFoundException;
+import cloud.fogbow.common.exceptions.InternalServerErrorException;
+import cloud.fogbow.common.exceptions.UnauthorizedRequestException;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-id outcomes of a batched OpenNebula request: for each requested id, either the fetched element or the
+ * exception that the equivalent single-element request would have thrown.
+ */
+public class OpenNebulaBatchResult<T> {
+
+	private final Map<String, T> elements = new HashMap<>();
+	private final Map<String, FogbowException> failures = new HashMap<>();
+
+	void addElement(String id, T element) {
+		this.elements.put(id, element);
+	}
+
+	void addFailure(String id, FogbowException failure) {
+		this.failures.put(id, failure);
+	}
+
+	public Set<String> getIds() {
+		Set<String> ids = new HashSet<>(this.elements.keySet());
+		ids.addAll(this.failures.keySet());
+		return ids;
+	}
+
+	public Map<String, T> getElements() {
+		return Collections.unmodifiableMap(this.elements);
+	}
+
+	public Map<String, FogbowException> getFailures() {
+		return Collections.unmodifiableMap(this.failures);
+	}
+
+	/**
+	 * @return the element with the given id, or throws what fetching it alone would have thrown.
+	 */
+	public T get(String id) throws UnauthorizedRequestException, InstanceNotFoundException, InternalServerErrorException {
+		T element = this.elements.get(id);
+		if (element != null) {
+			return element;
+		}
+
+		FogbowException failure = this.failures.get(id);
+		if (failure == null || failure instanceof InstanceNotFoundException) {
+			throw failure == null ? new InstanceNotFoundException() : (InstanceNotFoundException) failure;
+		} else if (failure instanceof UnauthorizedRequestException) {
+			throw (UnauthorizedRequestException) failure;
+		} else if (failure instanceof InternalServerErrorException) {
+			throw (InternalServerErrorException) failure;
+		}
+		throw new InternalServerErrorException(failure.getMessage());
+	}
+}
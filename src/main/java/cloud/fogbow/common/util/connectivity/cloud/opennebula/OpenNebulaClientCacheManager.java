@@ -0,0 +1,66 @@
+package cloud.fogbow.common.util.connectivity.cloud.opennebula;
+
+import cloud.fogbow.common.constants.Messages;
+import cloud.fogbow.common.exceptions.InternalServerErrorException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.log4j.Logger;
+import org.opennebula.client.Client;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps one OpenNebula Client per endpoint and token, so that requests made with the same token reuse the
+ * same XML-RPC client (which is thread safe) instead of configuring a new one each time.
+ */
+public class OpenNebulaClientCacheManager {
+
+    private static final Logger LOGGER = Logger.getLogger(OpenNebulaClientCacheManager.class);
+
+    private static final long LIFE_TIME_IN_MINUTES = 30;
+    private static final long MAXIMUM_CACHED_CLIENTS = 256;
+    private static final int SALT_SIZE = 16;
+
+    private static final Cache<HashCode, Client> clientsCache;
+    // the token carries the user's password, so it is only kept hashed
+    private static final byte[] salt = new byte[SALT_SIZE];
+
+    static {
+        new SecureRandom().nextBytes(salt);
+        clientsCache = CacheBuilder.newBuilder()
+                .maximumSize(MAXIMUM_CACHED_CLIENTS)
+                .expireAfterAccess(LIFE_TIME_IN_MINUTES, TimeUnit.MINUTES)
+                .build();
+    }
+
+    public static Client getClient(String endpoint, String tokenValue) throws InternalServerErrorException {
+        try {
+            return clientsCache.get(hash(endpoint, tokenValue), () -> new Client(tokenValue, endpoint));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            LOGGER.error(Messages.Log.ERROR_WHILE_CREATING_CLIENT, e.getCause());
+            throw new InternalServerErrorException(Messages.Exception.ERROR_WHILE_CREATING_CLIENT);
+        }
+    }
+
+    /**
+     * Discards the client of the given endpoint and token, e.g. after the token was rejected.
+     */
+    public static void invalidate(String endpoint, String tokenValue) {
+        clientsCache.invalidate(hash(endpoint, tokenValue));
+    }
+
+    private static HashCode hash(String endpoint, String tokenValue) {
+        return Hashing.sha256().newHasher()
+                .putBytes(salt)
+                .putInt(endpoint == null ? -1 : endpoint.length())
+                .putString(String.valueOf(endpoint), StandardCharsets.UTF_8)
+                .putString(String.valueOf(tokenValue), StandardCharsets.UTF_8)
+                .hash();
+    }
+}
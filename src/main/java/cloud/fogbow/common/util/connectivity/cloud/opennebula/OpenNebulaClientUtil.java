@@ -4,59 +4,125 @@ import cloud.fogbow.common.constants.Messages;
 import cloud.fogbow.common.exceptions.InternalServerErrorException;
 import org.apache.log4j.Logger;
 import org.opennebula.client.Client;
-import org.opennebula.client.ClientConfigurationException;
 import org.opennebula.client.OneResponse;
 import org.opennebula.client.Pool;
 import org.opennebula.client.PoolElement;
 import org.opennebula.client.group.GroupPool;
 import org.opennebula.client.image.ImagePool;
 import org.opennebula.client.secgroup.SecurityGroup;
+import org.opennebula.client.secgroup.SecurityGroupPool;
 import org.opennebula.client.template.TemplatePool;
+import org.opennebula.client.user.User;
 import org.opennebula.client.user.UserPool;
 import org.opennebula.client.vm.VirtualMachine;
+import org.opennebula.client.vm.VirtualMachinePool;
 import org.opennebula.client.vnet.VirtualNetwork;
+import org.opennebula.client.vnet.VirtualNetworkPool;
 
+import cloud.fogbow.common.exceptions.FogbowException;
 import cloud.fogbow.common.exceptions.InstanceNotFoundException;
 import cloud.fogbow.common.exceptions.InvalidParameterException;
 import cloud.fogbow.common.exceptions.UnauthorizedRequestException;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
 public class OpenNebulaClientUtil {
 
 	private static final Logger LOGGER = Logger.getLogger(OpenNebulaClientUtil.class);
 	
 	protected static final String RESPONSE_NOT_AUTHORIZED = "Not authorized";
 	protected static final String RESPONSE_DONE = "DONE";
+	// OpenNebula resolves the id -1 to the user making the request
+	private static final int SELF_USER_ID = -1;
+	// Pool filter for all the resources the user is allowed to see
+	private static final int ALL_RESOURCES_FILTER = -2;
+	// Virtual machine pool state filter for any state but DONE
+	private static final int ANY_STATE_BUT_DONE = -1;
+	// Larger ranges would make pool responses carry too many elements that were not requested
+	private static final int MAXIMUM_ID_RANGE = 500;
 
+	/**
+	 * Clients are cached per endpoint and token, so the same client may be returned to different callers.
+	 */
 	public static Client createClient(String endpoint, String tokenValue) throws InternalServerErrorException {
-		try {
-			return new Client(tokenValue, endpoint);
-		} catch (ClientConfigurationException e) {
-			LOGGER.error(Messages.Log.ERROR_WHILE_CREATING_CLIENT, e);
-			throw new InternalServerErrorException(Messages.Exception.ERROR_WHILE_CREATING_CLIENT);
-		}
+		return OpenNebulaClientCacheManager.getClient(endpoint, tokenValue);
+	}
+
+	/**
+	 * Fetches the information of the user the client is authenticated as. It is a single-user request, so it is
+	 * the cheapest way to check whether the client's credentials are valid.
+	 */
+	public static OneResponse getSelfUserInfo(Client client) {
+		return User.info(client, SELF_USER_ID);
 	}
 
 	public static VirtualMachine getVirtualMachine(Client client, String virtualMachineId)
 			throws UnauthorizedRequestException, InstanceNotFoundException, InternalServerErrorException {
 
 		VirtualMachine virtualMachine = (VirtualMachine) generateOnePoolElement(client, virtualMachineId, VirtualMachine.class);
-		OneResponse response = virtualMachine.info();
-		if (response.isError()) {
-			String message = response.getErrorMessage();
-			LOGGER.error(String.format(Messages.Log.ERROR_MESSAGE_IS_S, message));
-			// Not authorized to perform
-			if (message.contains(RESPONSE_NOT_AUTHORIZED)) {
-				throw new UnauthorizedRequestException();
-			}
-			// Error getting virtual machine
-			throw new InstanceNotFoundException(message);
-		} else if (RESPONSE_DONE.equals(virtualMachine.stateStr())) {
+		checkInfoResponse(virtualMachine.info());
+		if (RESPONSE_DONE.equals(virtualMachine.stateStr())) {
 			// The instance is not active anymore
 			throw new InstanceNotFoundException();
 		}
 		return virtualMachine;
 	}
 
+	public static VirtualNetwork getVirtualNetwork(Client client, String virtualNetworkId)
+			throws UnauthorizedRequestException, InstanceNotFoundException, InternalServerErrorException {
+
+		VirtualNetwork virtualNetwork = (VirtualNetwork) generateOnePoolElement(client, virtualNetworkId, VirtualNetwork.class);
+		checkInfoResponse(virtualNetwork.info());
+		return virtualNetwork;
+	}
+
+	public static SecurityGroup getSecurityGroup(Client client, String securityGroupId)
+			throws UnauthorizedRequestException, InstanceNotFoundException, InternalServerErrorException {
+
+		SecurityGroup securityGroup = (SecurityGroup) generateOnePoolElement(client, securityGroupId, SecurityGroup.class);
+		checkInfoResponse(securityGroup.info());
+		return securityGroup;
+	}
+
+	/**
+	 * Fetches many virtual machines with one pool request per range of ids, instead of one request per virtual
+	 * machine. Each id gets the same outcome {@link #getVirtualMachine(Client, String)} would give it.
+	 */
+	public static OpenNebulaBatchResult<VirtualMachine> getVirtualMachines(Client client, Collection<String> virtualMachineIds) {
+		return getPoolElements(client, virtualMachineIds, (startId, endId) -> {
+			VirtualMachinePool virtualMachinePool = new VirtualMachinePool(client);
+			// DONE virtual machines are left out, as they are not found by getVirtualMachine either
+			OneResponse response = virtualMachinePool.info(ALL_RESOURCES_FILTER, startId, endId, ANY_STATE_BUT_DONE);
+			return readPool(virtualMachinePool, response);
+		}, OpenNebulaClientUtil::getVirtualMachine);
+	}
+
+	/**
+	 * Batched counterpart of {@link #getVirtualNetwork(Client, String)}.
+	 */
+	public static OpenNebulaBatchResult<VirtualNetwork> getVirtualNetworks(Client client, Collection<String> virtualNetworkIds) {
+		return getPoolElements(client, virtualNetworkIds, (startId, endId) -> {
+			VirtualNetworkPool virtualNetworkPool = new VirtualNetworkPool(client);
+			return readPool(virtualNetworkPool, virtualNetworkPool.info(ALL_RESOURCES_FILTER, startId, endId));
+		}, OpenNebulaClientUtil::getVirtualNetwork);
+	}
+
+	/**
+	 * Batched counterpart of {@link #getSecurityGroup(Client, String)}.
+	 */
+	public static OpenNebulaBatchResult<SecurityGroup> getSecurityGroups(Client client, Collection<String> securityGroupIds) {
+		return getPoolElements(client, securityGroupIds, (startId, endId) -> {
+			SecurityGroupPool securityGroupPool = new SecurityGroupPool(client);
+			return readPool(securityGroupPool, securityGroupPool.info(ALL_RESOURCES_FILTER, startId, endId));
+		}, OpenNebulaClientUtil::getSecurityGroup);
+	}
+
 	public static UserPool getUserPool(Client client) throws InternalServerErrorException {
 		UserPool userpool = (UserPool) generateOnePool(client, UserPool.class);
  		OneResponse response = userpool.info();
@@ -68,6 +134,88 @@ public class OpenNebulaClientUtil {
 		return userpool;
 	}
 
+	private static void checkInfoResponse(OneResponse response)
+			throws UnauthorizedRequestException, InstanceNotFoundException {
+
+		if (response.isError()) {
+			String message = response.getErrorMessage();
+			LOGGER.error(String.format(Messages.Log.ERROR_MESSAGE_IS_S, message));
+			// Not authorized to perform
+			if (message.contains(RESPONSE_NOT_AUTHORIZED)) {
+				throw new UnauthorizedRequestException();
+			}
+			// Error getting the element
+			throw new InstanceNotFoundException(message);
+		}
+	}
+
+	/*
+	 * The ids are sorted and split into ranges of at most MAXIMUM_ID_RANGE ids, each fetched with a single pool
+	 * request. Ids missing from the pool response (e.g. deleted, or not visible to the user) are fetched one by
+	 * one, so that they fail exactly as they would have when fetched alone. Different ids may denote the same number
+	 * (e.g. "1" and "01"), and each of them gets the outcome of that number.
+	 */
+	private static <T extends PoolElement> OpenNebulaBatchResult<T> getPoolElements(Client client, Collection<String> ids,
+			PoolRangeReader<T> poolRangeReader, PoolElementReader<T> poolElementReader) {
+
+		OpenNebulaBatchResult<T> result = new OpenNebulaBatchResult<>();
+		TreeMap<Integer, List<String>> idsByNumber = new TreeMap<>();
+		for (String id : ids) {
+			try {
+				idsByNumber.computeIfAbsent(Integer.parseInt(id), number -> new ArrayList<>()).add(id);
+			} catch (NumberFormatException e) {
+				LOGGER.error(String.format(Messages.Log.ERROR_WHILE_CONVERTING_INSTANCE_ID_S, id), e);
+				result.addFailure(id, new InternalServerErrorException(String.format(Messages.Exception.ERROR_WHILE_CONVERTING_INSTANCE_ID_S, id)));
+			}
+		}
+
+		while (!idsByNumber.isEmpty()) {
+			int startId = idsByNumber.firstKey();
+			// saturated, as ids near Integer.MAX_VALUE would overflow the range's end
+			int lastRangeId = (int) Math.min((long) startId + MAXIMUM_ID_RANGE - 1, Integer.MAX_VALUE);
+			NavigableMap<Integer, List<String>> range = idsByNumber.subMap(startId, true, lastRangeId, true);
+			Map<Integer, T> elements = poolRangeReader.read(startId, range.lastKey());
+			for (Map.Entry<Integer, List<String>> entry : range.entrySet()) {
+				for (String id : entry.getValue()) {
+					T element = elements.get(entry.getKey());
+					if (element == null) {
+						try {
+							element = poolElementReader.read(client, id);
+						} catch (FogbowException e) {
+							result.addFailure(id, e);
+							continue;
+						}
+					}
+					result.addElement(id, element);
+				}
+			}
+			range.clear();
+		}
+		return result;
+	}
+
+	private static <T extends PoolElement> Map<Integer, T> readPool(Pool pool, OneResponse response) {
+		Map<Integer, T> elements = new HashMap<>();
+		if (response.isError()) {
+			// the ids are then fetched one by one, which tells each of them why it failed
+			LOGGER.warn(String.format(Messages.Log.ERROR_MESSAGE_IS_S, response.getErrorMessage()));
+			return elements;
+		}
+		for (int i = 0; i < pool.getLength(); i++) {
+			T element = (T) pool.item(i);
+			elements.put(element.id(), element);
+		}
+		return elements;
+	}
+
+	private interface PoolRangeReader<T extends PoolElement> {
+		Map<Integer, T> read(int startId, int endId);
+	}
+
+	private interface PoolElementReader<T extends PoolElement> {
+		T read(Client client, String id) throws FogbowException;
+	}
+
 	protected static PoolElement generateOnePoolElement(Client client, String poolElementId, Class classType)
 			throws InternalServerErrorException {
 		
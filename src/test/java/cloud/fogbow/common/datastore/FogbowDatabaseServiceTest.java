@@ -0,0 +1,289 @@
+package cloud.fogbow.common.datastore;
+
+import cloud.fogbow.common.exceptions.InternalServerErrorException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import javax.persistence.Column;
+import javax.persistence.Id;
+import javax.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class FogbowDatabaseServiceTest {
+
+    private static final int MAX_BATCH_SIZE = 3;
+    private static final int MAX_VALUE_LENGTH = 8;
+    private static final long MAX_LATENCY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private FogbowDatabaseService<FakeEntity> databaseService;
+    private JpaRepository<FakeEntity, String> repository;
+    private List<List<FakeEntity>> savedBatches;
+
+    @Before
+    public void setUp() {
+        this.databaseService = new FogbowDatabaseService<>();
+        this.repository = Mockito.mock(JpaRepository.class);
+        this.savedBatches = new ArrayList<>();
+        Mockito.when(this.repository.saveAll(Mockito.any(Iterable.class))).thenAnswer(invocation -> {
+            this.savedBatches.add(new ArrayList<>((List<FakeEntity>) invocation.getArguments()[0]));
+            return null;
+        });
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        this.databaseService.disableWriteBehind();
+    }
+
+    // test case: When write-behind is disabled, safeSaveLater must save the object at once.
+    @Test
+    public void testSafeSaveLaterWithoutWriteBehind() throws Exception {
+        // set up
+        FakeEntity entity = new FakeEntity("fake-id", "fake-value");
+
+        // exercise
+        CompletableFuture<Void> future = this.databaseService.safeSaveLater(entity, this.repository);
+
+        // verify
+        Assert.assertTrue(future.isDone());
+        Mockito.verify(this.repository).save(entity);
+    }
+
+    // test case: When updates of the same entity are queued, only its latest state must be saved, in a single
+    // batch with the other queued objects, and every future must complete once saved.
+    @Test
+    public void testQueuedUpdatesAreCoalescedAndBatched() throws Exception {
+        // set up
+        this.databaseService.enableWriteBehind(MAX_BATCH_SIZE, MAX_LATENCY_MILLIS);
+        FakeEntity first = new FakeEntity("first-id", "old-value");
+        FakeEntity firstUpdated = new FakeEntity("first-id", "new-value");
+        FakeEntity second = new FakeEntity("second-id", "fake-value");
+
+        // exercise
+        CompletableFuture<Void> firstFuture = this.databaseService.safeSaveLater(first, this.repository);
+        CompletableFuture<Void> secondFuture = this.databaseService.safeSaveLater(second, this.repository);
+        CompletableFuture<Void> updatedFuture = this.databaseService.safeSaveLater(firstUpdated, this.repository);
+        Assert.assertFalse(firstFuture.isDone());
+        this.databaseService.flush();
+
+        // verify
+        Assert.assertEquals(Arrays.asList(Arrays.asList(firstUpdated, second)), this.savedBatches);
+        Assert.assertTrue(firstFuture.isDone() && secondFuture.isDone() && updatedFuture.isDone());
+        Mockito.verify(this.repository, Mockito.never()).save(Mockito.any(FakeEntity.class));
+    }
+
+    // test case: When as many objects as the maximum batch size are queued, they must be saved without waiting
+    // for the maximum latency.
+    @Test
+    public void testFullBatchIsSavedAtOnce() throws Exception {
+        // set up
+        this.databaseService.enableWriteBehind(MAX_BATCH_SIZE, MAX_LATENCY_MILLIS);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        // exercise
+        for (int i = 0; i < MAX_BATCH_SIZE; i++) {
+            futures.add(this.databaseService.safeSaveLater(new FakeEntity("id-" + i, "value"), this.repository));
+        }
+
+        // verify
+        for (CompletableFuture<Void> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        Assert.assertEquals(1, this.savedBatches.size());
+        Assert.assertEquals(MAX_BATCH_SIZE, this.savedBatches.get(0).size());
+    }
+
+    // test case: When a batch fails, its objects must be saved one by one, and only the ones that cannot be saved
+    // must fail.
+    @Test
+    public void testFailedBatchIsSavedOneByOne() throws Exception {
+        // set up
+        this.databaseService.enableWriteBehind(MAX_BATCH_SIZE, MAX_LATENCY_MILLIS);
+        FakeEntity valid = new FakeEntity("valid-id", "fake-value");
+        FakeEntity invalid = new FakeEntity("invalid-id", "fake-value");
+        Mockito.doThrow(new RuntimeException()).when(this.repository).saveAll(Mockito.any(Iterable.class));
+        Mockito.when(this.repository.save(invalid)).thenThrow(new RuntimeException());
+
+        // exercise
+        CompletableFuture<Void> validFuture = this.databaseService.safeSaveLater(valid, this.repository);
+        CompletableFuture<Void> invalidFuture = this.databaseService.safeSaveLater(invalid, this.repository);
+        this.databaseService.flush();
+
+        // verify
+        validFuture.get();
+        try {
+            invalidFuture.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof InternalServerErrorException);
+        }
+        Mockito.verify(this.repository).save(valid);
+    }
+
+    // test case: When an object is saved synchronously while an older state of it is queued, the queued state
+    // must not be saved afterwards.
+    @Test
+    public void testSafeSaveReplacesQueuedState() throws Exception {
+        // set up
+        this.databaseService.enableWriteBehind(MAX_BATCH_SIZE, MAX_LATENCY_MILLIS);
+        FakeEntity queued = new FakeEntity("fake-id", "old-value");
+        FakeEntity saved = new FakeEntity("fake-id", "new-value");
+        CompletableFuture<Void> queuedFuture = this.databaseService.safeSaveLater(queued, this.repository);
+
+        // exercise
+        this.databaseService.safeSave(saved, this.repository);
+        this.databaseService.flush();
+
+        // verify
+        Assert.assertTrue(queuedFuture.isDone());
+        Assert.assertTrue(this.savedBatches.isEmpty());
+        Mockito.verify(this.repository).save(saved);
+    }
+
+    // test case: When an object is saved synchronously while a batch holding an older state of it is being saved,
+    // the synchronous save must wait for the batch, so that the older state does not overwrite the newer one.
+    @Test
+    public void testSafeSaveWaitsForInFlightBatch() throws Exception {
+        // set up
+        this.databaseService.enableWriteBehind(MAX_BATCH_SIZE, MAX_LATENCY_MILLIS);
+        FakeEntity queued = new FakeEntity("fake-id", "old");
+        FakeEntity saved = new FakeEntity("fake-id", "new");
+        List<String> savedValues = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch batchStarted = new CountDownLatch(1);
+        CountDownLatch batchReleased = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            batchStarted.countDown();
+            batchReleased.await();
+            for (FakeEntity entity : (List<FakeEntity>) invocation.getArguments()[0]) {
+                savedValues.add(entity.getValue());
+            }
+            return null;
+        }).when(this.repository).saveAll(Mockito.any(Iterable.class));
+        Mockito.doAnswer(invocation -> {
+            savedValues.add(((FakeEntity) invocation.getArguments()[0]).getValue());
+            return null;
+        }).when(this.repository).save(Mockito.any(FakeEntity.class));
+
+        CompletableFuture<Void> queuedFuture = this.databaseService.safeSaveLater(queued, this.repository);
+        Thread flushThread = new Thread(() -> {
+            try {
+                this.databaseService.flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        flushThread.start();
+        Assert.assertTrue(batchStarted.await(10, TimeUnit.SECONDS));
+
+        // exercise
+        CompletableFuture<Void> savedFuture = CompletableFuture.runAsync(() -> {
+            try {
+                this.databaseService.safeSave(saved, this.repository);
+            } catch (InternalServerErrorException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        // without waiting for the batch, the synchronous save would be done by now
+        Thread.sleep(100);
+        batchReleased.countDown();
+
+        // verify
+        savedFuture.get(10, TimeUnit.SECONDS);
+        flushThread.join();
+        queuedFuture.get();
+        Assert.assertEquals(Arrays.asList("old", "new"), savedValues);
+    }
+
+    // test case: When a durability callback saves the object its batch has just saved, or flushes, it must not wait
+    // for that batch, so that the write-behind thread keeps saving.
+    @Test
+    public void testDurabilityCallbackMaySaveAgain() throws Exception {
+        // set up
+        // a full batch is saved at once
+        this.databaseService.enableWriteBehind(1, MAX_LATENCY_MILLIS);
+        FakeEntity queued = new FakeEntity("fake-id", "old");
+        FakeEntity saved = new FakeEntity("fake-id", "new");
+        CompletableFuture<Void> callbackFuture = this.databaseService.safeSaveLater(queued, this.repository)
+                .thenRun(() -> {
+                    try {
+                        this.databaseService.safeSave(saved, this.repository);
+                        this.databaseService.flush();
+                    } catch (InternalServerErrorException | InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+
+        // exercise
+        // a callback waiting for its own batch would never complete
+        callbackFuture.get(10, TimeUnit.SECONDS);
+
+        // verify
+        this.databaseService.disableWriteBehind();
+        Mockito.verify(this.repository, Mockito.times(1)).save(Mockito.eq(saved));
+    }
+
+    // test case: When a field is longer than its size constraint, it must be truncated in place before the first
+    // save, so that the object is saved only once.
+    @Test
+    public void testOversizedFieldIsTruncatedBeforeSaving() throws InternalServerErrorException {
+        // set up
+        FakeEntity entity = new FakeEntity("fake-id", "a-value-longer-than-allowed");
+
+        // exercise
+        this.databaseService.safeSave(entity, this.repository);
+
+        // verify
+        Assert.assertEquals("a-value-", entity.getValue());
+        Mockito.verify(this.repository, Mockito.times(1)).save(Mockito.any(FakeEntity.class));
+        Mockito.verify(this.repository, Mockito.never()).flush();
+    }
+
+    // test case: When a queued object has a field longer than its size constraint, it must be truncated before
+    // its batch is saved.
+    @Test
+    public void testOversizedFieldIsTruncatedBeforeSavingBatch() throws Exception {
+        // set up
+        this.databaseService.enableWriteBehind(MAX_BATCH_SIZE, MAX_LATENCY_MILLIS);
+        FakeEntity entity = new FakeEntity("fake-id", "a-value-longer-than-allowed");
+
+        // exercise
+        CompletableFuture<Void> future = this.databaseService.safeSaveLater(entity, this.repository);
+        this.databaseService.flush();
+
+        // verify
+        future.get();
+        Assert.assertEquals("a-value-", this.savedBatches.get(0).get(0).getValue());
+    }
+
+    public static class FakeEntity {
+        @Id
+        private String id;
+
+        @Column
+        @Size(max = MAX_VALUE_LENGTH)
+        private String value;
+
+        public FakeEntity() {
+        }
+
+        FakeEntity(String id, String value) {
+            this.id = id;
+            this.value = value;
+        }
+
+        String getValue() {
+            return this.value;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package cloud.fogbow.common.plugins.authorization;
+
+import cloud.fogbow.common.exceptions.UnauthorizedRequestException;
+import cloud.fogbow.common.models.FogbowOperation;
+import cloud.fogbow.common.models.SystemUser;
+import cloud.fogbow.common.util.stubs.FakeTicker;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+public class CachingAuthorizationPluginTest {
+
+    private static final long TIME_TO_LIVE_MILLIS = 1000;
+    private static final long MAXIMUM_SIZE = 10;
+
+    private AuthorizationPlugin<FogbowOperation> plugin;
+    private FakeTicker ticker;
+    private CachingAuthorizationPlugin<FogbowOperation> cachingPlugin;
+    private SystemUser systemUser;
+
+    @Before
+    public void setUp() {
+        this.plugin = Mockito.mock(AuthorizationPlugin.class);
+        this.ticker = new FakeTicker();
+        this.cachingPlugin = new CachingAuthorizationPlugin<>(this.plugin, TIME_TO_LIVE_MILLIS, MAXIMUM_SIZE,
+                this.ticker);
+        this.systemUser = createSystemUser("fake-user-id", "fake-role");
+    }
+
+    // test case: When the same user performs the same operation twice within the time to live, the decorated
+    // plugin must be called only once; after the time to live, it must be called again.
+    @Test
+    public void testDecisionIsCachedUntilTimeToLive() throws UnauthorizedRequestException {
+        // set up
+        FogbowOperation operation = new KeyedOperation("fake-key");
+        Mockito.when(this.plugin.isAuthorized(Mockito.any(), Mockito.any())).thenReturn(true);
+
+        // exercise
+        boolean firstDecision = this.cachingPlugin.isAuthorized(this.systemUser, operation);
+        boolean secondDecision = this.cachingPlugin.isAuthorized(this.systemUser, new KeyedOperation("fake-key"));
+        this.ticker.advance(TIME_TO_LIVE_MILLIS);
+        this.cachingPlugin.isAuthorized(this.systemUser, operation);
+
+        // verify
+        Assert.assertTrue(firstDecision);
+        Assert.assertTrue(secondDecision);
+        Mockito.verify(this.plugin, Mockito.times(2)).isAuthorized(Mockito.any(), Mockito.any());
+        Assert.assertEquals(1.0 / 3, this.cachingPlugin.getHitRate(), 0.001);
+    }
+
+    // test case: When operations have different keys, or the user has different roles, or the operation has no
+    // key, the decorated plugin must be called each time.
+    @Test
+    public void testDifferentRequestsAreNotShared() throws UnauthorizedRequestException {
+        // set up
+        Mockito.when(this.plugin.isAuthorized(Mockito.any(), Mockito.any())).thenReturn(false);
+        SystemUser otherRoles = createSystemUser("fake-user-id", "other-role");
+
+        // exercise
+        this.cachingPlugin.isAuthorized(this.systemUser, new KeyedOperation("fake-key"));
+        this.cachingPlugin.isAuthorized(this.systemUser, new KeyedOperation("other-key"));
+        this.cachingPlugin.isAuthorized(otherRoles, new KeyedOperation("fake-key"));
+        this.cachingPlugin.isAuthorized(this.systemUser, new FogbowOperation());
+        this.cachingPlugin.isAuthorized(this.systemUser, new FogbowOperation());
+
+        // verify
+        Mockito.verify(this.plugin, Mockito.times(5)).isAuthorized(Mockito.any(), Mockito.any());
+        Assert.assertEquals(0, this.cachingPlugin.getStats().hitCount());
+    }
+
+    // test case: When a user is invalidated, its decisions must be evaluated again, while the decisions of other
+    // users must still be cached.
+    @Test
+    public void testInvalidateUser() throws UnauthorizedRequestException {
+        // set up
+        FogbowOperation operation = new KeyedOperation("fake-key");
+        SystemUser otherUser = createSystemUser("other-user-id", "fake-role");
+        Mockito.when(this.plugin.isAuthorized(Mockito.any(), Mockito.any())).thenReturn(true);
+        this.cachingPlugin.isAuthorized(this.systemUser, operation);
+        this.cachingPlugin.isAuthorized(otherUser, operation);
+
+        // exercise
+        this.cachingPlugin.invalidate(createSystemUser("fake-user-id", "another-role"));
+        this.cachingPlugin.isAuthorized(this.systemUser, operation);
+        this.cachingPlugin.isAuthorized(otherUser, operation);
+
+        // verify
+        Mockito.verify(this.plugin, Mockito.times(2)).isAuthorized(Mockito.eq(this.systemUser), Mockito.any());
+        Mockito.verify(this.plugin, Mockito.times(1)).isAuthorized(Mockito.eq(otherUser), Mockito.any());
+    }
+
+    // test case: When the decorated plugin throws, the exception must reach the caller and must not be cached.
+    @Test
+    public void testFailuresAreNotCached() throws UnauthorizedRequestException {
+        // set up
+        FogbowOperation operation = new KeyedOperation("fake-key");
+        Mockito.when(this.plugin.isAuthorized(Mockito.any(), Mockito.any()))
+                .thenThrow(new UnauthorizedRequestException())
+                .thenReturn(true);
+
+        // exercise
+        try {
+            this.cachingPlugin.isAuthorized(this.systemUser, operation);
+            Assert.fail();
+        } catch (UnauthorizedRequestException e) {
+            // expected
+        }
+        boolean authorized = this.cachingPlugin.isAuthorized(this.systemUser, operation);
+
+        // verify
+        Assert.assertTrue(authorized);
+        Mockito.verify(this.plugin, Mockito.times(2)).isAuthorized(Mockito.any(), Mockito.any());
+    }
+
+    // test case: When a batch of operations is authorized, the cached decisions must be taken from the cache, and
+    // the decorated plugin must be asked about the others in a single batch, whose decisions must be cached.
+    @Test
+    public void testBatchAsksOnlyMissedOperations() throws UnauthorizedRequestException {
+        // set up
+        List<List<FogbowOperation>> batches = new ArrayList<>();
+        AuthorizationPlugin<FogbowOperation> plugin = new AuthorizationPlugin<FogbowOperation>() {
+            @Override
+            public boolean isAuthorized(SystemUser systemUser, FogbowOperation operation) {
+                return !"denied-key".equals(operation.getCacheKey());
+            }
+
+            @Override
+            public boolean[] areAuthorized(SystemUser systemUser, List<FogbowOperation> operations)
+                    throws UnauthorizedRequestException {
+                batches.add(operations);
+                return AuthorizationPlugin.super.areAuthorized(systemUser, operations);
+            }
+        };
+        CachingAuthorizationPlugin<FogbowOperation> cachingPlugin = new CachingAuthorizationPlugin<>(plugin,
+                TIME_TO_LIVE_MILLIS, MAXIMUM_SIZE, this.ticker);
+        FogbowOperation cached = new KeyedOperation("fake-key");
+        FogbowOperation denied = new KeyedOperation("denied-key");
+        FogbowOperation notCacheable = new FogbowOperation();
+        cachingPlugin.isAuthorized(this.systemUser, cached);
+
+        // exercise
+        boolean[] decisions = cachingPlugin.areAuthorized(this.systemUser, Arrays.asList(cached, denied, notCacheable));
+        boolean deniedAgain = cachingPlugin.isAuthorized(this.systemUser, denied);
+
+        // verify
+        Assert.assertArrayEquals(new boolean[] {true, false, true}, decisions);
+        Assert.assertFalse(deniedAgain);
+        Assert.assertEquals(Collections.singletonList(Arrays.asList(denied, notCacheable)), batches);
+        Assert.assertEquals(2, cachingPlugin.getStats().hitCount());
+    }
+
+    private SystemUser createSystemUser(String userId, String role) {
+        SystemUser systemUser = new SystemUser(userId, "fake-user-name", "fake-provider");
+        systemUser.setUserRoles(new HashSet<>(Collections.singletonList(role)));
+        return systemUser;
+    }
+
+    private static class KeyedOperation extends FogbowOperation {
+        private final String key;
+
+        KeyedOperation(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getCacheKey() {
+            return this.key;
+        }
+    }
+}
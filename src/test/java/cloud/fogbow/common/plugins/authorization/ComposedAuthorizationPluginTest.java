@@ -0,0 +1,201 @@
+package cloud.fogbow.common.plugins.authorization;
+
+import cloud.fogbow.common.exceptions.UnauthorizedRequestException;
+import cloud.fogbow.common.models.FogbowOperation;
+import cloud.fogbow.common.models.SystemUser;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ComposedAuthorizationPluginTest {
+
+    private static final long PLUGIN_TIMEOUT_MILLIS = 200;
+    private static final long SLOW_PLUGIN_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private SystemUser systemUser;
+    private FogbowOperation operation;
+
+    @Before
+    public void setUp() {
+        this.systemUser = new SystemUser("fake-user-id", "fake-user-name", "fake-provider");
+        this.operation = new FogbowOperation();
+    }
+
+    // test case: When every plugin authorizes the operation in parallel mode, it must be authorized.
+    @Test
+    public void testParallelEvaluationAuthorizes() throws UnauthorizedRequestException {
+        // set up
+        ComposedAuthorizationPlugin<FogbowOperation> plugin = new ComposedAuthorizationPlugin<>(
+                Arrays.asList(createPlugin(true), createPlugin(true)), PLUGIN_TIMEOUT_MILLIS);
+
+        // exercise
+        boolean authorized = plugin.isAuthorized(this.systemUser, this.operation);
+
+        // verify
+        Assert.assertTrue(authorized);
+    }
+
+    // test case: When a plugin denies the operation in parallel mode, it must be denied without waiting for the
+    // slower plugins, which must be interrupted.
+    @Test
+    public void testParallelEvaluationShortCircuitsOnDeny() throws Exception {
+        // set up
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AuthorizationPlugin<FogbowOperation> slowPlugin = (systemUser, operation) -> {
+            started.countDown();
+            try {
+                Thread.sleep(SLOW_PLUGIN_MILLIS);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return true;
+        };
+        ComposedAuthorizationPlugin<FogbowOperation> plugin = new ComposedAuthorizationPlugin<>(
+                Arrays.asList(slowPlugin, createPlugin(false)), SLOW_PLUGIN_MILLIS * 2);
+
+        // exercise
+        long start = System.currentTimeMillis();
+        boolean authorized = plugin.isAuthorized(this.systemUser, this.operation);
+
+        // verify
+        Assert.assertFalse(authorized);
+        Assert.assertTrue(System.currentTimeMillis() - start < SLOW_PLUGIN_MILLIS);
+        // the deny may arrive before the slow plugin starts, in which case it is cancelled without ever running
+        if (started.await(SLOW_PLUGIN_MILLIS, TimeUnit.MILLISECONDS)) {
+            Assert.assertTrue(interrupted.await(SLOW_PLUGIN_MILLIS, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    // test case: When a plugin does not answer within the timeout in parallel mode, the operation must be denied.
+    @Test
+    public void testParallelEvaluationTimeoutDenies() throws UnauthorizedRequestException {
+        // set up
+        AuthorizationPlugin<FogbowOperation> slowPlugin = (systemUser, operation) -> {
+            try {
+                Thread.sleep(SLOW_PLUGIN_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        };
+        ComposedAuthorizationPlugin<FogbowOperation> plugin = new ComposedAuthorizationPlugin<>(
+                Arrays.asList(createPlugin(true), slowPlugin), PLUGIN_TIMEOUT_MILLIS);
+
+        // exercise
+        boolean authorized = plugin.isAuthorized(this.systemUser, this.operation);
+
+        // verify
+        Assert.assertFalse(authorized);
+    }
+
+    // test case: When a plugin throws an UnauthorizedRequestException in parallel mode, it must be thrown as it
+    // would have been in sequential mode.
+    @Test(expected = UnauthorizedRequestException.class) // verify
+    public void testParallelEvaluationRethrowsPluginException() throws UnauthorizedRequestException {
+        // set up
+        AuthorizationPlugin<FogbowOperation> failingPlugin = Mockito.mock(AuthorizationPlugin.class);
+        Mockito.when(failingPlugin.isAuthorized(Mockito.any(), Mockito.any())).thenThrow(new UnauthorizedRequestException());
+        ComposedAuthorizationPlugin<FogbowOperation> plugin = new ComposedAuthorizationPlugin<>(
+                Arrays.asList(createPlugin(true), failingPlugin), PLUGIN_TIMEOUT_MILLIS);
+
+        // exercise
+        plugin.isAuthorized(this.systemUser, this.operation);
+    }
+
+    // test case: When ordering adaptively, a cheap plugin that denies most operations must end up being asked
+    // before an expensive one that authorizes them all, without changing the outcome.
+    @Test
+    public void testAdaptiveOrderingAsksCheapDenyingPluginFirst() throws Exception {
+        // set up
+        AuthorizationPlugin<FogbowOperation> expensivePlugin = Mockito.mock(AuthorizationPlugin.class);
+        Mockito.when(expensivePlugin.isAuthorized(Mockito.any(), Mockito.any())).thenAnswer(invocation -> {
+            Thread.sleep(1);
+            return true;
+        });
+        AuthorizationPlugin<FogbowOperation> denyingPlugin = createPlugin(false);
+        ComposedAuthorizationPlugin<FogbowOperation> plugin = new ComposedAuthorizationPlugin<>(
+                Arrays.asList(expensivePlugin, denyingPlugin), 0);
+        plugin.setAdaptiveOrdering(true);
+
+        // exercise
+        for (int i = 0; i < 100; i++) {
+            Assert.assertFalse(plugin.isAuthorized(this.systemUser, this.operation));
+        }
+        Assert.assertFalse(plugin.isAuthorized(this.systemUser, this.operation));
+
+        // verify
+        Assert.assertEquals(Arrays.asList(denyingPlugin, expensivePlugin), plugin.getAdaptiveOrder());
+        Mockito.verify(expensivePlugin, Mockito.times(100)).isAuthorized(Mockito.any(), Mockito.any());
+        Mockito.verify(denyingPlugin, Mockito.times(101)).isAuthorized(Mockito.any(), Mockito.any());
+    }
+
+    // test case: When a batch of operations is authorized sequentially, each plugin must be asked in a single
+    // batch only about the operations every previous plugin authorized, and only the operations all of them
+    // authorized must be authorized.
+    @Test
+    public void testBatchEvaluationNarrowsTheBatch() throws UnauthorizedRequestException {
+        // set up
+        FogbowOperation first = new FogbowOperation();
+        FogbowOperation second = new FogbowOperation();
+        FogbowOperation third = new FogbowOperation();
+        List<List<FogbowOperation>> secondPluginBatches = new ArrayList<>();
+        AuthorizationPlugin<FogbowOperation> firstPlugin = (systemUser, operation) -> operation != second;
+        AuthorizationPlugin<FogbowOperation> secondPlugin = new AuthorizationPlugin<FogbowOperation>() {
+            @Override
+            public boolean isAuthorized(SystemUser systemUser, FogbowOperation operation) {
+                return operation != third;
+            }
+
+            @Override
+            public boolean[] areAuthorized(SystemUser systemUser, List<FogbowOperation> operations)
+                    throws UnauthorizedRequestException {
+                secondPluginBatches.add(operations);
+                return AuthorizationPlugin.super.areAuthorized(systemUser, operations);
+            }
+        };
+        ComposedAuthorizationPlugin<FogbowOperation> plugin = new ComposedAuthorizationPlugin<>(
+                Arrays.asList(firstPlugin, secondPlugin), 0);
+
+        // exercise
+        boolean[] decisions = plugin.areAuthorized(this.systemUser, Arrays.asList(first, second, third));
+
+        // verify
+        Assert.assertArrayEquals(new boolean[] {true, false, false}, decisions);
+        Assert.assertEquals(Collections.singletonList(Arrays.asList(first, third)), secondPluginBatches);
+    }
+
+    // test case: When a batch of operations is authorized in parallel, only the operations every plugin authorized
+    // must be authorized.
+    @Test
+    public void testParallelBatchEvaluation() throws UnauthorizedRequestException {
+        // set up
+        FogbowOperation first = new FogbowOperation();
+        FogbowOperation second = new FogbowOperation();
+        FogbowOperation third = new FogbowOperation();
+        AuthorizationPlugin<FogbowOperation> firstPlugin = (systemUser, operation) -> operation != second;
+        AuthorizationPlugin<FogbowOperation> secondPlugin = (systemUser, operation) -> operation != third;
+        ComposedAuthorizationPlugin<FogbowOperation> plugin = new ComposedAuthorizationPlugin<>(
+                Arrays.asList(firstPlugin, secondPlugin), PLUGIN_TIMEOUT_MILLIS);
+
+        // exercise
+        boolean[] decisions = plugin.areAuthorized(this.systemUser, Arrays.asList(first, second, third));
+
+        // verify
+        Assert.assertArrayEquals(new boolean[] {true, false, false}, decisions);
+    }
+
+    private AuthorizationPlugin<FogbowOperation> createPlugin(boolean authorized) throws UnauthorizedRequestException {
+        AuthorizationPlugin<FogbowOperation> plugin = Mockito.mock(AuthorizationPlugin.class);
+        Mockito.when(plugin.isAuthorized(Mockito.any(), Mockito.any())).thenReturn(authorized);
+        return plugin;
+    }
+}
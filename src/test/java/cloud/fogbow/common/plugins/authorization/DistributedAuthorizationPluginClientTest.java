@@ -0,0 +1,275 @@
+package cloud.fogbow.common.plugins.authorization;
+
+import cloud.fogbow.common.models.RestfulFogbowOperation;
+import cloud.fogbow.common.models.SystemUser;
+import cloud.fogbow.common.util.stubs.FakeTicker;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpStatus;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class DistributedAuthorizationPluginClientTest {
+
+    private static final String BATCH_PATH = "/authorize";
+    private static final String DECISION_PATH = "/decide";
+    private static final int READ_TIMEOUT_MILLIS = 200;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    // written by the server's threads
+    private final List<String> requestBodies = new CopyOnWriteArrayList<>();
+    private String batchResponse;
+    private volatile int decisionStatus;
+    private volatile String decisionResponse;
+    private volatile long decisionDelayMillis;
+    // when set, decisions are only answered once it is released
+    private volatile CountDownLatch decisionReleased;
+    private FakeTicker ticker;
+    private DistributedAuthorizationPluginClient plugin;
+    private SystemUser systemUser;
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext(BATCH_PATH, exchange -> {
+            this.requestBodies.add(new Scanner(exchange.getRequestBody(), "UTF-8").useDelimiter("\\A").next());
+            byte[] response = this.batchResponse.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        this.server.createContext(DECISION_PATH, exchange -> {
+            this.requestBodies.add(exchange.getRequestURI().getPath());
+            try {
+                Thread.sleep(this.decisionDelayMillis);
+                if (this.decisionReleased != null) {
+                    this.decisionReleased.await();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] response = this.decisionResponse.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(this.decisionStatus, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        this.serverExecutor = Executors.newCachedThreadPool();
+        this.server.setExecutor(this.serverExecutor);
+        this.server.start();
+        this.decisionStatus = HttpStatus.SC_OK;
+        this.decisionResponse = "true";
+
+        this.ticker = new FakeTicker();
+        this.plugin = new DistributedAuthorizationPluginClient(this.ticker) {};
+        this.plugin.setReadTimeoutMillis(READ_TIMEOUT_MILLIS);
+        this.plugin.setServerUrl(getServerUrl());
+        this.plugin.setBatchUrl(getServerUrl() + BATCH_PATH);
+        this.systemUser = new SystemUser("fake-user-id", "fake-user-name", "fake-provider");
+    }
+
+    @After
+    public void tearDown() {
+        this.server.stop(0);
+        this.serverExecutor.shutdownNow();
+    }
+
+    // test case: When a batch of operations is authorized, a single request with their endpoints must be sent to
+    // the batch URL, and its decisions must be returned in the same order.
+    @Test
+    public void testBatchIsSentInSingleRequest() {
+        // set up
+        this.batchResponse = "[true,false]";
+
+        // exercise
+        boolean[] decisions = this.plugin.areAuthorized(this.systemUser,
+                Arrays.asList(createOperation("http://fake/first"), createOperation("http://fake/second")));
+
+        // verify
+        Assert.assertArrayEquals(new boolean[] {true, false}, decisions);
+        Assert.assertEquals(Collections.singletonList("[\"http://fake/first\",\"http://fake/second\"]"),
+                this.requestBodies);
+    }
+
+    // test case: When no batch URL is set, a batch of operations must be authorized one operation at a time, on
+    // their own endpoints.
+    @Test
+    public void testBatchWithoutBatchUrlIsAuthorizedPerOperation() {
+        // set up
+        this.plugin.setBatchUrl(null);
+        this.decisionResponse = "false";
+
+        // exercise
+        boolean[] decisions = this.plugin.areAuthorized(this.systemUser, Arrays.asList(
+                createOperation(getServerUrl() + DECISION_PATH + "/first"),
+                createOperation(getServerUrl() + DECISION_PATH + "/second")));
+
+        // verify
+        Assert.assertArrayEquals(new boolean[] {false, false}, decisions);
+        Assert.assertEquals(Arrays.asList(DECISION_PATH + "/first", DECISION_PATH + "/second"), this.requestBodies);
+    }
+
+    // test case: When the server answers a different number of decisions, every operation must be denied.
+    @Test
+    public void testUnexpectedBatchResponseDeniesAll() {
+        // set up
+        this.batchResponse = "[true]";
+
+        // exercise
+        boolean[] decisions = this.plugin.areAuthorized(this.systemUser,
+                Arrays.asList(createOperation("http://fake/first"), createOperation("http://fake/second")));
+
+        // verify
+        Assert.assertArrayEquals(new boolean[] {false, false}, decisions);
+    }
+
+    // test case: When the same operation is authorized twice within the decision time to live, the server must be
+    // asked only once; after it, the server must be asked again.
+    @Test
+    public void testDecisionIsCached() {
+        // set up
+        RestfulFogbowOperation operation = createOperation(getServerUrl() + DECISION_PATH);
+
+        // exercise
+        boolean firstDecision = this.plugin.isAuthorized(this.systemUser, operation);
+        boolean secondDecision = this.plugin.isAuthorized(this.systemUser, operation);
+        this.ticker.advance(DistributedAuthorizationPluginClient.DECISION_TIME_TO_LIVE_MILLIS);
+        this.plugin.isAuthorized(this.systemUser, operation);
+
+        // verify
+        Assert.assertTrue(firstDecision);
+        Assert.assertTrue(secondDecision);
+        Assert.assertEquals(2, this.requestBodies.size());
+    }
+
+    // test case: When the server answers with an error, the operation must be denied, and the denial must not be
+    // cached.
+    @Test
+    public void testServerErrorDenies() {
+        // set up
+        RestfulFogbowOperation operation = createOperation(getServerUrl() + DECISION_PATH);
+        this.decisionStatus = HttpStatus.SC_INTERNAL_SERVER_ERROR;
+
+        // exercise
+        boolean firstDecision = this.plugin.isAuthorized(this.systemUser, operation);
+        this.decisionStatus = HttpStatus.SC_OK;
+        boolean secondDecision = this.plugin.isAuthorized(this.systemUser, operation);
+
+        // verify
+        Assert.assertFalse(firstDecision);
+        Assert.assertTrue(secondDecision);
+    }
+
+    // test case: When the server does not answer within the read timeout, the operation must be denied without
+    // waiting for it.
+    @Test
+    public void testSlowServerDeniesWithinReadTimeout() {
+        // set up
+        RestfulFogbowOperation operation = createOperation(getServerUrl() + DECISION_PATH);
+        this.decisionDelayMillis = READ_TIMEOUT_MILLIS * 10;
+
+        // exercise
+        long start = System.currentTimeMillis();
+        boolean authorized = this.plugin.isAuthorized(this.systemUser, operation);
+
+        // verify
+        Assert.assertFalse(authorized);
+        Assert.assertTrue(System.currentTimeMillis() - start < this.decisionDelayMillis);
+    }
+
+    // test case: When the server fails consecutively, the circuit must open and deny operations without asking
+    // the server; after the open time, a successful trial request must close it again.
+    @Test
+    public void testCircuitBreakerFailsClosed() {
+        // set up
+        RestfulFogbowOperation operation = createOperation(getServerUrl() + DECISION_PATH);
+        this.decisionStatus = HttpStatus.SC_SERVICE_UNAVAILABLE;
+        for (int i = 0; i < DistributedAuthorizationPluginClient.FAILURES_TO_OPEN_CIRCUIT; i++) {
+            this.plugin.isAuthorized(this.systemUser, operation);
+        }
+        this.decisionStatus = HttpStatus.SC_OK;
+
+        // exercise
+        boolean whileOpen = this.plugin.isAuthorized(this.systemUser, operation);
+        int requestsWhileOpen = this.requestBodies.size();
+        this.ticker.advance(DistributedAuthorizationPluginClient.OPEN_CIRCUIT_MILLIS);
+        boolean afterOpenTime = this.plugin.isAuthorized(this.systemUser, operation);
+
+        // verify
+        Assert.assertFalse(whileOpen);
+        Assert.assertEquals(DistributedAuthorizationPluginClient.FAILURES_TO_OPEN_CIRCUIT, requestsWhileOpen);
+        Assert.assertTrue(afterOpenTime);
+    }
+
+    // test case: When an operation is authorized asynchronously, the future must be completed with the decision.
+    @Test
+    public void testAsyncDecision() throws Exception {
+        // set up
+        RestfulFogbowOperation operation = createOperation(getServerUrl() + DECISION_PATH);
+        this.decisionResponse = "false";
+
+        // exercise
+        boolean authorized = this.plugin.isAuthorizedAsync(this.systemUser, operation).get(1, TimeUnit.SECONDS);
+
+        // verify
+        Assert.assertFalse(authorized);
+    }
+
+    // test case: When too many operations are already waiting to be authorized asynchronously, a new one must be
+    // denied at once instead of waiting.
+    @Test
+    public void testAsyncDecisionIsDeniedWhenQueueIsFull() throws Exception {
+        // set up
+        this.decisionReleased = new CountDownLatch(1);
+        this.plugin.setReadTimeoutMillis((int) TimeUnit.SECONDS.toMillis(10));
+        // the threads are shared with other tests, which may still hold some of them
+        int maximumOperations = 2 * (DistributedAuthorizationPluginClient.ASYNC_THREADS
+                + DistributedAuthorizationPluginClient.MAXIMUM_QUEUED_ASYNC_REQUESTS) + 1;
+        CompletableFuture<Boolean> future = null;
+
+        try {
+            // exercise
+            for (int i = 0; i < maximumOperations && (future == null || !future.isDone()); i++) {
+                future = this.plugin.isAuthorizedAsync(this.systemUser,
+                        createOperation(getServerUrl() + DECISION_PATH + i));
+            }
+
+            // verify
+            Assert.assertTrue(future.isDone());
+            Assert.assertFalse(future.get());
+        } finally {
+            this.decisionReleased.countDown();
+        }
+    }
+
+    private String getServerUrl() {
+        return "http://localhost:" + this.server.getAddress().getPort();
+    }
+
+    private RestfulFogbowOperation createOperation(String endpoint) {
+        return new RestfulFogbowOperation() {
+            @Override
+            public String getEndpoint() {
+                return endpoint;
+            }
+        };
+    }
+}
@@ -0,0 +1,194 @@
+package cloud.fogbow.common.plugins.authorization;
+
+import cloud.fogbow.common.exceptions.FatalErrorException;
+import cloud.fogbow.common.models.FogbowOperation;
+import cloud.fogbow.common.models.SystemUser;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+
+public class RoleBasedAuthorizationPluginTest {
+
+    private static final long RELOAD_TIMEOUT_MILLIS = 20000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private RoleBasedAuthorizationPlugin<FogbowOperation> plugin;
+
+    @After
+    public void tearDown() throws IOException {
+        if (this.plugin != null) {
+            this.plugin.close();
+        }
+    }
+
+    // test case: When the policy has exact and prefix patterns, only the operations matched by one of the user's
+    // roles must be authorized.
+    @Test
+    public void testPolicyDecisions() throws Exception {
+        // set up
+        File policyFile = writePolicy(this.temporaryFolder.newFile("policy.conf"),
+                "admin=*\n" +
+                "operator=compute/*, volume/get\n" +
+                "# comment\n" +
+                "viewer=compute/get\n");
+        this.plugin = new RoleBasedAuthorizationPlugin<>(policyFile.getAbsolutePath());
+        SystemUser admin = createSystemUser("admin");
+        SystemUser operator = createSystemUser("operator");
+        SystemUser viewer = createSystemUser("unknown", "viewer");
+
+        // exercise and verify
+        Assert.assertTrue(this.plugin.isAuthorized(admin, new NamedOperation("anything")));
+        Assert.assertTrue(this.plugin.isAuthorized(operator, new NamedOperation("compute/create")));
+        Assert.assertTrue(this.plugin.isAuthorized(operator, new NamedOperation("compute/")));
+        Assert.assertTrue(this.plugin.isAuthorized(operator, new NamedOperation("volume/get")));
+        Assert.assertFalse(this.plugin.isAuthorized(operator, new NamedOperation("volume/get/all")));
+        Assert.assertFalse(this.plugin.isAuthorized(operator, new NamedOperation("compute")));
+        Assert.assertTrue(this.plugin.isAuthorized(viewer, new NamedOperation("compute/get")));
+        Assert.assertFalse(this.plugin.isAuthorized(viewer, new NamedOperation("compute/delete")));
+        Assert.assertFalse(this.plugin.isAuthorized(createSystemUser("unknown"), new NamedOperation("compute/get")));
+        Assert.assertFalse(this.plugin.isAuthorized(admin, new FogbowOperation()));
+    }
+
+    // test case: When the policy has more roles than fit in a single bitset word, each role must still only
+    // authorize its own operations.
+    @Test
+    public void testPolicyWithManyRoles() throws Exception {
+        // set up
+        StringBuilder policy = new StringBuilder();
+        for (int i = 0; i < 130; i++) {
+            policy.append("role").append(i).append("=operation").append(i).append('\n');
+        }
+        File policyFile = writePolicy(this.temporaryFolder.newFile("policy.conf"), policy.toString());
+        this.plugin = new RoleBasedAuthorizationPlugin<>(policyFile.getAbsolutePath());
+
+        // exercise and verify
+        for (int i = 0; i < 130; i++) {
+            SystemUser systemUser = createSystemUser("role" + i);
+            Assert.assertTrue(this.plugin.isAuthorized(systemUser, new NamedOperation("operation" + i)));
+            Assert.assertFalse(this.plugin.isAuthorized(systemUser,
+                    new NamedOperation("operation" + ((i + 64) % 130))));
+        }
+    }
+
+    // test case: When a pattern has a wildcard other than at its end, the plugin must not be created.
+    @Test(expected = FatalErrorException.class) // verify
+    public void testInvalidPattern() throws Exception {
+        // set up
+        File policyFile = writePolicy(this.temporaryFolder.newFile("policy.conf"), "admin=compute/*/get\n");
+
+        // exercise
+        this.plugin = new RoleBasedAuthorizationPlugin<>(policyFile.getAbsolutePath());
+    }
+
+    // test case: When the policy file changes, the new policy must be used without creating the plugin again;
+    // when the changed file is invalid, the previous policy must be kept.
+    @Test
+    public void testPolicyIsReloadedWhenFileChanges() throws Exception {
+        // set up
+        File policyFile = writePolicy(this.temporaryFolder.newFile("policy.conf"), "operator=compute/get\n");
+        this.plugin = new RoleBasedAuthorizationPlugin<>(policyFile.getAbsolutePath());
+        SystemUser operator = createSystemUser("operator");
+        FogbowOperation operation = new NamedOperation("compute/delete");
+        Assert.assertFalse(this.plugin.isAuthorized(operator, operation));
+
+        // exercise
+        writePolicy(policyFile, "operator=compute/*\n");
+
+        // verify
+        long deadline = System.currentTimeMillis() + RELOAD_TIMEOUT_MILLIS;
+        while (!this.plugin.isAuthorized(operator, operation) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Assert.assertTrue(this.plugin.isAuthorized(operator, operation));
+
+        // exercise
+        writePolicy(policyFile, "operator=*/delete\n");
+        Thread.sleep(500);
+
+        // verify
+        Assert.assertTrue(this.plugin.isAuthorized(operator, operation));
+    }
+
+    // test case: When an operation is named, it must be authorized by its name, whether or not its decisions may be
+    // cached; an operation with a cache key but no name must be denied.
+    @Test
+    public void testOperationNameIsIndependentOfCacheKey() throws Exception {
+        // set up
+        File policyFile = writePolicy(this.temporaryFolder.newFile("policy.conf"), "admin=compute/get\n");
+        this.plugin = new RoleBasedAuthorizationPlugin<>(policyFile.getAbsolutePath());
+        SystemUser admin = createSystemUser("admin");
+        FogbowOperation cacheableOperation = new FogbowOperation() {
+            @Override
+            public String getCacheKey() {
+                return "compute/get";
+            }
+        };
+
+        // exercise and verify
+        Assert.assertTrue(this.plugin.isAuthorized(admin, new NamedOperation("compute/get")));
+        Assert.assertFalse(this.plugin.isAuthorized(admin, cacheableOperation));
+    }
+
+    // test case: When the plugin is closed, its watcher thread must end.
+    @Test
+    public void testCloseStopsWatcherThread() throws Exception {
+        // set up
+        File policyFile = writePolicy(this.temporaryFolder.newFile("policy.conf"), "admin=*\n");
+        this.plugin = new RoleBasedAuthorizationPlugin<>(policyFile.getAbsolutePath());
+        Assert.assertTrue(isWatcherThreadAlive());
+
+        // exercise
+        this.plugin.close();
+
+        // verify
+        long deadline = System.currentTimeMillis() + RELOAD_TIMEOUT_MILLIS;
+        while (isWatcherThreadAlive() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Assert.assertFalse(isWatcherThreadAlive());
+    }
+
+    private boolean isWatcherThreadAlive() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals(RoleBasedAuthorizationPlugin.WATCHER_THREAD_NAME) && thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private File writePolicy(File policyFile, String policy) throws IOException {
+        Files.write(policyFile.toPath(), policy.getBytes(StandardCharsets.UTF_8));
+        return policyFile;
+    }
+
+    private SystemUser createSystemUser(String... roles) {
+        SystemUser systemUser = new SystemUser("fake-user-id", "fake-user-name", "fake-provider");
+        systemUser.setUserRoles(new HashSet<>(Arrays.asList(roles)));
+        return systemUser;
+    }
+
+    private static class NamedOperation extends FogbowOperation {
+        private final String name;
+
+        NamedOperation(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getOperationName() {
+            return this.name;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package cloud.fogbow.common.plugins.cloudidp;
+
+import cloud.fogbow.common.exceptions.UnauthenticatedUserException;
+import cloud.fogbow.common.models.CloudUser;
+import cloud.fogbow.common.util.stubs.FakeTicker;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class CachingCloudIdentityProviderPluginTest {
+
+    private static final String ANY_VALUE = "anything";
+    private static final String USERNAME_KEY = "username";
+    private static final String PASSWORD_KEY = "password";
+    private static final long TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long NEGATIVE_TIME_TO_LIVE_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private static final long MAXIMUM_SIZE = 10;
+    private static final long REFRESH_AHEAD_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private CloudIdentityProviderPlugin<CloudUser> plugin;
+    private FakeTicker ticker;
+    private List<Runnable> refreshTasks;
+    private CachingCloudIdentityProviderPlugin<CloudUser> cachingPlugin;
+
+    @Before
+    public void setUp() {
+        this.plugin = Mockito.mock(CloudIdentityProviderPlugin.class);
+        this.ticker = new FakeTicker();
+        this.refreshTasks = new ArrayList<>();
+        this.cachingPlugin = new CachingCloudIdentityProviderPlugin<>(this.plugin, TIME_TO_LIVE_MILLIS,
+                NEGATIVE_TIME_TO_LIVE_MILLIS, MAXIMUM_SIZE, REFRESH_AHEAD_MILLIS, this.ticker, this.refreshTasks::add);
+    }
+
+    // test case: When the same credentials are authenticated twice within the time to live, the decorated
+    // plugin must be called only once; after the time to live, it must be called again.
+    @Test
+    public void testCloudUserIsCachedForTimeToLive() throws UnauthenticatedUserException {
+        // set up
+        CloudUser cloudUser = new CloudUser(ANY_VALUE, ANY_VALUE, ANY_VALUE);
+        Mockito.when(this.plugin.getCloudUser(Mockito.anyMap())).thenReturn(cloudUser);
+
+        // exercise
+        CloudUser firstCloudUser = this.cachingPlugin.getCloudUser(createCredentials(ANY_VALUE));
+        CloudUser secondCloudUser = this.cachingPlugin.getCloudUser(createCredentials(ANY_VALUE));
+        this.ticker.advance(TIME_TO_LIVE_MILLIS + 1);
+        this.cachingPlugin.getCloudUser(createCredentials(ANY_VALUE));
+
+        // verify
+        Assert.assertSame(cloudUser, firstCloudUser);
+        Assert.assertSame(cloudUser, secondCloudUser);
+        Mockito.verify(this.plugin, Mockito.times(2)).getCloudUser(Mockito.anyMap());
+    }
+
+    // test case: When the cloud user carries an expiration time earlier than the time to live, it must not be
+    // served after that expiration time, minus the safety margin.
+    @Test
+    public void testCloudUserExpirationTimeIsRespected() throws UnauthenticatedUserException {
+        // set up
+        long validityMillis = CachingCloudIdentityProviderPlugin.EXPIRATION_MARGIN_MILLIS + TimeUnit.MINUTES.toMillis(1);
+        CloudUser cloudUser = new CloudUser(ANY_VALUE, ANY_VALUE, ANY_VALUE);
+        cloudUser.setExpirationTime(System.currentTimeMillis() + validityMillis);
+        Mockito.when(this.plugin.getCloudUser(Mockito.anyMap())).thenReturn(cloudUser);
+
+        // exercise
+        this.cachingPlugin.getCloudUser(createCredentials(ANY_VALUE));
+        this.ticker.advance(TimeUnit.MINUTES.toMillis(1) + 1);
+        this.cachingPlugin.getCloudUser(createCredentials(ANY_VALUE));
+
+        // verify
+        Mockito.verify(this.plugin, Mockito.times(2)).getCloudUser(Mockito.anyMap());
+    }
+
+    // test case: When the cloud user expires within the safety margin, it must be returned without being cached,
+    // and the decorated plugin must be called once per request.
+    @Test
+    public void testCloudUserExpiringWithinMarginIsNotCached() throws UnauthenticatedUserException {
+        // set up
+        CloudUser cloudUser = new CloudUser(ANY_VALUE, ANY_VALUE, ANY_VALUE);
+        cloudUser.setExpirationTime(System.currentTimeMillis()
+                + CachingCloudIdentityProviderPlugin.EXPIRATION_MARGIN_MILLIS / 2);
+        Mockito.when(this.plugin.getCloudUser(Mockito.anyMap())).thenReturn(cloudUser);
+
+        // exercise
+        CloudUser firstCloudUser = this.cachingPlugin.getCloudUser(createCredentials(ANY_VALUE));
+        CloudUser secondCloudUser = this.cachingPlugin.getCloudUser(createCredentials(ANY_VALUE));
+
+        // verify
+        Assert.assertSame(cloudUser, firstCloudUser);
+        Assert.assertSame(cloudUser, secondCloudUser);
+        Mockito.verify(this.plugin, Mockito.times(2)).getCloudUser(Mockito.anyMap());
+    }
+
+    // test case: When authentication fails, the failure must be cached for the negative time to live, and
+    // different credentials must not share the cached result.
+    @Test
+    public void testFailureIsCachedForNegativeTimeToLive() throws UnauthenticatedUserException {
+        // set up
+        CloudUser cloudUser = new CloudUser(ANY_VALUE, ANY_VALUE, ANY_VALUE);
+        Mockito.when(this.plugin.getCloudUser(Mockito.anyMap()))
+                .thenThrow(new UnauthenticatedUserException())
+                .thenReturn(cloudUser);
+
+        // exercise
+        assertUnauthenticated(createCredentials("wrong-password"));
+        assertUnauthenticated(createCredentials("wrong-password"));
+        this.ticker.advance(NEGATIVE_TIME_TO_LIVE_MILLIS + 1);
+        CloudUser recoveredCloudUser = this.cachingPlugin.getCloudUser(createCredentials("wrong-password"));
+
+        // verify
+        Assert.assertSame(cloudUser, recoveredCloudUser);
+        Mockito.verify(this.plugin, Mockito.times(2)).getCloudUser(Mockito.anyMap());
+    }
+
+    // test case: When the credentials differ, each set of credentials must be authenticated on its own.
+    @Test
+    public void testDifferentCredentialsAreNotShared() throws UnauthenticatedUserException {
+        // set up
+        Mockito.when(this.plugin.getCloudUser(Mockito.anyMap())).thenReturn(new CloudUser(ANY_VALUE, ANY_VALUE, ANY_VALUE));
+
+        // exercise
+        this.cachingPlugin.getCloudUser(createCredentials("a-password"));
+        this.cachingPlugin.getCloudUser(createCredentials("another-password"));
+
+        // verify
+        Mockito.verify(this.plugin, Mockito.times(2)).getCloudUser(Mockito.anyMap());
+    }
+
+    // test case: When a cached user is about to expire, it must still be returned while its credentials are
+    // authenticated again in the background, only once, and the refreshed user must be returned afterwards.
+    @Test
+    public void testCloudUserIsRefreshedAheadOfExpiration() throws UnauthenticatedUserException {
+        // set up
+        CloudUser cloudUser = new CloudUser(ANY_VALUE, ANY_VALUE, ANY_VALUE);
+        CloudUser refreshedCloudUser = new CloudUser(ANY_VALUE, ANY_VALUE, ANY_VALUE);
+        Mockito.when(this.plugin.getCloudUser(Mockito.anyMap())).thenReturn(cloudUser, refreshedCloudUser);
+        this.cachingPlugin.getCloudUser(createCredentials(ANY_VALUE));
+        this.ticker.advance(TIME_TO_LIVE_MILLIS - REFRESH_AHEAD_MILLIS);
+
+        // exercise
+        CloudUser firstCloudUser = this.cachingPlugin.getCloudUser(createCredentials(ANY_VALUE));
+        CloudUser secondCloudUser = this.cachingPlugin.getCloudUser(createCredentials(ANY_VALUE));
+        Assert.assertEquals(1, this.refreshTasks.size());
+        this.refreshTasks.get(0).run();
+        CloudUser thirdCloudUser = this.cachingPlugin.getCloudUser(createCredentials(ANY_VALUE));
+
+        // verify
+        Assert.assertSame(cloudUser, firstCloudUser);
+        Assert.assertSame(cloudUser, secondCloudUser);
+        Assert.assertSame(refreshedCloudUser, thirdCloudUser);
+        Mockito.verify(this.plugin, Mockito.times(2)).getCloudUser(Mockito.anyMap());
+    }
+
+    // test case: When refreshing a cached user fails, the user must be kept until it expires, and the refresh
+    // must only be retried after the negative time to live.
+    @Test
+    public void testFailedRefreshKeepsCloudUser() throws UnauthenticatedUserException {
+        // set up
+        CloudUser cloudUser = new CloudUser(ANY_VALUE, ANY_VALUE, ANY_VALUE);
+        Mockito.when(this.plugin.getCloudUser(Mockito.anyMap()))
+                .thenReturn(cloudUser)
+                .thenThrow(new UnauthenticatedUserException());
+        this.cachingPlugin.getCloudUser(createCredentials(ANY_VALUE));
+        this.ticker.advance(TIME_TO_LIVE_MILLIS - REFRESH_AHEAD_MILLIS);
+        this.cachingPlugin.getCloudUser(createCredentials(ANY_VALUE));
+
+        // exercise
+        this.refreshTasks.get(0).run();
+        CloudUser keptCloudUser = this.cachingPlugin.getCloudUser(createCredentials(ANY_VALUE));
+        this.ticker.advance(NEGATIVE_TIME_TO_LIVE_MILLIS);
+        this.cachingPlugin.getCloudUser(createCredentials(ANY_VALUE));
+
+        // verify
+        Assert.assertSame(cloudUser, keptCloudUser);
+        Assert.assertEquals(2, this.refreshTasks.size());
+    }
+
+    private void assertUnauthenticated(Map<String, String> credentials) {
+        try {
+            this.cachingPlugin.getCloudUser(credentials);
+            Assert.fail();
+        } catch (UnauthenticatedUserException e) {
+            // expected
+        }
+    }
+
+    private Map<String, String> createCredentials(String password) {
+        Map<String, String> credentials = new HashMap<>();
+        credentials.put(USERNAME_KEY, ANY_VALUE);
+        credentials.put(PASSWORD_KEY, password);
+        return credentials;
+    }
+}
@@ -15,7 +15,6 @@ import org.mockito.BDDMockito;
 import org.mockito.Mockito;
 import org.opennebula.client.Client;
 import org.opennebula.client.OneResponse;
-import org.opennebula.client.user.UserPool;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
@@ -97,12 +96,9 @@ public class OpenNebulaIdentityProviderPluginTest {
     public void testIsAuthenticatedSuccessWithoutMockingHelperMethod() throws FogbowException {
         // setup
         Map<String,String> credentials = getCredentials(FAKE_USER_ID, FAKE_USER_PASSWORD);
-        UserPool userPool = Mockito.mock(UserPool.class);
-
         boolean RESPONSE_IS_SUCCESS = true;
         OneResponse mockedInfo = new OneResponse(RESPONSE_IS_SUCCESS, ONE_RESPONSE_MESSAGE);
-        Mockito.when(userPool.info()).thenReturn(mockedInfo);
-        BDDMockito.given(OpenNebulaClientUtil.getUserPool(Mockito.any())).willReturn(userPool);
+        BDDMockito.given(OpenNebulaClientUtil.getSelfUserInfo(Mockito.any())).willReturn(mockedInfo);
 
         // exercise
         OpenNebulaUser openNebulaUser = this.plugin.getCloudUser(credentials);
@@ -113,6 +109,26 @@ public class OpenNebulaIdentityProviderPluginTest {
         Mockito.verify(this.plugin).isAuthenticated(Mockito.anyString());
     }
 
+    // Test case: When invoking the getCloudUser method with credentials that OpenNebula rejects, the
+    // user's own information must be requested, and the whole user pool must never be fetched.
+    @Test(expected = UnauthenticatedUserException.class)
+    public void testIsAuthenticatedFailsWithoutFetchingUserPool() throws FogbowException {
+        // setup
+        Map<String,String> credentials = getCredentials(FAKE_USER_ID, INVALID_PASSWORD);
+        boolean RESPONSE_IS_SUCCESS = false;
+        OneResponse mockedInfo = new OneResponse(RESPONSE_IS_SUCCESS, ONE_RESPONSE_MESSAGE);
+        BDDMockito.given(OpenNebulaClientUtil.getSelfUserInfo(Mockito.any())).willReturn(mockedInfo);
+
+        try {
+            // exercise
+            this.plugin.getCloudUser(credentials);
+        } finally {
+            // verify
+            PowerMockito.verifyStatic(Mockito.never());
+            OpenNebulaClientUtil.getUserPool(Mockito.any());
+        }
+    }
+
     private Map<String, String> getCredentials(String name, String password) {
         Map<String, String> userCredentials = new HashMap();
         userCredentials.put(OpenNebulaConstants.USERNAME, name);
@@ -5,8 +5,10 @@ import cloud.fogbow.common.constants.OpenStackConstants;
 import cloud.fogbow.common.exceptions.InternalServerErrorException;
 import cloud.fogbow.common.exceptions.UnauthenticatedUserException;
 import cloud.fogbow.common.models.OpenStackV3User;
+import cloud.fogbow.common.plugins.cloudidp.CachingCloudIdentityProviderPlugin;
 import cloud.fogbow.common.util.connectivity.HttpRequestClient;
 import cloud.fogbow.common.util.connectivity.HttpResponse;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -131,6 +133,82 @@ public class OpenStackIdentityProviderPluginTest {
         Mockito.verify(this.plugin).getCloudUserFromJson(Mockito.any());
     }
 
+    // test case: When the response carries the token's expires_at, the returned user must expose it as its
+    // expiration time.
+    @Test
+    public void testGetCloudUserFromJsonSetsExpirationTime() throws FogbowException {
+        // set up
+        String content = "{\"token\":{\"expires_at\":\"2015-11-09T01:42:57.527363Z\","
+                + "\"user\":{\"id\":\"fake-user-id\",\"name\":\"fake-user-name\"},"
+                + "\"project\":{\"id\":\"fake-project-id\"}}}";
+        HttpResponse response = new HttpResponse(content, HttpStatus.OK.value(), new HashMap<>());
+
+        // exercise
+        OpenStackV3User openStackV3User = this.plugin.getCloudUserFromJson(response);
+
+        // verify
+        Assert.assertEquals("fake-project-id", openStackV3User.getProjectId());
+        Assert.assertEquals(Long.valueOf(1447033377527L), openStackV3User.getExpirationTime());
+    }
+
+    // test case: When the response carries the service catalog, the returned user must expose the public
+    // endpoint of each service.
+    @Test
+    public void testGetCloudUserFromJsonSetsServiceEndpoints() throws FogbowException {
+        // set up
+        String content = "{\"token\":{\"user\":{\"id\":\"fake-user-id\",\"name\":\"fake-user-name\"},"
+                + "\"project\":{\"id\":\"fake-project-id\"},\"catalog\":[{\"type\":\"compute\",\"name\":\"nova\","
+                + "\"endpoints\":[{\"interface\":\"internal\",\"region\":\"RegionOne\",\"url\":\"http://internal:8774\"},"
+                + "{\"interface\":\"public\",\"region\":\"RegionOne\",\"url\":\"http://public:8774\"}]}]}}";
+        HttpResponse response = new HttpResponse(content, HttpStatus.OK.value(), new HashMap<>());
+
+        // exercise
+        OpenStackV3User openStackV3User = this.plugin.getCloudUserFromJson(response);
+
+        // verify
+        Assert.assertEquals("http://public:8774", openStackV3User.getServiceEndpoint("compute"));
+        Assert.assertNull(openStackV3User.getServiceEndpoint("network"));
+    }
+
+    // test case: When the same credentials are authenticated twice, a token must be requested from Keystone
+    // each time, as tokens are not cached unless a token cache is explicitly used.
+    @Test
+    public void testGetCloudUserDoesNotCacheToken() throws FogbowException {
+        // set up
+        OpenStackV3User fakeToken = new OpenStackV3User(ANY_VALUE, ANY_VALUE, ANY_VALUE, ANY_VALUE);
+        mockServices(fakeToken);
+        Map<String, String> credentials = createCredentials(ANY_VALUE, ANY_VALUE, ANY_VALUE, ANY_VALUE);
+
+        // exercise
+        this.plugin.getCloudUser(credentials);
+        this.plugin.getCloudUser(credentials);
+
+        // verify
+        Mockito.verify(this.plugin, Mockito.times(2)).getCloudUserFromJson(Mockito.any(HttpResponse.class));
+    }
+
+    // test case: When the same credentials are authenticated twice through the token cache, the token must be
+    // requested from Keystone only once.
+    @Test
+    public void testWithTokenCacheCachesToken() throws FogbowException {
+        // set up
+        OpenStackV3User fakeToken = new OpenStackV3User(ANY_VALUE, ANY_VALUE, ANY_VALUE, ANY_VALUE);
+        mockServices(fakeToken);
+        CachingCloudIdentityProviderPlugin<OpenStackV3User> cachingPlugin =
+                OpenStackIdentityProviderPlugin.withTokenCache(this.plugin);
+
+        // exercise
+        OpenStackV3User firstCloudUser = cachingPlugin.getCloudUser(
+                createCredentials(ANY_VALUE, ANY_VALUE, ANY_VALUE, ANY_VALUE));
+        OpenStackV3User secondCloudUser = cachingPlugin.getCloudUser(
+                createCredentials(ANY_VALUE, ANY_VALUE, ANY_VALUE, ANY_VALUE));
+
+        // verify
+        Assert.assertSame(fakeToken, firstCloudUser);
+        Assert.assertSame(fakeToken, secondCloudUser);
+        Mockito.verify(this.plugin, Mockito.times(1)).getCloudUserFromJson(Mockito.any(HttpResponse.class));
+    }
+
     private void mockServices(OpenStackV3User openStackV3User) throws FogbowException {
         HttpResponse response = new HttpResponse(ANY_VALUE, HttpStatus.OK.value(), new HashMap<>());
         PowerMockito.mockStatic(HttpRequestClient.class);
@@ -3,12 +3,17 @@ package cloud.fogbow.common.util;
 import cloud.fogbow.common.constants.Messages;
 import org.junit.Test;
 
+import javax.crypto.AEADBadTagException;
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.security.*;
+import java.util.Arrays;
+import java.util.Random;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -161,5 +166,132 @@ public class CryptoUtilTest {
         assertTrue(privKeyMatcher.matches());
         assertTrue(pubKeyMatcher.matches());
     }
-}
 
+    // test case: When signing with each available signature scheme, verify must accept the signature using
+    // only the scheme identifier carried with it, and reject it for a different message.
+    @Test
+    public void testSignAndVerifyWithSignatureSchemes() throws GeneralSecurityException, IOException {
+        // set up
+        String message = "test signature test";
+
+        for (SignatureScheme scheme : SignatureScheme.values()) {
+            if (!scheme.isAvailable()) {
+                continue;
+            }
+            KeyPair keyPair = scheme.generateKeyPair();
+
+            // exercise
+            String signature = CryptoUtil.sign(keyPair.getPrivate(), message, scheme);
+
+            // verify
+            assertTrue(signature.startsWith(scheme.getId() + SignatureScheme.SCHEME_SEPARATOR));
+            assertTrue(CryptoUtil.verify(keyPair.getPublic(), message, signature));
+            assertFalse(CryptoUtil.verify(keyPair.getPublic(), message + "tampered", signature));
+        }
+    }
+
+    // test case: When verifying a signature with an unknown scheme identifier, it must throw a
+    // SignatureException.
+    @Test(expected = SignatureException.class) // verify
+    public void testVerifyWithUnknownSignatureScheme() throws GeneralSecurityException, IOException {
+        // set up
+        KeyPair keyPair = CryptoUtil.generateKeyPair();
+
+        // exercise
+        CryptoUtil.verify(keyPair.getPublic(), "message", "unknown-scheme:AAAA");
+    }
+
+    // test case: When the same PEM is materialized twice, the second call must return the key parsed by
+    // the first one instead of parsing it again.
+    @Test
+    public void testKeysFromStringAreCached() throws IOException, GeneralSecurityException {
+        // set up
+        String keysPath = HomeDir.getPath();
+        String publicKeyPEM = CryptoUtil.getKey(keysPath + "public.key");
+        String privateKeyPEM = CryptoUtil.getKey(keysPath + "private.key");
+
+        // exercise
+        PublicKey firstPublicKey = CryptoUtil.getPublicKeyFromString(publicKeyPEM);
+        PublicKey secondPublicKey = CryptoUtil.getPublicKeyFromString(new String(publicKeyPEM));
+        PrivateKey firstPrivateKey = CryptoUtil.getPrivateKeyFromString(privateKeyPEM);
+        PrivateKey secondPrivateKey = CryptoUtil.getPrivateKeyFromString(new String(privateKeyPEM));
+
+        // verify
+        assertSame(firstPublicKey, secondPublicKey);
+        assertSame(firstPrivateKey, secondPrivateKey);
+    }
+
+    // test case: When encrypting a payload spanning several segments (including one that ends exactly at a
+    // segment boundary) with encryptEnvelope, decryptEnvelope must recover the original bytes.
+    @Test
+    public void testEncryptDecryptEnvelope() throws IOException, GeneralSecurityException {
+        // set up
+        KeyPair keyPair = CryptoUtil.generateKeyPair();
+        int[] payloadSizes = {0, 1, EnvelopeCipher.PLAINTEXT_SEGMENT_SIZE, 2 * EnvelopeCipher.PLAINTEXT_SEGMENT_SIZE + 7};
+
+        for (int payloadSize : payloadSizes) {
+            byte[] payload = new byte[payloadSize];
+            new Random(payloadSize).nextBytes(payload);
+
+            // exercise
+            byte[] encrypted = encryptEnvelope(payload, keyPair.getPublic());
+            byte[] decrypted = decryptEnvelope(encrypted, keyPair.getPrivate());
+
+            // verify
+            assertArrayEquals(payload, decrypted);
+        }
+    }
+
+    // test case: When encrypting the same payload twice with encryptEnvelope, the ciphertexts must differ,
+    // since each message uses a fresh key and nonce.
+    @Test
+    public void testEncryptEnvelopeIsRandomized() throws IOException, GeneralSecurityException {
+        // set up
+        KeyPair keyPair = CryptoUtil.generateKeyPair();
+        byte[] payload = "same message".getBytes(CryptoUtil.UTF_8);
+
+        // exercise
+        byte[] firstEncryption = encryptEnvelope(payload, keyPair.getPublic());
+        byte[] secondEncryption = encryptEnvelope(payload, keyPair.getPublic());
+
+        // verify
+        assertFalse(Arrays.equals(firstEncryption, secondEncryption));
+    }
+
+    // test case: When a byte of an envelope is modified, decryptEnvelope must throw an AEADBadTagException.
+    @Test(expected = AEADBadTagException.class) // verify
+    public void testDecryptTamperedEnvelope() throws IOException, GeneralSecurityException {
+        // set up
+        KeyPair keyPair = CryptoUtil.generateKeyPair();
+        byte[] encrypted = encryptEnvelope(new byte[1024], keyPair.getPublic());
+        encrypted[encrypted.length - 1] ^= 1;
+
+        // exercise
+        decryptEnvelope(encrypted, keyPair.getPrivate());
+    }
+
+    // test case: When an envelope is truncated at a segment boundary, decryptEnvelope must throw an
+    // AEADBadTagException, since the remaining last segment is not flagged as the last one.
+    @Test(expected = AEADBadTagException.class) // verify
+    public void testDecryptTruncatedEnvelope() throws IOException, GeneralSecurityException {
+        // set up
+        KeyPair keyPair = CryptoUtil.generateKeyPair();
+        byte[] encrypted = encryptEnvelope(new byte[2 * EnvelopeCipher.PLAINTEXT_SEGMENT_SIZE], keyPair.getPublic());
+        byte[] truncated = Arrays.copyOf(encrypted, encrypted.length - EnvelopeCipher.CIPHERTEXT_SEGMENT_SIZE);
+
+        // exercise
+        decryptEnvelope(truncated, keyPair.getPrivate());
+    }
+
+    private byte[] encryptEnvelope(byte[] payload, PublicKey publicKey) throws IOException, GeneralSecurityException {
+        ByteArrayOutputStream cipherText = new ByteArrayOutputStream();
+        CryptoUtil.encryptEnvelope(new ByteArrayInputStream(payload), cipherText, publicKey);
+        return cipherText.toByteArray();
+    }
+
+    private byte[] decryptEnvelope(byte[] envelope, PrivateKey privateKey) throws IOException, GeneralSecurityException {
+        ByteArrayOutputStream plainText = new ByteArrayOutputStream();
+        CryptoUtil.decryptEnvelope(new ByteArrayInputStream(envelope), plainText, privateKey);
+        return plainText.toByteArray();
+    }
+}
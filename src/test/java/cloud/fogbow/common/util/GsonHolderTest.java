@@ -0,0 +1,93 @@
+package cloud.fogbow.common.util;
+
+import cloud.fogbow.common.plugins.cloudidp.cloudstack.v4_9.ListAccountsResponse;
+import cloud.fogbow.common.plugins.cloudidp.cloudstack.v4_9.LoginResponse;
+import cloud.fogbow.common.plugins.cloudidp.openstack.v3.CreateAuthenticationResponse;
+import cloud.fogbow.common.plugins.cloudidp.openstack.v3.CreateUnscopedAuthenticationResponse;
+import cloud.fogbow.common.util.connectivity.cloud.cloudstack.CloudStackQueryAsyncJobResponse;
+import com.google.gson.Gson;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GsonHolderTest {
+
+    private static final String CREATE_AUTHENTICATION_RESPONSE_JSON = "{\"token\":{\"methods\":[\"password\"],"
+            + "\"user\":{\"id\":\"fake-user-id\",\"name\":\"fake-user-name\",\"domain\":{\"id\":\"default\"}},"
+            + "\"project\":{\"id\":\"fake-project-id\",\"name\":\"fake-project-name\"},"
+            + "\"expires_at\":\"2015-11-09T01:42:57.527363Z\"}}";
+    private static final String LIST_ACCOUNTS_RESPONSE_JSON = "{\"listaccountsresponse\":{\"count\":1,"
+            + "\"account\":[{\"user\":[{\"id\":\"fake-id\",\"username\":\"fake-username\",\"firstname\":\"Jon\","
+            + "\"lastname\":\"Doe\",\"domain\":\"fake-domain\",\"apikey\":\"fake-api-key\",\"secretkey\":"
+            + "\"fake-secret-key\",\"accounttype\":2,\"isdefault\":false}],\"groups\":[]}]}}";
+    private static final String LOGIN_RESPONSE_JSON = "{\"loginresponse\":{\"username\":\"fake-username\","
+            + "\"timeout\":1800,\"registered\":\"false\",\"sessionkey\":\"fake-session-key\"}}";
+    private static final String QUERY_ASYNC_JOB_RESPONSE_JSON = "{\"queryasyncjobresultresponse\":{\"jobstatus\":1,"
+            + "\"jobinstanceid\":\"fake-instance-id\",\"jobresult\":{\"volume\":{\"id\":\"fake-volume-id\"}}}}";
+
+    // test case: When parsing the library's response models, the registered streaming adapters must produce
+    // the same values as Gson's reflective binding, ignoring unknown fields.
+    @Test
+    public void testRegisteredAdaptersMatchReflectiveBinding() {
+        // set up
+        Gson reflectiveGson = new Gson();
+        GsonHolder.warmUp();
+
+        // exercise
+        CreateAuthenticationResponse authenticationResponse = CreateAuthenticationResponse.fromJson(CREATE_AUTHENTICATION_RESPONSE_JSON);
+        CreateUnscopedAuthenticationResponse unscopedResponse = CreateUnscopedAuthenticationResponse.fromJson(CREATE_AUTHENTICATION_RESPONSE_JSON);
+        ListAccountsResponse listAccountsResponse = ListAccountsResponse.fromJson(LIST_ACCOUNTS_RESPONSE_JSON);
+        LoginResponse loginResponse = LoginResponse.fromJson(LOGIN_RESPONSE_JSON);
+        CloudStackQueryAsyncJobResponse asyncJobResponse = CloudStackQueryAsyncJobResponse.fromJson(QUERY_ASYNC_JOB_RESPONSE_JSON);
+
+        // verify
+        CreateAuthenticationResponse expectedAuthenticationResponse = reflectiveGson.fromJson(CREATE_AUTHENTICATION_RESPONSE_JSON, CreateAuthenticationResponse.class);
+        Assert.assertEquals(expectedAuthenticationResponse.getUser().getId(), authenticationResponse.getUser().getId());
+        Assert.assertEquals(expectedAuthenticationResponse.getUser().getName(), authenticationResponse.getUser().getName());
+        Assert.assertEquals(expectedAuthenticationResponse.getProject().getId(), authenticationResponse.getProject().getId());
+        Assert.assertEquals(expectedAuthenticationResponse.getProject().getName(), authenticationResponse.getProject().getName());
+        Assert.assertEquals(expectedAuthenticationResponse.getUser().getId(), unscopedResponse.getUser().getId());
+
+        ListAccountsResponse.User expectedUser = reflectiveGson.fromJson(LIST_ACCOUNTS_RESPONSE_JSON, ListAccountsResponse.class)
+                .getAccounts().get(0).getUsers().get(0);
+        ListAccountsResponse.User user = listAccountsResponse.getAccounts().get(0).getUsers().get(0);
+        Assert.assertEquals(expectedUser.getId(), user.getId());
+        Assert.assertEquals(expectedUser.getUsername(), user.getUsername());
+        Assert.assertEquals(expectedUser.getDomain(), user.getDomain());
+        Assert.assertEquals(expectedUser.getFirstName(), user.getFirstName());
+        Assert.assertEquals(expectedUser.getLastName(), user.getLastName());
+        Assert.assertEquals(expectedUser.getApiKey(), user.getApiKey());
+        Assert.assertEquals(expectedUser.getSecretKey(), user.getSecretKey());
+
+        Assert.assertEquals(reflectiveGson.fromJson(LOGIN_RESPONSE_JSON, LoginResponse.class).getSessionKey(), loginResponse.getSessionKey());
+
+        CloudStackQueryAsyncJobResponse expectedAsyncJobResponse = reflectiveGson.fromJson(QUERY_ASYNC_JOB_RESPONSE_JSON, CloudStackQueryAsyncJobResponse.class);
+        Assert.assertEquals(expectedAsyncJobResponse.getJobStatus(), asyncJobResponse.getJobStatus());
+        Assert.assertEquals(expectedAsyncJobResponse.getJobInstanceId(), asyncJobResponse.getJobInstanceId());
+    }
+
+    // test case: When a model is written by its streaming adapter, parsing the result must give back the same values.
+    @Test
+    public void testRegisteredAdapterWritesParsableJson() {
+        // set up
+        ListAccountsResponse listAccountsResponse = ListAccountsResponse.fromJson(LIST_ACCOUNTS_RESPONSE_JSON);
+
+        // exercise
+        String json = GsonHolder.getInstance().toJson(listAccountsResponse);
+
+        // verify
+        ListAccountsResponse.User user = ListAccountsResponse.fromJson(json).getAccounts().get(0).getUsers().get(0);
+        Assert.assertEquals("fake-secret-key", user.getSecretKey());
+        Assert.assertEquals("fake-api-key", user.getApiKey());
+    }
+
+    // test case: When registering a type adapter after the Gson instance was created, it must throw an
+    // IllegalStateException.
+    @Test(expected = IllegalStateException.class) // verify
+    public void testRegisterTypeAdapterAfterCreation() {
+        // set up
+        GsonHolder.getInstance();
+
+        // exercise
+        GsonHolder.registerTypeAdapter(GsonHolderTest.class, new Object());
+    }
+}
@@ -0,0 +1,105 @@
+package cloud.fogbow.common.util;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+public class KeyPairPoolTest {
+
+    private static final String ALGORITHM = "RSA";
+    private static final int KEY_SIZE = 512;
+    private static final int CAPACITY = 2;
+    private static final long FILL_TIMEOUT_MILLIS = 10000;
+
+    private KeyPairPool keyPairPool;
+
+    @Before
+    public void setUp() throws NoSuchAlgorithmException {
+        this.keyPairPool = new KeyPairPool(ALGORITHM, KEY_SIZE, CAPACITY);
+    }
+
+    @After
+    public void tearDown() {
+        CryptoUtil.setKeyPairPool(null);
+        this.keyPairPool.shutdown();
+    }
+
+    // test case: A pool that was never started must not generate key pairs in the background.
+    @Test
+    public void testPoolIsNotFilledBeforeStart() throws InterruptedException {
+        // exercise
+        Thread.sleep(100);
+
+        // verify
+        Assert.assertEquals(0, this.keyPairPool.getDepth());
+        Assert.assertEquals(0, this.keyPairPool.getGeneratedKeyPairs());
+    }
+
+    // test case: The background thread must fill the pool up to its capacity and then stop generating.
+    @Test
+    public void testPoolIsFilledUpToCapacity() throws InterruptedException {
+        // exercise
+        this.keyPairPool.start();
+        waitForFullPool();
+
+        // verify
+        Assert.assertEquals(CAPACITY, this.keyPairPool.getDepth());
+        Assert.assertTrue(this.keyPairPool.getRefillRate() > 0);
+        Assert.assertTrue(this.keyPairPool.getGeneratedKeyPairs() <= CAPACITY + 1);
+    }
+
+    // test case: When taking a key pair from a full pool, it must be served from the pool and be usable
+    // for encryption and decryption.
+    @Test
+    public void testTakeFromPool() throws InterruptedException, GeneralSecurityException, IOException {
+        // set up
+        this.keyPairPool.start();
+        waitForFullPool();
+        String message = "pooled key pair";
+
+        // exercise
+        KeyPair keyPair = this.keyPairPool.take(FILL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        // verify
+        Assert.assertEquals(1, this.keyPairPool.getPoolHits());
+        Assert.assertEquals(0, this.keyPairPool.getPoolMisses());
+        String encrypted = CryptoUtil.encrypt(message, keyPair.getPublic());
+        Assert.assertEquals(message, CryptoUtil.decrypt(encrypted, keyPair.getPrivate()));
+    }
+
+    // test case: When a pool is set as the shared one, CryptoUtil.generateKeyPair must take key pairs from it.
+    @Test
+    public void testGenerateKeyPairTakesFromSharedPool() throws InterruptedException, NoSuchAlgorithmException {
+        // set up
+        CryptoUtil.setKeyPairPool(this.keyPairPool.start());
+        waitForFullPool();
+
+        // exercise
+        KeyPair keyPair = CryptoUtil.generateKeyPair();
+
+        // verify
+        Assert.assertNotNull(keyPair);
+        Assert.assertEquals(1, this.keyPairPool.getPoolHits());
+    }
+
+    // test case: When the configured algorithm does not exist, the pool must not be created.
+    @Test(expected = NoSuchAlgorithmException.class) // verify
+    public void testInvalidAlgorithm() throws NoSuchAlgorithmException {
+        // exercise
+        new KeyPairPool("invalid-algorithm", KEY_SIZE, CAPACITY);
+    }
+
+    private void waitForFullPool() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + FILL_TIMEOUT_MILLIS;
+        while (this.keyPairPool.getDepth() < CAPACITY && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -1,14 +1,33 @@
 package cloud.fogbow.common.util;
 
+import cloud.fogbow.common.constants.HttpMethod;
 import cloud.fogbow.common.exceptions.ConfigurationErrorException;
 import cloud.fogbow.common.exceptions.FogbowException;
 import cloud.fogbow.common.exceptions.InternalServerErrorException;
+import cloud.fogbow.common.util.connectivity.HttpRequestClient;
+import cloud.fogbow.common.util.connectivity.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.junit.Assert;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
 
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.interfaces.RSAPublicKey;
+import java.util.HashMap;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({HttpRequestClient.class})
 public class PublicKeysHolderTest {
 
     private final String MALFORMED_URI = "i^n|e xistent-site/ras";
     private final String WELLFORMED_URI = "http://inexistent-site.lsd.ufcg.edu.br/ras";
+    private final String CACHED_URI = "http://cached-site.lsd.ufcg.edu.br/ras";
     private final String PORT = "8080";
     private final String SUFFIX = "/publicKey";
 
@@ -27,4 +46,29 @@ public class PublicKeysHolderTest {
         // exercise
         PublicKeysHolder.getPublicKey(WELLFORMED_URI, PORT, SUFFIX);
     }
+
+    // test case: When calling the getPublicKey method twice for the same service, the key
+    // must be fetched only once and served from the cache afterwards.
+    @Test
+    public void testPublicKeyIsCached() throws FogbowException, IOException, GeneralSecurityException {
+        // set up
+        String publicKey = CryptoUtil.getKey(HomeDir.getPath() + "public.key");
+        String content = "{\"publicKey\":\"" + publicKey + "\"}";
+        HttpResponse response = new HttpResponse(content, HttpStatus.SC_OK, new HashMap<>());
+
+        PowerMockito.mockStatic(HttpRequestClient.class);
+        BDDMockito.given(HttpRequestClient.doGenericRequest(Mockito.eq(HttpMethod.GET), Mockito.anyString(),
+                Mockito.anyMap(), Mockito.anyMap())).willReturn(response);
+
+        // exercise
+        RSAPublicKey firstKey = PublicKeysHolder.getPublicKey(CACHED_URI, PORT, SUFFIX);
+        RSAPublicKey secondKey = PublicKeysHolder.getPublicKey(CACHED_URI, PORT, SUFFIX);
+
+        // verify
+        Assert.assertEquals(CryptoUtil.getPublicKeyFromString(publicKey), firstKey);
+        Assert.assertSame(firstKey, secondKey);
+        PowerMockito.verifyStatic(Mockito.times(1));
+        HttpRequestClient.doGenericRequest(Mockito.eq(HttpMethod.GET), Mockito.anyString(),
+                Mockito.anyMap(), Mockito.anyMap());
+    }
 }
@@ -0,0 +1,79 @@
+package cloud.fogbow.common.util;
+
+import cloud.fogbow.common.models.CloudUser;
+import cloud.fogbow.common.models.SystemUser;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SerializedEntityHolderTest {
+
+    private static final String FAKE_USER_ID = "fakeUserId";
+    private static final String FAKE_USER_NAME = "fakeUserName";
+    private static final String FAKE_IDENTITY_PROVIDER = "fakeProviderId";
+    private static final String FAKE_TOKEN = "fakeToken";
+
+    @After
+    public void tearDown() {
+        SerializedEntityHolder.setRestrictedToRegisteredTypes(false);
+    }
+
+    // test case: When a holder is serialized and parsed back, it must return an entity equal to the original one.
+    @Test
+    public void testGetSerializedEntity() throws ClassNotFoundException {
+        // set up
+        SystemUser systemUser = new SystemUser(FAKE_USER_ID, FAKE_USER_NAME, FAKE_IDENTITY_PROVIDER);
+        String serializedHolder = new SerializedEntityHolder<SystemUser>(systemUser).toString();
+
+        // exercise
+        SerializedEntityHolder<SystemUser> holder = GsonHolder.getInstance().fromJson(serializedHolder, SerializedEntityHolder.class);
+
+        // verify
+        Assert.assertEquals(systemUser, holder.getSerializedEntity());
+    }
+
+    // test case: When restricted to registered types, a registered type must still be deserialized.
+    @Test
+    public void testGetSerializedEntityOfRegisteredTypeWhenRestricted() throws ClassNotFoundException {
+        // set up
+        SerializedEntityHolder.register(CloudUser.class);
+        SerializedEntityHolder.setRestrictedToRegisteredTypes(true);
+        String serializedHolder = "{\"className\":\"" + CloudUser.class.getName() + "\",\"payload\":"
+                + "\"{\\\"token\\\":\\\"" + FAKE_TOKEN + "\\\",\\\"id\\\":\\\"" + FAKE_USER_ID + "\\\"}\"}";
+        SerializedEntityHolder<CloudUser> holder = GsonHolder.getInstance().fromJson(serializedHolder, SerializedEntityHolder.class);
+
+        // exercise
+        CloudUser cloudUser = holder.getSerializedEntity();
+
+        // verify
+        Assert.assertEquals(FAKE_USER_ID, cloudUser.getId());
+        Assert.assertEquals(FAKE_TOKEN, cloudUser.getToken());
+    }
+
+    // test case: When restricted to registered types, an entity of a type that was never registered must not be
+    // deserialized, and a ClassNotFoundException must be thrown.
+    @Test(expected = ClassNotFoundException.class) // verify
+    public void testGetSerializedEntityOfUnregisteredTypeWhenRestricted() throws ClassNotFoundException {
+        // set up
+        SerializedEntityHolder.setRestrictedToRegisteredTypes(true);
+        String serializedHolder = "{\"className\":\"java.lang.StringBuilder\",\"payload\":\"\\\"\\\"\"}";
+        SerializedEntityHolder<Object> holder = GsonHolder.getInstance().fromJson(serializedHolder, SerializedEntityHolder.class);
+
+        // exercise
+        holder.getSerializedEntity();
+    }
+
+    // test case: When restricted to registered types, an entity of a type that was serialized, or deserialized
+    // before the restriction, but never registered, must not be deserialized.
+    @Test(expected = ClassNotFoundException.class) // verify
+    public void testSerializingDoesNotRegisterType() throws ClassNotFoundException {
+        // set up
+        String serializedHolder = new SerializedEntityHolder<StringBuffer>(new StringBuffer()).toString();
+        SerializedEntityHolder<StringBuffer> holder = GsonHolder.getInstance().fromJson(serializedHolder, SerializedEntityHolder.class);
+        holder.getSerializedEntity();
+        SerializedEntityHolder.setRestrictedToRegisteredTypes(true);
+
+        // exercise
+        holder.getSerializedEntity();
+    }
+}
@@ -2,10 +2,17 @@ package cloud.fogbow.common.util;
 
 import cloud.fogbow.common.exceptions.InternalServerErrorException;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.PublicKey;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
 
@@ -13,6 +20,11 @@ import static org.junit.Assert.*;
 
 public class ServiceAsymmetricKeysHolderTest {
 
+    private static final long RELOAD_TIMEOUT_MILLIS = 20000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private ServiceAsymmetricKeysHolder keysHolder;
     private String pubKeyPath;
     private String privKeyPath;
@@ -52,4 +64,34 @@ public class ServiceAsymmetricKeysHolderTest {
         // verify
         assertEquals(expectedPrivateKey, privateKey);
     }
-}
\ No newline at end of file
+
+    // test case: When the public key file is replaced with another key after being loaded, the holder
+    // must pick up the new key without being reconfigured.
+    @Test
+    public void testPublicKeyIsReloadedWhenFileChanges() throws Exception {
+        // set up
+        File keyFile = this.temporaryFolder.newFile("rotated-public.key");
+        KeyPair originalKeyPair = CryptoUtil.generateKeyPair();
+        KeyPair rotatedKeyPair = CryptoUtil.generateKeyPair();
+        writePublicKey(keyFile, originalKeyPair.getPublic());
+
+        this.keysHolder.setPublicKeyFilePath(keyFile.getAbsolutePath());
+        assertEquals(originalKeyPair.getPublic(), this.keysHolder.getPublicKey());
+
+        // exercise
+        writePublicKey(keyFile, rotatedKeyPair.getPublic());
+
+        // verify
+        long deadline = System.currentTimeMillis() + RELOAD_TIMEOUT_MILLIS;
+        while (!rotatedKeyPair.getPublic().equals(this.keysHolder.getPublicKey())
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(rotatedKeyPair.getPublic(), this.keysHolder.getPublicKey());
+    }
+
+    private void writePublicKey(File keyFile, PublicKey publicKey) throws IOException, GeneralSecurityException {
+        String pem = "-----BEGIN PUBLIC KEY-----\n" + CryptoUtil.toBase64(publicKey) + "\n-----END PUBLIC KEY-----\n";
+        Files.write(keyFile.toPath(), pem.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,132 @@
+package cloud.fogbow.common.util;
+
+import cloud.fogbow.common.exceptions.InternalServerErrorException;
+import cloud.fogbow.common.models.SystemUser;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+
+public class SystemUserCodecTest {
+
+    private static final String FAKE_USER_ID = "fakeUserId";
+    private static final String FAKE_USER_NAME = "fakeUserName";
+    private static final String FAKE_IDENTITY_PROVIDER = "fakeProviderId";
+    private static final String FAKE_TOKEN = "fakeToken";
+    private static final int TEST_USER_TYPE_ID = 1000;
+
+    static {
+        SystemUserCodec.register(TEST_USER_TYPE_ID, TestUser.class, new SystemUserCodec.TypeCodec<TestUser>() {
+            @Override
+            public void write(TestUser systemUser, DataOutput out) throws IOException {
+                SystemUserCodec.writeString(out, systemUser.getId());
+                SystemUserCodec.writeString(out, systemUser.getName());
+                SystemUserCodec.writeString(out, systemUser.getIdentityProviderId());
+                SystemUserCodec.writeString(out, systemUser.token);
+            }
+
+            @Override
+            public TestUser read(DataInput in) throws IOException {
+                return new TestUser(SystemUserCodec.readString(in), SystemUserCodec.readString(in),
+                        SystemUserCodec.readString(in), SystemUserCodec.readString(in));
+            }
+        });
+    }
+
+    @Before
+    public void setUp() {
+        SystemUserCodec.setBinaryFormatEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        SystemUserCodec.setBinaryFormatEnabled(false);
+    }
+
+    // test case: When serializing a system user with roles, the token must be URL-safe Base64, smaller than
+    // its JSON counterpart, and be decoded back to an equal user with the same roles.
+    @Test
+    public void testEncodeAndDecodeSystemUser() throws InternalServerErrorException {
+        // set up
+        SystemUser systemUser = new SystemUser(FAKE_USER_ID, FAKE_USER_NAME, FAKE_IDENTITY_PROVIDER);
+        systemUser.setUserRoles(new HashSet<>(Arrays.asList("admin", "user")));
+        String jsonSerializedUser = new SerializedEntityHolder<SystemUser>(systemUser).toString();
+
+        // exercise
+        String serializedUser = SystemUser.serialize(systemUser);
+        SystemUser recoveredSystemUser = SystemUser.deserialize(serializedUser);
+
+        // verify
+        Assert.assertTrue(serializedUser.matches(SystemUserCodec.TOKEN_PREFIX + "[A-Za-z0-9_-]+"));
+        Assert.assertTrue(serializedUser.length() < jsonSerializedUser.length());
+        Assert.assertEquals(systemUser, recoveredSystemUser);
+        Assert.assertEquals(systemUser.getUserRoles(), recoveredSystemUser.getUserRoles());
+        Assert.assertNull(SystemUser.deserialize(SystemUser.serialize(
+                new SystemUser(FAKE_USER_ID, null, FAKE_IDENTITY_PROVIDER))).getName());
+    }
+
+    // test case: When serializing an instance of a registered subclass, it must be decoded back to the same
+    // class, with its own fields.
+    @Test
+    public void testEncodeAndDecodeRegisteredSubclass() throws InternalServerErrorException {
+        // set up
+        TestUser testUser = new TestUser(FAKE_USER_ID, FAKE_USER_NAME, FAKE_IDENTITY_PROVIDER, FAKE_TOKEN);
+
+        // exercise
+        SystemUser recoveredSystemUser = SystemUser.deserialize(SystemUser.serialize(testUser));
+
+        // verify
+        Assert.assertEquals(TestUser.class, recoveredSystemUser.getClass());
+        Assert.assertEquals(testUser, recoveredSystemUser);
+        Assert.assertEquals(FAKE_TOKEN, ((TestUser) recoveredSystemUser).token);
+    }
+
+    // test case: When registering a type id that is already taken, it must throw an IllegalArgumentException.
+    @Test(expected = IllegalArgumentException.class) // verify
+    public void testRegisterDuplicatedTypeId() {
+        // exercise
+        SystemUserCodec.register(SystemUserCodec.SYSTEM_USER_TYPE_ID, UnregisteredUser.class,
+                new SystemUserCodec.TypeCodec<UnregisteredUser>() {
+                    @Override
+                    public void write(UnregisteredUser systemUser, DataOutput out) {
+                    }
+
+                    @Override
+                    public UnregisteredUser read(DataInput in) {
+                        return null;
+                    }
+                });
+    }
+
+    // test case: When decoding a truncated token, it must throw an InternalServerErrorException.
+    @Test(expected = InternalServerErrorException.class) // verify
+    public void testDecodeTruncatedToken() throws InternalServerErrorException {
+        // set up
+        SystemUser systemUser = new SystemUser(FAKE_USER_ID, FAKE_USER_NAME, FAKE_IDENTITY_PROVIDER);
+        String serializedUser = SystemUserCodec.encode(systemUser);
+
+        // exercise
+        SystemUserCodec.decode(serializedUser.substring(0, serializedUser.length() - 4));
+    }
+
+    private static class TestUser extends SystemUser {
+        private final String token;
+
+        TestUser(String userId, String userName, String identityProviderId, String token) {
+            super(userId, userName, identityProviderId);
+            this.token = token;
+        }
+    }
+
+    private static class UnregisteredUser extends SystemUser {
+        UnregisteredUser(String userId, String userName, String identityProviderId) {
+            super(userId, userName, identityProviderId);
+        }
+    }
+}
@@ -5,6 +5,9 @@ import cloud.fogbow.common.models.SystemUser;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.HashSet;
+
 public class SystemUserTest {
 
     public static final String FAKE_USER_ID = "fakeUserId";
@@ -25,6 +28,53 @@ public class SystemUserTest {
         Assert.assertEquals(systemUser, recoveredSystemUser);
     }
 
+    // test case: When deserializing a system user serialized in the JSON format, it must be recovered with
+    // its roles, so that tokens issued before the binary format keep working.
+    @Test
+    public void testDeserializationOfJsonSerializedSystemUser() throws InternalServerErrorException {
+        // set up
+        SystemUser systemUser = createSystemUser();
+        systemUser.setUserRoles(new HashSet<>(Arrays.asList("admin", "user")));
+        String serializedUser = new SerializedEntityHolder<SystemUser>(systemUser).toString();
+
+        // exercise
+        SystemUser recoveredSystemUser = SystemUser.deserialize(serializedUser);
+
+        // verify
+        Assert.assertEquals(systemUser, recoveredSystemUser);
+        Assert.assertEquals(systemUser.getUserRoles(), recoveredSystemUser.getUserRoles());
+    }
+
+    // test case: When the binary format is not enabled, a system user must be serialized as JSON, even though
+    // its class is registered in the codec, so that services not upgraded yet can still read it.
+    @Test
+    public void testSerializationDefaultsToJson() throws InternalServerErrorException {
+        // set up
+        SystemUser systemUser = createSystemUser();
+
+        // exercise
+        String serializedUser = SystemUser.serialize(systemUser);
+
+        // verify
+        Assert.assertFalse(SystemUserCodec.isBinaryFormatEnabled());
+        Assert.assertEquals(new SerializedEntityHolder<SystemUser>(systemUser).toString(), serializedUser);
+    }
+
+    // test case: When deserializing a JSON serialized system user with leading whitespace, it must be recovered
+    // as JSON, not taken as a binary token.
+    @Test
+    public void testDeserializationOfJsonWithLeadingWhitespace() throws InternalServerErrorException {
+        // set up
+        SystemUser systemUser = createSystemUser();
+        String serializedUser = " \n" + new SerializedEntityHolder<SystemUser>(systemUser).toString();
+
+        // exercise
+        SystemUser recoveredSystemUser = SystemUser.deserialize(serializedUser);
+
+        // verify
+        Assert.assertEquals(systemUser, recoveredSystemUser);
+    }
+
     // Test if size of content is going to overflow the limit a SystemUSer is allowed
     @Test(expected = InternalServerErrorException.class)
     public void testCreateUserWithTooMuchData() throws InternalServerErrorException {
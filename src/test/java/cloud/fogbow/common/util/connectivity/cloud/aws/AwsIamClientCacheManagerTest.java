@@ -0,0 +1,41 @@
+package cloud.fogbow.common.util.connectivity.cloud.aws;
+
+import cloud.fogbow.common.exceptions.UnauthenticatedUserException;
+import org.junit.Assert;
+import org.junit.Test;
+import software.amazon.awssdk.services.iam.IamClient;
+
+public class AwsIamClientCacheManagerTest {
+
+    private static final String ACCESS_KEY = "fake-access-key";
+    private static final String SECRET_ACCESS_KEY = "fake-secret-access-key";
+    private static final String OTHER_SECRET_ACCESS_KEY = "other-fake-secret-access-key";
+
+    // test case: When getting the client of the same credentials twice, the same client must be returned, and
+    // different credentials must get a different client.
+    @Test
+    public void testGetIamClientIsCachedPerCredentials() throws UnauthenticatedUserException {
+        // exercise
+        IamClient firstClient = AwsIamClientCacheManager.getIamClient(ACCESS_KEY, SECRET_ACCESS_KEY);
+        IamClient secondClient = AwsIamClientCacheManager.getIamClient(ACCESS_KEY, SECRET_ACCESS_KEY);
+        IamClient otherClient = AwsIamClientCacheManager.getIamClient(ACCESS_KEY, OTHER_SECRET_ACCESS_KEY);
+
+        // verify
+        Assert.assertSame(firstClient, secondClient);
+        Assert.assertNotSame(firstClient, otherClient);
+    }
+
+    // test case: When the client of some credentials is invalidated, a new client must be created for them.
+    @Test
+    public void testInvalidateCreatesNewClient() throws UnauthenticatedUserException {
+        // set up
+        IamClient firstClient = AwsIamClientCacheManager.getIamClient(ACCESS_KEY, SECRET_ACCESS_KEY);
+
+        // exercise
+        AwsIamClientCacheManager.invalidate(ACCESS_KEY, SECRET_ACCESS_KEY);
+        IamClient secondClient = AwsIamClientCacheManager.getIamClient(ACCESS_KEY, SECRET_ACCESS_KEY);
+
+        // verify
+        Assert.assertNotSame(firstClient, secondClient);
+    }
+}
@@ -0,0 +1,148 @@
+package cloud.fogbow.common.util.connectivity.cloud.cloudstack;
+
+import cloud.fogbow.common.exceptions.FogbowException;
+import cloud.fogbow.common.exceptions.UnavailableProviderException;
+import cloud.fogbow.common.models.CloudStackUser;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class CloudStackAsyncJobTrackerTest {
+
+    private static final String FAKE_CLOUDSTACK_URL = "http://localhost:8080/client/api";
+    private static final String FAKE_JOB_ID = "fake-job-id";
+    private static final String OTHER_JOB_ID = "other-job-id";
+    private static final String FAKE_INSTANCE_ID = "fake-instance-id";
+    private static final String PROCESSING_RESPONSE = "{\"queryasyncjobresultresponse\":{\"jobstatus\":0}}";
+    private static final String SUCCESS_RESPONSE = "{\"queryasyncjobresultresponse\":{\"jobstatus\":1,"
+            + "\"jobinstanceid\":\"" + FAKE_INSTANCE_ID + "\"}}";
+    private static final long INITIAL_POLL_INTERVAL_MILLIS = 20;
+    private static final long MAXIMUM_POLL_INTERVAL_MILLIS = 40;
+    private static final long MAXIMUM_TRACKING_MILLIS = 200;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private CloudStackHttpClient client;
+    private CloudStackUser cloudStackUser;
+    private CloudStackAsyncJobTracker tracker;
+
+    @Before
+    public void setUp() {
+        this.client = Mockito.mock(CloudStackHttpClient.class);
+        this.cloudStackUser = new CloudStackUser("fake-user-id", "fake-user-name", "fake-api-key:fake-secret-key",
+                "fake-domain", new HashMap<>());
+        this.tracker = new CloudStackAsyncJobTracker(this.client, FAKE_CLOUDSTACK_URL, INITIAL_POLL_INTERVAL_MILLIS,
+                MAXIMUM_POLL_INTERVAL_MILLIS, MAXIMUM_TRACKING_MILLIS, 1);
+    }
+
+    @After
+    public void tearDown() {
+        this.tracker.shutdown();
+    }
+
+    // test case: When a job is still processing, it must be polled again until it finishes, and then the future
+    // must complete with its last response and the job must no longer be tracked.
+    @Test
+    public void testTrackCompletesWhenJobFinishes() throws Exception {
+        // set up
+        Mockito.when(this.client.doGetRequest(Mockito.contains(FAKE_JOB_ID), Mockito.eq(this.cloudStackUser)))
+                .thenReturn(PROCESSING_RESPONSE, PROCESSING_RESPONSE, SUCCESS_RESPONSE);
+
+        // exercise
+        CompletableFuture<CloudStackQueryAsyncJobResponse> future = this.tracker.track(FAKE_JOB_ID, this.cloudStackUser);
+        CloudStackQueryAsyncJobResponse response = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        // verify
+        Assert.assertEquals(CloudStackQueryJobResult.SUCCESS, response.getJobStatus());
+        Assert.assertEquals(FAKE_INSTANCE_ID, response.getJobInstanceId());
+        Mockito.verify(this.client, Mockito.times(3)).doGetRequest(Mockito.anyString(), Mockito.eq(this.cloudStackUser));
+        Assert.assertEquals(0, this.tracker.getTrackedJobsCount());
+    }
+
+    // test case: When the same job is tracked by many callers, it must be polled only once for all of them.
+    @Test
+    public void testTrackSameJobIsPolledOnce() throws Exception {
+        // set up
+        Mockito.when(this.client.doGetRequest(Mockito.anyString(), Mockito.eq(this.cloudStackUser)))
+                .thenReturn(SUCCESS_RESPONSE);
+
+        // exercise
+        CompletableFuture<CloudStackQueryAsyncJobResponse> firstFuture = this.tracker.track(FAKE_JOB_ID, this.cloudStackUser);
+        CompletableFuture<CloudStackQueryAsyncJobResponse> secondFuture = this.tracker.track(FAKE_JOB_ID, this.cloudStackUser);
+
+        // verify
+        Assert.assertSame(firstFuture.get(TIMEOUT_SECONDS, TimeUnit.SECONDS),
+                secondFuture.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        Mockito.verify(this.client, Mockito.times(1)).doGetRequest(Mockito.anyString(), Mockito.eq(this.cloudStackUser));
+    }
+
+    // test case: When a job of a user finishes while another one of the same user is still processing, each future
+    // must complete on its own.
+    @Test
+    public void testTrackJobsOfTheSameUser() throws Exception {
+        // set up
+        Mockito.when(this.client.doGetRequest(Mockito.contains(FAKE_JOB_ID), Mockito.eq(this.cloudStackUser)))
+                .thenReturn(SUCCESS_RESPONSE);
+        Mockito.when(this.client.doGetRequest(Mockito.contains(OTHER_JOB_ID), Mockito.eq(this.cloudStackUser)))
+                .thenReturn(PROCESSING_RESPONSE, SUCCESS_RESPONSE);
+
+        // exercise
+        CompletableFuture<CloudStackQueryAsyncJobResponse> future = this.tracker.track(FAKE_JOB_ID, this.cloudStackUser);
+        CompletableFuture<CloudStackQueryAsyncJobResponse> otherFuture = this.tracker.track(OTHER_JOB_ID, this.cloudStackUser);
+
+        // verify
+        Assert.assertEquals(CloudStackQueryJobResult.SUCCESS, future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getJobStatus());
+        Assert.assertEquals(CloudStackQueryJobResult.SUCCESS, otherFuture.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getJobStatus());
+        Mockito.verify(this.client, Mockito.times(1)).doGetRequest(Mockito.contains(FAKE_JOB_ID), Mockito.eq(this.cloudStackUser));
+        Mockito.verify(this.client, Mockito.times(2)).doGetRequest(Mockito.contains(OTHER_JOB_ID), Mockito.eq(this.cloudStackUser));
+    }
+
+    // test case: When a job cannot be polled several times in a row, the future must complete exceptionally with
+    // the last failure.
+    @Test
+    public void testTrackFailsAfterConsecutiveFailures() throws Exception {
+        // set up
+        Mockito.when(this.client.doGetRequest(Mockito.anyString(), Mockito.eq(this.cloudStackUser)))
+                .thenThrow(new UnavailableProviderException());
+
+        // exercise
+        CompletableFuture<CloudStackQueryAsyncJobResponse> future = this.tracker.track(FAKE_JOB_ID, this.cloudStackUser);
+
+        // verify
+        try {
+            future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof UnavailableProviderException);
+        }
+        Mockito.verify(this.client, Mockito.times(CloudStackAsyncJobTracker.MAXIMUM_CONSECUTIVE_FAILURES))
+                .doGetRequest(Mockito.anyString(), Mockito.eq(this.cloudStackUser));
+    }
+
+    // test case: When a job is still processing once it has been tracked for the maximum tracking time, the future
+    // must complete exceptionally and the job must no longer be tracked.
+    @Test
+    public void testTrackFailsWhenJobProcessesForTooLong() throws Exception {
+        // set up
+        Mockito.when(this.client.doGetRequest(Mockito.anyString(), Mockito.eq(this.cloudStackUser)))
+                .thenReturn(PROCESSING_RESPONSE);
+
+        // exercise
+        CompletableFuture<CloudStackQueryAsyncJobResponse> future = this.tracker.track(FAKE_JOB_ID, this.cloudStackUser);
+
+        // verify
+        try {
+            future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof UnavailableProviderException);
+        }
+        Assert.assertEquals(0, this.tracker.getTrackedJobsCount());
+    }
+}
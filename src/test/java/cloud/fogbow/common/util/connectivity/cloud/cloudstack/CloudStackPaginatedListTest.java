@@ -0,0 +1,165 @@
+package cloud.fogbow.common.util.connectivity.cloud.cloudstack;
+
+import cloud.fogbow.common.exceptions.FogbowException;
+import cloud.fogbow.common.exceptions.InternalServerErrorException;
+import cloud.fogbow.common.exceptions.UnavailableProviderException;
+import cloud.fogbow.common.models.CloudStackUser;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gson.Gson;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class CloudStackPaginatedListTest {
+
+    private static final String FAKE_CLOUDSTACK_URL = "http://localhost:8080/client/api";
+    private static final String RESPONSE_KEY = "listvirtualmachinesresponse";
+    private static final String ELEMENTS_KEY = "virtualmachine";
+    private static final int PAGE_SIZE = 2;
+
+    private CloudStackHttpClient client;
+    private CloudStackUser cloudStackUser;
+    private CloudStackRequest request;
+
+    @Before
+    public void setUp() throws FogbowException {
+        this.client = Mockito.mock(CloudStackHttpClient.class);
+        this.cloudStackUser = new CloudStackUser("fake-user-id", "fake-user-name", "fake-api-key:fake-secret-key",
+                "fake-domain", new HashMap<>());
+        this.request = new QueryAsyncJobResultRequest.Builder().build(FAKE_CLOUDSTACK_URL);
+    }
+
+    // test case: When the pages come without a count, the listing must go through them in order and stop at the
+    // first page that is not full, having fetched at most one page ahead of it.
+    @Test
+    public void testListStopsAtFirstIncompletePage() throws FogbowException {
+        // set up
+        mockPage(1, page(null, "vm-1", "vm-2"));
+        mockPage(2, page(null, "vm-3", "vm-4"));
+        mockPage(3, page(null, "vm-5"));
+
+        // exercise
+        List<String> names = createList().stream().map(VirtualMachine::getName).collect(Collectors.toList());
+
+        // verify
+        Assert.assertEquals(Arrays.asList("vm-1", "vm-2", "vm-3", "vm-4", "vm-5"), names);
+        Mockito.verify(this.client, Mockito.never()).doGetRequest(Mockito.contains("page=5"), Mockito.any());
+    }
+
+    // test case: When the pages report the total count, no page past the count must be fetched.
+    @Test
+    public void testListStopsAtCount() throws FogbowException {
+        // set up
+        mockPage(1, page(4, "vm-1", "vm-2"));
+        mockPage(2, page(4, "vm-3", "vm-4"));
+
+        // exercise
+        List<String> names = createList().stream().map(VirtualMachine::getName).collect(Collectors.toList());
+
+        // verify
+        Assert.assertEquals(Arrays.asList("vm-1", "vm-2", "vm-3", "vm-4"), names);
+        Mockito.verify(this.client, Mockito.never()).doGetRequest(Mockito.contains("page=3"), Mockito.any());
+    }
+
+    // test case: When the pages have been listed, the request the list was created with must be left as it was,
+    // so that it can be used again.
+    @Test
+    public void testListLeavesRequestUnchanged() throws FogbowException {
+        // set up
+        mockPage(1, page(null, "vm-1"));
+        String url = this.request.getUriBuilder().toString();
+
+        // exercise
+        createList().stream().count();
+
+        // verify
+        Assert.assertEquals(url, this.request.getUriBuilder().toString());
+    }
+
+    // test case: When a response has no elements, the listing must be empty.
+    @Test
+    public void testListWithoutElements() throws FogbowException {
+        // set up
+        mockPage(1, "{\"" + RESPONSE_KEY + "\":{}}");
+
+        // exercise
+        Iterator<VirtualMachine> iterator = createList().iterator();
+
+        // verify
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    // test case: When a page cannot be fetched, the iterator must throw an UncheckedExecutionException caused by
+    // the FogbowException, after listing the previous pages.
+    @Test
+    public void testListFailsWhenPageCannotBeFetched() throws FogbowException {
+        // set up
+        mockPage(1, page(null, "vm-1", "vm-2"));
+        Mockito.when(this.client.doGetRequest(Mockito.contains("page=2"), Mockito.eq(this.cloudStackUser)))
+                .thenThrow(new UnavailableProviderException());
+        Iterator<VirtualMachine> iterator = createList().iterator();
+        iterator.next();
+        iterator.next();
+
+        try {
+            // exercise
+            iterator.hasNext();
+            Assert.fail();
+        } catch (UncheckedExecutionException e) {
+            // verify
+            Assert.assertTrue(e.getCause() instanceof UnavailableProviderException);
+        }
+    }
+
+    // test case: When a page is not valid JSON, the iterator must throw an UncheckedExecutionException caused by
+    // an InternalServerErrorException.
+    @Test
+    public void testListFailsWhenPageCannotBeParsed() throws FogbowException {
+        // set up
+        mockPage(1, "{\"" + RESPONSE_KEY + "\":{\"" + ELEMENTS_KEY + "\":[{\"name\":");
+        Iterator<VirtualMachine> iterator = createList().iterator();
+
+        try {
+            // exercise
+            iterator.next();
+            Assert.fail();
+        } catch (UncheckedExecutionException e) {
+            // verify
+            Assert.assertTrue(e.getCause() instanceof InternalServerErrorException);
+        }
+    }
+
+    private CloudStackPaginatedList<VirtualMachine> createList() {
+        return new CloudStackPaginatedList<>(this.client, this.cloudStackUser, this.request, RESPONSE_KEY, ELEMENTS_KEY,
+                new Gson().getAdapter(VirtualMachine.class), PAGE_SIZE);
+    }
+
+    private void mockPage(int page, String content) throws FogbowException {
+        Mockito.when(this.client.doGetRequest(Mockito.contains("page=" + page + "&"), Mockito.eq(this.cloudStackUser)))
+                .thenReturn(content);
+    }
+
+    private String page(Integer count, String... names) {
+        String elements = Arrays.stream(names)
+                .map(name -> "{\"id\":\"id-" + name + "\",\"name\":\"" + name + "\"}")
+                .collect(Collectors.joining(","));
+        return "{\"" + RESPONSE_KEY + "\":{" + (count == null ? "" : "\"count\":" + count + ",")
+                + "\"" + ELEMENTS_KEY + "\":[" + elements + "]}}";
+    }
+
+    private static class VirtualMachine {
+        private String id;
+        private String name;
+
+        String getName() {
+            return this.name;
+        }
+    }
+}
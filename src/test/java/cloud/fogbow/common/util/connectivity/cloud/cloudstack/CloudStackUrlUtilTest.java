@@ -0,0 +1,114 @@
+package cloud.fogbow.common.util.connectivity.cloud.cloudstack;
+
+import cloud.fogbow.common.exceptions.FogbowException;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.http.client.utils.URIBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class CloudStackUrlUtilTest {
+
+    private static final String FAKE_ENDPOINT = "http://localhost:8080/client/api";
+    private static final String FAKE_API_KEY = "Fake-Api_Key";
+    private static final String FAKE_SECRET_KEY = "fake-secret-key";
+    private static final String FAKE_TOKEN = FAKE_API_KEY + ":" + FAKE_SECRET_KEY;
+    private static final String OTHER_SECRET_KEY = "other-secret-key";
+
+    // test case: When signing a request whose parameters need encoding, have mixed case and are repeated, the
+    // signature must be byte-identical to the one computed from the rendered, split and lowercased query.
+    @Test
+    public void testSignIsIdenticalToSigningTheRenderedQuery() throws Exception {
+        // set up
+        URIBuilder uriBuilder = createRequest();
+        URIBuilder expectedUriBuilder = createRequest();
+        expectedUriBuilder.addParameter("apikey", FAKE_API_KEY);
+        String expectedSignature = signRenderedQuery(expectedUriBuilder, FAKE_SECRET_KEY);
+
+        // exercise
+        CloudStackUrlUtil.sign(uriBuilder, FAKE_TOKEN);
+
+        // verify
+        Assert.assertEquals(expectedSignature, getParameter(uriBuilder, "signature"));
+        expectedUriBuilder.addParameter("signature", expectedSignature);
+        Assert.assertEquals(expectedUriBuilder.toString(), uriBuilder.toString());
+    }
+
+    // test case: When signing a rendered URL, the result must be the same URL a URIBuilder signature renders.
+    @Test
+    public void testSignUrlIsIdenticalToSignUriBuilder() throws FogbowException {
+        // set up
+        URIBuilder uriBuilder = createRequest();
+        String url = uriBuilder.toString();
+        CloudStackUrlUtil.sign(uriBuilder, FAKE_TOKEN);
+
+        // exercise
+        String signedUrl = CloudStackUrlUtil.sign(url, FAKE_TOKEN);
+
+        // verify
+        Assert.assertEquals(uriBuilder.toString(), signedUrl);
+    }
+
+    // test case: When the same thread signs with different secret keys, each signature must use its own key.
+    @Test
+    public void testSignWithDifferentSecretKeys() throws Exception {
+        // set up
+        URIBuilder uriBuilder = createRequest();
+        uriBuilder.addParameter("apikey", FAKE_API_KEY);
+        String expectedSignature = signRenderedQuery(uriBuilder, FAKE_SECRET_KEY);
+        String otherExpectedSignature = signRenderedQuery(uriBuilder, OTHER_SECRET_KEY);
+
+        // exercise
+        String signature = CloudStackUrlUtil.generateSignature(uriBuilder.getQueryParams(), FAKE_SECRET_KEY);
+        String otherSignature = CloudStackUrlUtil.generateSignature(uriBuilder.getQueryParams(), OTHER_SECRET_KEY);
+        String repeatedSignature = CloudStackUrlUtil.generateSignature(uriBuilder.getQueryParams(), FAKE_SECRET_KEY);
+
+        // verify
+        Assert.assertEquals(expectedSignature, signature);
+        Assert.assertEquals(otherExpectedSignature, otherSignature);
+        Assert.assertEquals(expectedSignature, repeatedSignature);
+    }
+
+    private URIBuilder createRequest() throws FogbowException {
+        URIBuilder uriBuilder = CloudStackUrlUtil.createURIBuilder(FAKE_ENDPOINT, "deployVirtualMachine");
+        uriBuilder.addParameter("zoneId", "Zone 1");
+        uriBuilder.addParameter("name", "fogbow-vm_\u00e7\u00e3o-\ud83d\ude00");
+        uriBuilder.addParameter("userdata", "a+b/c=d&e~f'g(h)!*");
+        uriBuilder.addParameter("ZONEID", "Zone 2");
+        return uriBuilder;
+    }
+
+    private String getParameter(URIBuilder uriBuilder, String name) {
+        return uriBuilder.getQueryParams().stream()
+                .filter(parameter -> parameter.getName().equals(name))
+                .findFirst().get().getValue();
+    }
+
+    // the original signing algorithm, kept as the reference the optimized one must match
+    private String signRenderedQuery(URIBuilder uriBuilder, String secretKey) throws Exception {
+        String query = uriBuilder.toString().substring(uriBuilder.toString().indexOf("?") + 1);
+        TreeMap<String, String> queryParts = new TreeMap<>();
+        for (String queryPart : query.split("&")) {
+            String[] queryPartSplit = queryPart.split("=");
+            queryParts.put(queryPartSplit[0].toLowerCase(), queryPartSplit[1].toLowerCase());
+        }
+
+        StringBuilder orderedQuery = new StringBuilder();
+        for (Map.Entry<String, String> queryPartEntry : queryParts.entrySet()) {
+            if (orderedQuery.length() > 0) {
+                orderedQuery.append("&");
+            }
+            orderedQuery.append(queryPartEntry.getKey()).append("=").append(queryPartEntry.getValue());
+        }
+
+        Mac mac = Mac.getInstance("HmacSHA1");
+        byte[] secretKeyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
+        mac.init(new SecretKeySpec(secretKeyBytes, 0, secretKeyBytes.length, "HmacSHA1"));
+        return Base64.encodeBase64String(mac.doFinal(orderedQuery.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+}
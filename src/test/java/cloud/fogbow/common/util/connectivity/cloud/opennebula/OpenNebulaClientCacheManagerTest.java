@@ -0,0 +1,41 @@
+package cloud.fogbow.common.util.connectivity.cloud.opennebula;
+
+import cloud.fogbow.common.exceptions.InternalServerErrorException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opennebula.client.Client;
+
+public class OpenNebulaClientCacheManagerTest {
+
+    private static final String FAKE_ENDPOINT = "http://localhost:2633/RPC2";
+    private static final String FAKE_TOKEN = "fake-user:fake-password";
+    private static final String OTHER_FAKE_TOKEN = "fake-user:other-fake-password";
+
+    // test case: When getting the client of the same endpoint and token twice, the same client must be returned,
+    // and a different token must get a different client.
+    @Test
+    public void testGetClientIsCachedPerEndpointAndToken() throws InternalServerErrorException {
+        // exercise
+        Client firstClient = OpenNebulaClientCacheManager.getClient(FAKE_ENDPOINT, FAKE_TOKEN);
+        Client secondClient = OpenNebulaClientCacheManager.getClient(FAKE_ENDPOINT, FAKE_TOKEN);
+        Client otherClient = OpenNebulaClientCacheManager.getClient(FAKE_ENDPOINT, OTHER_FAKE_TOKEN);
+
+        // verify
+        Assert.assertSame(firstClient, secondClient);
+        Assert.assertNotSame(firstClient, otherClient);
+    }
+
+    // test case: When the client of an endpoint and token is invalidated, a new client must be created for them.
+    @Test
+    public void testInvalidateCreatesNewClient() throws InternalServerErrorException {
+        // set up
+        Client firstClient = OpenNebulaClientCacheManager.getClient(FAKE_ENDPOINT, FAKE_TOKEN);
+
+        // exercise
+        OpenNebulaClientCacheManager.invalidate(FAKE_ENDPOINT, FAKE_TOKEN);
+        Client secondClient = OpenNebulaClientCacheManager.getClient(FAKE_ENDPOINT, FAKE_TOKEN);
+
+        // verify
+        Assert.assertNotSame(firstClient, secondClient);
+    }
+}
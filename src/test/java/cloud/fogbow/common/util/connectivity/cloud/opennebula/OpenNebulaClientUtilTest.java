@@ -0,0 +1,149 @@
+package cloud.fogbow.common.util.connectivity.cloud.opennebula;
+
+import cloud.fogbow.common.exceptions.InstanceNotFoundException;
+import cloud.fogbow.common.exceptions.InternalServerErrorException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.opennebula.client.Client;
+import org.opennebula.client.OneResponse;
+import org.opennebula.client.vm.VirtualMachine;
+import org.opennebula.client.vm.VirtualMachinePool;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.Arrays;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({OpenNebulaClientUtil.class})
+public class OpenNebulaClientUtilTest {
+
+    private static final String FAKE_MESSAGE = "fake-message";
+    private static final String INVALID_ID = "invalid-id";
+
+    private Client client;
+    private VirtualMachinePool virtualMachinePool;
+
+    @Before
+    public void setUp() throws Exception {
+        this.client = Mockito.mock(Client.class);
+        this.virtualMachinePool = Mockito.mock(VirtualMachinePool.class);
+        PowerMockito.whenNew(VirtualMachinePool.class).withArguments(this.client).thenReturn(this.virtualMachinePool);
+        PowerMockito.spy(OpenNebulaClientUtil.class);
+    }
+
+    // test case: When getting many virtual machines, the ones returned by the pool request must not be fetched
+    // again, the missing ones must be fetched one by one, and invalid ids must fail without any request.
+    @Test
+    public void testGetVirtualMachinesFetchesOnlyMissingIdsOneByOne() throws Exception {
+        // set up
+        VirtualMachine firstVirtualMachine = mockVirtualMachine(1);
+        VirtualMachine thirdVirtualMachine = mockVirtualMachine(3);
+        Mockito.when(this.virtualMachinePool.info(Mockito.anyInt(), Mockito.eq(1), Mockito.eq(3), Mockito.anyInt()))
+                .thenReturn(new OneResponse(true, FAKE_MESSAGE));
+        Mockito.when(this.virtualMachinePool.getLength()).thenReturn(2);
+        Mockito.when(this.virtualMachinePool.item(0)).thenReturn(firstVirtualMachine);
+        Mockito.when(this.virtualMachinePool.item(1)).thenReturn(thirdVirtualMachine);
+        PowerMockito.doThrow(new InstanceNotFoundException())
+                .when(OpenNebulaClientUtil.class, "getVirtualMachine", this.client, "2");
+
+        // exercise
+        OpenNebulaBatchResult<VirtualMachine> result = OpenNebulaClientUtil.getVirtualMachines(this.client,
+                Arrays.asList("3", "1", "2", INVALID_ID));
+
+        // verify
+        Assert.assertSame(firstVirtualMachine, result.get("1"));
+        Assert.assertSame(thirdVirtualMachine, result.get("3"));
+        Assert.assertTrue(result.getFailures().get("2") instanceof InstanceNotFoundException);
+        Assert.assertTrue(result.getFailures().get(INVALID_ID) instanceof InternalServerErrorException);
+        Assert.assertEquals(4, result.getIds().size());
+        Mockito.verify(this.virtualMachinePool, Mockito.times(1))
+                .info(Mockito.anyInt(), Mockito.anyInt(), Mockito.anyInt(), Mockito.anyInt());
+        PowerMockito.verifyStatic(Mockito.times(1));
+        OpenNebulaClientUtil.getVirtualMachine(Mockito.eq(this.client), Mockito.anyString());
+    }
+
+    // test case: When the requested ids are too far apart, they must be split into one pool request per range.
+    @Test
+    public void testGetVirtualMachinesSplitsDistantIdsIntoRanges() throws Exception {
+        // set up
+        VirtualMachine firstVirtualMachine = mockVirtualMachine(1);
+        VirtualMachine distantVirtualMachine = mockVirtualMachine(10000);
+        Mockito.when(this.virtualMachinePool.info(Mockito.anyInt(), Mockito.anyInt(), Mockito.anyInt(), Mockito.anyInt()))
+                .thenReturn(new OneResponse(true, FAKE_MESSAGE));
+        Mockito.when(this.virtualMachinePool.getLength()).thenReturn(1);
+        Mockito.when(this.virtualMachinePool.item(0)).thenReturn(firstVirtualMachine, distantVirtualMachine);
+
+        // exercise
+        OpenNebulaBatchResult<VirtualMachine> result = OpenNebulaClientUtil.getVirtualMachines(this.client,
+                Arrays.asList("1", "10000"));
+
+        // verify
+        Assert.assertSame(firstVirtualMachine, result.get("1"));
+        Assert.assertSame(distantVirtualMachine, result.get("10000"));
+        Assert.assertTrue(result.getFailures().isEmpty());
+        Mockito.verify(this.virtualMachinePool).info(Mockito.anyInt(), Mockito.eq(1), Mockito.eq(1), Mockito.anyInt());
+        Mockito.verify(this.virtualMachinePool).info(Mockito.anyInt(), Mockito.eq(10000), Mockito.eq(10000), Mockito.anyInt());
+    }
+
+    // test case: When an id is close to the largest integer, its range must end at the largest integer instead of
+    // overflowing.
+    @Test
+    public void testGetVirtualMachinesWithIdNearMaximumInteger() throws Exception {
+        // set up
+        VirtualMachine virtualMachine = mockVirtualMachine(Integer.MAX_VALUE);
+        Mockito.when(this.virtualMachinePool.info(Mockito.anyInt(), Mockito.anyInt(), Mockito.anyInt(), Mockito.anyInt()))
+                .thenReturn(new OneResponse(true, FAKE_MESSAGE));
+        Mockito.when(this.virtualMachinePool.getLength()).thenReturn(1);
+        Mockito.when(this.virtualMachinePool.item(0)).thenReturn(virtualMachine);
+        String id = String.valueOf(Integer.MAX_VALUE);
+
+        // exercise
+        OpenNebulaBatchResult<VirtualMachine> result = OpenNebulaClientUtil.getVirtualMachines(this.client,
+                Arrays.asList(id));
+
+        // verify
+        Assert.assertSame(virtualMachine, result.get(id));
+        Mockito.verify(this.virtualMachinePool).info(Mockito.anyInt(), Mockito.eq(Integer.MAX_VALUE),
+                Mockito.eq(Integer.MAX_VALUE), Mockito.anyInt());
+    }
+
+    // test case: When different ids denote the same number, each of them must get the element of that number.
+    @Test
+    public void testGetVirtualMachinesWithIdsOfSameNumber() throws Exception {
+        // set up
+        VirtualMachine virtualMachine = mockVirtualMachine(1);
+        Mockito.when(this.virtualMachinePool.info(Mockito.anyInt(), Mockito.eq(1), Mockito.eq(1), Mockito.anyInt()))
+                .thenReturn(new OneResponse(true, FAKE_MESSAGE));
+        Mockito.when(this.virtualMachinePool.getLength()).thenReturn(1);
+        Mockito.when(this.virtualMachinePool.item(0)).thenReturn(virtualMachine);
+
+        // exercise
+        OpenNebulaBatchResult<VirtualMachine> result = OpenNebulaClientUtil.getVirtualMachines(this.client,
+                Arrays.asList("1", "01"));
+
+        // verify
+        Assert.assertSame(virtualMachine, result.get("1"));
+        Assert.assertSame(virtualMachine, result.get("01"));
+        Assert.assertEquals(2, result.getIds().size());
+    }
+
+    // test case: When an id is neither fetched nor failed, getting it must throw InstanceNotFoundException.
+    @Test(expected = InstanceNotFoundException.class)
+    public void testBatchResultGetUnknownId() throws Exception {
+        // set up
+        OpenNebulaBatchResult<VirtualMachine> result = new OpenNebulaBatchResult<>();
+
+        // exercise
+        result.get(INVALID_ID);
+    }
+
+    private VirtualMachine mockVirtualMachine(int id) {
+        VirtualMachine virtualMachine = Mockito.mock(VirtualMachine.class);
+        Mockito.when(virtualMachine.id()).thenReturn(id);
+        return virtualMachine;
+    }
+}
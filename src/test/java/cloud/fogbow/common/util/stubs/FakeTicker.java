@@ -0,0 +1,22 @@
+package cloud.fogbow.common.util.stubs;
+
+import com.google.common.base.Ticker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A ticker that only moves when told to, so that tests control when cached entries expire.
+ */
+public class FakeTicker extends Ticker {
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Override
+    public long read() {
+        return this.nanos.get();
+    }
+
+    public void advance(long millis) {
+        this.nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}